@@ -1,12 +1,17 @@
+import controllers.Library;
 import controllers.Playlist;
-import models.Artist;
 import models.Song;
+import persistence.ImportReport;
+import persistence.PlaylistAutosaver;
+import persistence.PlaylistJournal;
+import persistence.PlaylistStore;
+import persistence.SongImporter;
+import persistence.StoreFormat;
 import utils.ScannerInput;
 
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
-
 import java.io.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * 此类用于运行 Playlist 应用程序来管理歌曲。
@@ -22,6 +27,42 @@ public class Driver {
     //     It should be declared private.
     private static Playlist playlist;
 
+    /*
+      所有打开的歌单和它们共用的曲库；playlist 是其中当前使用的歌单。
+      All open playlists and the catalog they share; playlist is the one currently in use.
+     */
+    private static final Library library = new Library();
+
+    /*
+      当前歌单的操作日志，使用 (j)ournal 保存或从日志加载后才存在。
+      The operation journal of the current playlist; it only exists after saving as (j)ournal or loading from the journal.
+     */
+    private static PlaylistJournal journal;
+
+    /*
+      后台自动保存当前歌单，保存或加载 Store.xml、Store.dat 或 Store.map 后启动，保存到同一个文件。
+      Saves the current playlist automatically in the background; it starts after saving or loading Store.xml, Store.dat or Store.map, and saves to that same file.
+     */
+    private static PlaylistAutosaver autosaver;
+
+    /*
+      菜单操作访问歌单时持有此锁，自动保存复制歌单时也持有它。
+      Held while a menu operation accesses the playlist, and by the autosave while it copies the playlist.
+     */
+    private static final ReentrantLock playlistLock = new ReentrantLock();
+
+    /*
+      修改之后等待多少毫秒再自动保存，这段时间内的修改合并为一次保存。
+      How many milliseconds to wait after a change before autosaving; changes in that time are merged into one save.
+     */
+    private static final long AUTOSAVE_DELAY_MILLIS = 2000;
+
+    /*
+      列出歌曲时每页的歌曲数量。
+      Number of songs per page when listing songs.
+     */
+    private static final int PAGE_SIZE = 20;
+
     /*
       程序入口。
       Main program entry point.
@@ -46,7 +87,7 @@ public class Driver {
       Initialize Playlist.
      */
     public Driver() {
-        playlist = new Playlist("My Playlist", "My Playlist Description");
+        playlist = library.createPlaylist("My Playlist", "My Playlist Description");
     }
 
     //----------------------------------------------------------------------------
@@ -76,9 +117,15 @@ public class Driver {
       *    11) List all Songs by a given artist                     *
       *    12) Print the average length of songs in the playlist    *
       *    13) Print the total length of songs in the playlist      *
+      *    14) List all Songs between two given lengths             *
+      *    15) List the longest Songs                               *
+      * PLAYLIST MENU                                               *
+      *    16) Switch to another playlist                           *
+      *    17) Import songs from a CSV/TSV file                     *
       * SETTING MENU                                                *
       *    20) Save                                                 *
       *    21) Load                                                 *
+      *    22) Autosave status                                      *
       *    0) Exit                                                  *
       * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
     ==>>""");
@@ -139,12 +186,27 @@ public class Driver {
                     case 13:
                         printLengthOfPlaylist();
                         break;
+                    case 14:
+                        listSongsBetweenGivenLengths();
+                        break;
+                    case 15:
+                        listLongestSongs();
+                        break;
+                    case 16:
+                        switchPlaylist();
+                        break;
+                    case 17:
+                        importSongs();
+                        break;
                     case 20:
                         save();
                         break;
                     case 21:
                         load();
                         break;
+                    case 22:
+                        printAutosaveStatus();
+                        break;
                     default:
                         System.out.println("Please enter a valid number.");
                 }
@@ -161,9 +223,31 @@ public class Driver {
             option = displayMenu();
         }
 
+        try {
+            stopAutosave();
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
         System.out.println("The program has been exited... Bye... ");
     }
 
+    /*
+      在持有歌单锁时运行 action。菜单操作先读取全部输入，只在访问歌单时持有锁，使得自动保存不必等待用户输入。
+      切换歌单、保存和加载不持有这把锁，因为它们会等待自动保存完成，而自动保存需要这把锁。
+      Run action while holding the playlist lock. Menu operations read all their input first and only hold the lock while they access the
+      playlist, so the autosave never waits for the user to type. Switching playlists, saving and loading do not hold the lock, because
+      they wait for the autosave, which needs the lock.
+     */
+    private static <T> T withPlaylistLock(Supplier<T> action) {
+        playlistLock.lock();
+
+        try {
+            return action.get();
+        } finally {
+            playlistLock.unlock();
+        }
+    }
+
     //------------------------------------
     // Private methods for CRUD on Song
     //------------------------------------
@@ -178,9 +262,10 @@ public class Driver {
         String artistName = ScannerInput.readNextLine("Enter artist name: ");
         boolean verified = ScannerInput.readNextChar("Is the artist verified? (y/n): ") == 'y';
         int length = ScannerInput.readNextInt("Enter song length (1-600): ");
-        Song song = new Song(songId, name, artistName, verified, length);
+        boolean added = withPlaylistLock(() ->
+                library.addSong(playlist, library.getArtists().newSong(songId, name, artistName, verified, length)));
 
-        if (playlist.addSong(song)) {
+        if (added) {
             System.out.println("Song added successfully.");
         } else {
             System.out.println("Failed to add song.");
@@ -191,11 +276,54 @@ public class Driver {
       列出所有歌曲。
       List all songs.
      */
-    private static void listAllSongs() {
+    private static void listAllSongs() throws IOException {
         if (playlist == null) {
             System.out.println("Playlist is null.");
-        } else {
-            System.out.println(playlist.listSongs());
+            return;
+        }
+
+        /*
+          分页输出，每次只格式化一页歌曲，避免为大型歌单生成一个巨大的字符串。每一页在持有歌单锁时复制到 page 中，
+          释放锁之后再输出并等待用户，使得自动保存和其他修改不必等待用户翻页。
+          Print page by page, formatting one page of songs at a time, instead of building one huge String for a large playlist. Each page is
+          copied into page while holding the playlist lock, and printed after the lock is released, before waiting for the user, so the
+          autosave and other changes never wait for the user to turn the page.
+         */
+        StringBuilder page = new StringBuilder();
+        int offset = 0;
+        int numSongs;
+
+        while (true) {
+            page.setLength(0);
+            playlistLock.lock();
+
+            try {
+                numSongs = playlist.numSongs();
+
+                if (numSongs == 0) {
+                    page.append(playlist.listSongs()).append('\n');
+                } else {
+                    if (offset == 0) {
+                        page.append("Songs from playlist :").append(playlist.getPlaylistName()).append('\n');
+                    }
+                    offset += playlist.writeSongs(page, offset, PAGE_SIZE);
+                }
+            } finally {
+                playlistLock.unlock();
+            }
+
+            System.out.print(page);
+            System.out.flush();
+
+            if (offset >= numSongs) {
+                break;
+            }
+
+            String answer = ScannerInput.readNextLine("-- " + offset + " of " + numSongs + " songs, press enter for more or q to stop: ");
+
+            if (answer.trim().equalsIgnoreCase("q")) {
+                break;
+            }
         }
     }
 
@@ -206,30 +334,41 @@ public class Driver {
     private static void updateSong() {
         int index = ScannerInput.readNextInt("Enter the index of the song to update: ");
 
-        if (!playlist.isValidIndex(index)) {
+        /*
+          修改歌曲的副本再通过 updateSong 替换，使得修改经过歌单（例如被写入日志）；无效的值保留原来的值。
+          Change a copy of the song and replace it through updateSong, so the change goes through the playlist (for example, into the journal); invalid values keep the original value.
+         */
+        Song updatedSong = withPlaylistLock(() -> {
+            Song existingSong = playlist.findSong(index);
+            return existingSong == null ? null : new Song(existingSong.getSongId(), existingSong.getName(),
+                    existingSong.getArtist().getArtistName(), existingSong.getArtist().isVerified(), existingSong.getLength());
+        });
+
+        if (updatedSong == null) {
             System.out.println("Invalid index, so keep the original value.");
             return;
         }
 
-        Song existingSong = playlist.getSongs().get(index);
-
         int songId = ScannerInput.readNextInt("Enter new song ID (1000-9999): ");
-        existingSong.setSongId(songId);
+        updatedSong.setSongId(songId);
 
         String name = ScannerInput.readNextLine("Enter new song name: ");
-        existingSong.setName(name);
+        updatedSong.setName(name);
 
         String artistName = ScannerInput.readNextLine("Enter new artist name: ");
-        existingSong.getArtist().setArtistName(artistName);
+        updatedSong.getArtist().setArtistName(artistName);
 
         boolean verified = ScannerInput.readNextChar("Is the artist verified? (y/n): ") == 'y';
-        existingSong.getArtist().setVerified(verified);
+        updatedSong.getArtist().setVerified(verified);
 
         int length = ScannerInput.readNextInt("Enter new song length (1-600): ");
-        existingSong.setLength(length);
+        updatedSong.setLength(length);
 
-        playlist.updateSong(index, existingSong);
-        System.out.println("Song updated successfully.");
+        if (withPlaylistLock(() -> library.updateSong(playlist, index, updatedSong))) {
+            System.out.println("Song updated successfully.");
+        } else {
+            System.out.println("No changes were made to the song.");
+        }
     }
 
     /*
@@ -238,7 +377,7 @@ public class Driver {
      */
     private static void deleteSong() {
         int index = ScannerInput.readNextInt("Enter the index of the song to delete: ");
-        Song deletedSong = playlist.deleteSong(index);
+        Song deletedSong = withPlaylistLock(() -> playlist.deleteSong(index));
 
         if (deletedSong != null) {
             System.out.println("Song deleted successfully: " + deletedSong);
@@ -258,7 +397,7 @@ public class Driver {
     private static void setVerifiedStatus() {
         int index = ScannerInput.readNextInt("Enter the index of the song to update verified status: ");
         boolean verified = ScannerInput.readNextChar("Set verified status (y/n): ") == 'y';
-        Song updatedSong = playlist.updateVerifiedStatus(index, verified);
+        Song updatedSong = withPlaylistLock(() -> playlist.updateVerifiedStatus(index, verified));
 
         if (updatedSong != null) {
             System.out.println("Verified status updated successfully: " + updatedSong);
@@ -273,7 +412,7 @@ public class Driver {
      */
     private static void findSongById() {
         int songCode = ScannerInput.readNextInt("Enter the song code to find: ");
-        Song song = playlist.findSongByCode(songCode);
+        Song song = withPlaylistLock(() -> playlist.findSongByCode(songCode));
 
         if (song != null) {
             System.out.println("Song found: " + song);
@@ -288,7 +427,7 @@ public class Driver {
      */
     private static void searchSongByName() {
         String name = ScannerInput.readNextLine("Enter the song name to search: ");
-        System.out.println(playlist.searchSongsByName(name));
+        System.out.println(withPlaylistLock(() -> playlist.searchSongsByName(name)));
     }
 
     /*
@@ -296,7 +435,13 @@ public class Driver {
       Add a like.
      */
     private static void addLikeToPlaylist() {
-        playlist.addLike();
+        playlistLock.lock();
+
+        try {
+            playlist.addLike();
+        } finally {
+            playlistLock.unlock();
+        }
         System.out.println("Like added to playlist.");
     }
 
@@ -309,7 +454,7 @@ public class Driver {
       List all songs by verified artists.
      */
     private static void listSongsByVerifiedArtists() {
-        System.out.println(playlist.listSongsFromVerifiedArtists());
+        System.out.println(withPlaylistLock(playlist::listSongsFromVerifiedArtists));
     }
 
     /*
@@ -318,7 +463,26 @@ public class Driver {
      */
     private static void listSongsOverGivenLength() {
         int length = ScannerInput.readNextInt("Enter the minimum song length: ");
-        System.out.println(playlist.listSongsLongerThan(length));
+        System.out.println(withPlaylistLock(() -> playlist.listSongsLongerThan(length)));
+    }
+
+    /*
+      列出长度在两个给定长度之间的曲目。
+      List all songs between two given lengths.
+     */
+    private static void listSongsBetweenGivenLengths() {
+        int minLength = ScannerInput.readNextInt("Enter the minimum song length: ");
+        int maxLength = ScannerInput.readNextInt("Enter the maximum song length: ");
+        System.out.println(withPlaylistLock(() -> playlist.listSongsBetween(minLength, maxLength)));
+    }
+
+    /*
+      列出最长的曲目。
+      List the longest songs.
+     */
+    private static void listLongestSongs() {
+        int count = ScannerInput.readNextInt("Enter the number of songs to list: ");
+        System.out.println(withPlaylistLock(() -> playlist.listLongestSongs(count)));
     }
 
     /*
@@ -327,7 +491,7 @@ public class Driver {
      */
     private static void listSongsOfGivenArtist() {
         String artistName = ScannerInput.readNextLine("Enter the artist name: ");
-        System.out.println(playlist.listOfSongsOfArtist(artistName));
+        System.out.println(withPlaylistLock(() -> playlist.listOfSongsOfArtist(artistName)));
     }
 
     //---------------------------------
@@ -339,7 +503,7 @@ public class Driver {
       Print the average length of songs in the playlist.
      */
     private static void printAverageLength() {
-        int averageLength = playlist.getAverageSongLength();
+        int averageLength = withPlaylistLock(playlist::getAverageSongLength);
 
         if (averageLength == -1) {
             System.out.println("The playlist is empty.");
@@ -353,7 +517,7 @@ public class Driver {
       Print the total length of songs in the playlist.
      */
     private static void printLengthOfPlaylist() {
-        int totalLength = playlist.getTotalPlayListLength();
+        int totalLength = withPlaylistLock(playlist::getTotalPlayListLength);
 
         if (totalLength == -1) {
             System.out.println("The playlist is empty.");
@@ -362,72 +526,226 @@ public class Driver {
         }
     }
 
-    /**
-     * 创建 XStream 对象，并设置别名。
-     * Create an XStream object and set aliases.
-     *
-     * @return XStream 对象。
-     *         XStream object.
-     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
-     * @since version 3.1.1
+    //------------------------------------
+    // Private methods for Playlists
+    //------------------------------------
+
+    /*
+      切换到另一个歌单；名字不存在时创建新的歌单。新歌单通过曲库与其他歌单共用歌曲。
+      Switch to another playlist, creating a new one if the name does not exist. Through the library, it shares songs with the other playlists.
+     */
+    private static void switchPlaylist() throws IOException {
+        System.out.println("Playlists:");
+
+        for (Playlist open : library.getPlaylists()) {
+            System.out.println((open == playlist ? " * " : "   ") + open.getPlaylistName() + " (" + open.numSongs() + " songs)");
+        }
+
+        String name = ScannerInput.readNextLine("Enter the name of the playlist to switch to (a new name creates it): ");
+        Playlist next = library.findPlaylist(name);
+
+        if (next == playlist) {
+            System.out.println("Already using " + name + ".");
+            return;
+        }
+
+        /*
+          自动保存只保存启动它的歌单，所以切换后停止；保存新的歌单（日志除外）会为它重新启动自动保存。
+          The autosave only saves the playlist it was started for, so it stops on switching; saving the new playlist (except to the journal)
+          starts it again for that playlist.
+         */
+        boolean autosaving = autosaver != null;
+        stopAutosave();
+
+        if (next == null) {
+            String description = ScannerInput.readNextLine("Enter the playlist description: ");
+            next = library.createPlaylist(name, description);
+            System.out.println("Created playlist " + next.getPlaylistName() + ".");
+        }
+
+        playlist = next;
+        System.out.println("Now using playlist " + playlist.getPlaylistName() + " (" + library.numSongs() + " songs in the shared catalog).");
+
+        if (autosaving) {
+            System.out.println("Autosave is now off; save this playlist as (x)ml, (b)inary or (m)apped to autosave it.");
+        }
+    }
+
+    /*
+      从 CSV 或 TSV 文件批量导入歌曲到当前歌单，歌曲通过曲库共用；显示每秒处理的行数和被拒绝的行。
+      Import songs in bulk from a CSV or TSV file into the current playlist, sharing them through the library; print the rows per second
+      and the rejected rows.
      */
-    private static XStream XStreamCreating() {
-        XStream xstream = new XStream(new DomDriver());
-        xstream.alias("song", Song.class);
-        xstream.alias("artist", Artist.class);
-        xstream.alias("playlist", Playlist.class);
-        XStream.setupDefaultSecurity(xstream);
-        xstream.allowTypes(new Class[]{Song.class, Artist.class, Playlist.class});
-        return xstream;
+    private static void importSongs() throws IOException {
+        String fileName = ScannerInput.readNextLine("Enter the CSV/TSV file to import (songId, name, artist, verified, length): ");
+        File file = new File(fileName);
+
+        if (!file.isFile()) {
+            System.out.println("There is no file " + fileName + ".");
+            return;
+        }
+
+        ImportReport report;
+        playlistLock.lock();
+
+        try {
+            report = new SongImporter().importFile(file, playlist, library);
+        } finally {
+            playlistLock.unlock();
+        }
+        System.out.println(report);
     }
 
     //TODO Add a method, load().
     //     The return type is void.
     //     This method uses the XStream component to deserialise the playList object and their associated artists from an XML file into the Songs array list.
     /**
-     * 将播放列表加载到 Storage.xml 文件中。
-     * Load the playlist from the Storage.xml file.
+     * 从最近保存的歌单文件（Store.xml、Store.dat、Store.map 或操作日志）加载播放列表，文件格式自动识别。
+     * Load the playlist from the most recently saved file (Store.xml, Store.dat, Store.map or the operation journal), detecting its format automatically.
      *
      * @throws Exception 如果加载失败，则抛出异常。
      *                   If loading fails, an exception is thrown.
-     * @see #XStreamCreating()
+     * @see PlaylistStore#load(File)
      * @author Fan Xinkang, Xu Shiyi, Lu Siyu
      * @since version 3.1.1
      */
     public static void load() throws Exception {
-        XStream xstream = XStreamCreating();
-        try (FileInputStream file = new FileInputStream("Store.xml")) {
-            System.out.println("Loading playlist...");
-            playlist = (Playlist) xstream.fromXML(file);
+        File file = PlaylistStore.latestStoreFile();
+        File journalFile = new File(PlaylistJournal.JOURNAL_FILE_NAME);
+        stopAutosave();
+
+        try {
+            if (journalFile.exists() && (!file.exists() || journalFile.lastModified() >= file.lastModified())) {
+                System.out.println("Loading playlist from " + PlaylistJournal.SNAPSHOT_FILE_NAME + " and " + journalFile.getName() + "...");
+                journal = PlaylistJournal.open(new File(PlaylistJournal.SNAPSHOT_FILE_NAME), journalFile);
+                playlist = journal.getPlaylist();
+            } else {
+                System.out.println("Loading playlist from " + file.getName() + "...");
+                playlist = loadOrRecover(file);
+                startAutosave(file, StoreFormat.forFileName(file.getName()));
+            }
+
+            /*
+              加载的歌单替换曲库中同名的歌单，而不是与它并存。
+              The loaded playlist replaces the playlist of the same name in the library, instead of sitting next to it.
+             */
+            Playlist replaced = library.findPlaylist(playlist.getPlaylistName());
+
+            if (replaced != null) {
+                library.removePlaylist(replaced);
+            }
+            library.addPlaylist(playlist);
         } catch (Exception e) {
             System.err.println("Error loading playlist: " + e.getMessage());
             throw e;
         }
     }
     
+    /*
+      加载歌单文件；文件损坏时从它的备份恢复。
+      Load a playlist file, recovering from its backups when the file is corrupt.
+     */
+    private static Playlist loadOrRecover(File file) throws IOException {
+        try {
+            return PlaylistStore.load(file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println(file.getName() + " could not be read (" + e.getMessage() + "), trying its backups...");
+            Playlist recovered = PlaylistStore.recover(file);
+            System.out.println("Recovered the playlist from a backup of " + file.getName() + ".");
+            return recovered;
+        }
+    }
+
     //TODO Add a method, save().
     //     The return type is void.
     //     This method uses the XStream component to serialise the playList object and their associated artists to an XML file.
     /**
-     * 将播放列表保存到 Storage.xml 文件中。
-     * Save the playlist to the Storage.xml file.
+     * 将播放列表保存为 XML（Store.xml）、紧凑的二进制格式（Store.dat）、内存映射格式（Store.map），或者只把修改追加到操作日志。
+     * Save the playlist as XML (Store.xml), in the compact binary format (Store.dat), in the memory-mapped format (Store.map), or only append the changes to the operation journal.
      *
      * @throws Exception 如果保存失败，则抛出异常。
      *                   If saving fails, an exception is thrown.
-     * @see #XStreamCreating()
+     * @see PlaylistStore#save(Playlist, File, StoreFormat)
      * @author Fan Xinkang, Xu Shiyi, Lu Siyu
      * @since version 3.1.1
      */
     public static void save() throws Exception {
-        XStream xstream = XStreamCreating();
-        try (FileOutputStream file = new FileOutputStream("Store.xml")) {
-            System.out.println("Saving playlist...");
-            xstream.toXML(playlist, file);
+        char choice = ScannerInput.readNextChar("Save as (x)ml, (b)inary, (m)apped or (j)ournal? ");
+        StoreFormat format = choice == 'b' ? StoreFormat.BINARY : choice == 'm' ? StoreFormat.MAPPED : StoreFormat.XML;
+
+        stopAutosave();
+
+        if (choice == 'j') {
+            saveJournal();
+            return;
+        }
+
+        try {
+            System.out.println("Saving playlist to " + format.getFileName() + "...");
+            File file = new File(format.getFileName());
+            PlaylistStore.save(playlist, file, format);
+            startAutosave(file, format);
         } catch (Exception e) {
             System.err.println("Error saving playlist: " + e.getMessage());
             throw e;
         }
     }
+
+    /*
+      把修改追加到操作日志。当前歌单还没有日志时，先写出完整的快照。
+      Append the changes to the operation journal. If the current playlist has no journal yet, write a full snapshot first.
+     */
+    private static void saveJournal() throws IOException {
+        if (journal == null || journal.getPlaylist() != playlist) {
+            if (journal != null) {
+                journal.detach();
+            }
+            journal = PlaylistJournal.create(playlist, new File(PlaylistJournal.SNAPSHOT_FILE_NAME), new File(PlaylistJournal.JOURNAL_FILE_NAME));
+            System.out.println("Saved a full snapshot to " + PlaylistJournal.SNAPSHOT_FILE_NAME + ".");
+            return;
+        }
+
+        int appended = journal.save();
+
+        if (appended < 0) {
+            System.out.println("Compacted the journal into " + PlaylistJournal.SNAPSHOT_FILE_NAME + ".");
+        } else {
+            System.out.println("Appended " + appended + " change(s) to " + PlaylistJournal.JOURNAL_FILE_NAME + ".");
+        }
+    }
+
+    /*
+      开始把当前歌单自动保存到给定文件。
+      Start autosaving the current playlist to the given file.
+     */
+    private static void startAutosave(File file, StoreFormat format) {
+        autosaver = new PlaylistAutosaver(playlist, file, format, playlistLock, AUTOSAVE_DELAY_MILLIS);
+        System.out.println("Changes will be saved to " + file.getName() + " automatically.");
+    }
+
+    /*
+      停止自动保存，先保存还没有保存的修改。
+      Stop autosaving, saving any unsaved changes first.
+     */
+    private static void stopAutosave() throws IOException {
+        if (autosaver != null) {
+            PlaylistAutosaver stopped = autosaver;
+            autosaver = null;
+            stopped.close();
+        }
+    }
+
+    /*
+      显示自动保存的状态和统计信息。
+      Print the status and metrics of the autosave.
+     */
+    private static void printAutosaveStatus() {
+        if (autosaver == null) {
+            System.out.println("Autosave is off; it starts after saving or loading Store.xml, Store.dat or Store.map.");
+        } else {
+            System.out.println(autosaver);
+        }
+    }
 }
 /*
  * End of Driver Class.
@@ -0,0 +1,115 @@
+package controllers;
+
+import utils.IntList;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 此类在一批修改中收集对行号桶（升序的 IntList）的增删，最后每个桶只合并一次。逐个增删时，每次都要移动桶中后面的行号，
+ * 常见的名称三元组或长度的桶很大，所以一批修改的开销是 O(k·n)；合并一次则只与被修改的桶的大小成正比。
+ * This class collects the rows added to and removed from row buckets (ascending IntLists) during a batch of changes, and merges each
+ * bucket only once at the end. Adding or removing rows one at a time moves the later rows of the bucket every time, and the buckets of
+ * common name trigrams or lengths are large, so a batch costs O(k·n); merging once costs only the size of the buckets changed.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.4
+ * @since version 7.4
+ */
+class BucketEdits {
+    /*
+      小于此大小的桶直接修改：移动几个行号比记录修改更快，而大部分桶（例如编号和名称的桶）都很小。
+      Buckets smaller than this are changed directly: moving a few rows is faster than recording the change, and most buckets (those of
+      codes and names, for example) are small.
+     */
+    private static final int DIRECT_LIMIT = 64;
+
+    private final IdentityHashMap<IntList, Edit> edits = new IdentityHashMap<>();
+
+    /**
+     * 记录从桶中删除行号；小的桶直接修改。
+     * Record that the row is removed from the bucket; small buckets are changed directly.
+     *
+     * @param bucket 行号桶。
+     *               The row bucket.
+     * @param row 行号。
+     *            The row.
+     * @param whenEmpty 合并后桶为空时运行，例如从映射中删除该桶；不需要时为 null。
+     *                  Run when the bucket is empty after merging, for example to remove it from its map; null when not needed.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    void remove(IntList bucket, int row, Runnable whenEmpty) {
+        Edit edit = edits.get(bucket);
+
+        if (edit == null && bucket.size() < DIRECT_LIMIT) {
+            bucket.remove(row);
+
+            if (bucket.isEmpty() && whenEmpty != null) {
+                whenEmpty.run();
+            }
+            return;
+        }
+
+        if (edit == null) {
+            edit = new Edit();
+            edits.put(bucket, edit);
+        }
+        edit.removed.add(row);
+
+        if (whenEmpty != null) {
+            edit.whenEmpty = whenEmpty;
+        }
+    }
+
+    /*
+      记录向桶中添加行号；小的桶直接修改。一个桶有记录的修改后，之后的修改也都记录下来。
+      合并时先删除后添加，所以同一行先删除再添加（例如更新后键不变）时仍在桶中。
+      Record that the row is added to the bucket; small buckets are changed directly. Once a bucket has a recorded change, its later
+      changes are recorded too. Merging removes before it adds, so a row removed and then added again (for example, an update keeping the
+      same key) stays in the bucket.
+     */
+    void add(IntList bucket, int row) {
+        Edit edit = edits.get(bucket);
+
+        if (edit == null && bucket.size() < DIRECT_LIMIT) {
+            bucket.add(row);
+        } else if (edit == null) {
+            edit = new Edit();
+            edit.added.add(row);
+            edits.put(bucket, edit);
+        } else {
+            edit.added.add(row);
+        }
+    }
+
+    /**
+     * 合并所有记录的增删，每个桶一次。
+     * Merge all the recorded additions and removals, once per bucket.
+     *
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    void apply() {
+        for (Map.Entry<IntList, Edit> entry : edits.entrySet()) {
+            IntList bucket = entry.getKey();
+            Edit edit = entry.getValue();
+            bucket.removeAll(edit.removed);
+            bucket.addAll(edit.added);
+
+            if (bucket.isEmpty() && edit.whenEmpty != null) {
+                edit.whenEmpty.run();
+            }
+        }
+        edits.clear();
+    }
+
+    private static class Edit {
+        private final IntList removed = new IntList(1);
+        private final IntList added = new IntList(1);
+        private Runnable whenEmpty;
+    }
+}
+/*
+ * End of controllers.BucketEdits Class.
+ */
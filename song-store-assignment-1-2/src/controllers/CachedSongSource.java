@@ -0,0 +1,455 @@
+package controllers;
+
+import models.Artist;
+import models.ArtistListener;
+import models.Song;
+import models.SongListener;
+import utils.IntHashMap;
+import utils.IntList;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * 此类是按需创建 Song 对象的歌曲来源的基类：歌曲以紧凑的记录保存（例如内存映射的文件或基本类型数组），第一次使用时才创建 Song 对象。
+ * 创建过的歌曲保存在容量有限的缓存中，所以内存占用与歌单大小无关；被修改过的歌曲不会被丢弃。从缓存中丢弃的歌曲只要还被调用者引用，
+ * 就仍然是这个位置上的歌曲，之后对它的修改也会使它被保留，所以通过 Song 对象做的修改不会丢失。
+ * This class is the base of song sources that create Song objects on demand: the songs are kept as compact records (for example, a
+ * memory-mapped file or primitive arrays), and a Song object is only created the first time it is used. Created songs are kept in a cache
+ * of bounded size, so memory use does not depend on the size of the playlist; songs that have been changed are never dropped. A song
+ * dropped from the cache stays the song at its position for as long as a caller still holds it, and changing it later keeps it too, so
+ * no change made through a Song object is lost.
+ *
+ * 子类提供按位置读取记录、与记录比较，以及按编号再按位置排序的编号索引。
+ * Subclasses read a record by position, compare a song with its record, and provide a code index sorted by code and then by position.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.8
+ * @since version 6.7
+ */
+public abstract class CachedSongSource implements SongSource {
+
+    /*
+      默认最多缓存的歌曲数量。
+      The default maximum number of cached songs.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    private final int count;
+
+    /*
+      最近创建的歌曲，按位置保存。ring 按创建顺序保存它们的位置，满了以后丢弃最早创建的一首（先进先出）。
+      The songs created most recently, by position. ring holds their positions in the order they were created; once it is full the earliest one is dropped (first in, first out).
+     */
+    private final IntHashMap<Song> cached;
+    private final int[] ring;
+    private int ringSize = 0;
+    private int ringNext = 0;
+
+    /*
+      被修改过的歌曲，按位置保存。它们与记录不同，所以不能丢弃后重新读取。
+      Songs that have been changed, by position. They differ from their records, so they cannot be dropped and read again.
+     */
+    private final IntHashMap<Song> changed = new IntHashMap<>();
+
+    /*
+      编号被修改过的歌曲的位置。编号索引对这些位置不再准确。
+      Positions of songs whose code has been changed. The code index is no longer accurate for them.
+     */
+    private final IntList changedCodes = new IntList();
+
+    /*
+      从缓存中丢弃、与记录相同的歌曲，按位置弱引用保存。调用者还引用它们时，song() 返回同一个对象；不再被引用的歌曲被回收后，
+      它们的引用从 collected 中取出并删除。
+      Songs dropped from the cache that match their records, held weakly by position. While a caller still holds one, song() returns
+      the same object; once a song is no longer held and has been collected, its reference is taken from collected and removed.
+     */
+    private final IntHashMap<Evicted> evicted = new IntHashMap<>();
+    private final ReferenceQueue<Song> collected = new ReferenceQueue<>();
+
+    /**
+     * 构造函数。
+     * Constructor.
+     *
+     * @param count 歌曲数量。
+     *              The number of songs.
+     * @param cacheSize 最多缓存的歌曲数量（被修改过的歌曲不计算在内）。
+     *                  The maximum number of cached songs (changed songs are not counted).
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.7
+     */
+    protected CachedSongSource(int count, int cacheSize) {
+        this.count = count;
+        this.ring = new int[Math.max(1, Math.min(cacheSize, count))];
+        this.cached = new IntHashMap<>(ring.length);
+    }
+
+    /**
+     * 从记录创建位置上的歌曲。
+     * Create the song at the position from its record.
+     *
+     * @param position 歌曲的位置。
+     *                 The position of the song.
+     * @return 新的歌曲。
+     *         The new song.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.7
+     */
+    protected abstract Song read(int position);
+
+    /**
+     * 判断歌曲是否与它的记录不同，即是否被修改过。
+     * Judge whether the song differs from its record, that is, whether it has been changed.
+     *
+     * @param song 歌曲。
+     *             The song.
+     * @param position 歌曲的位置。
+     *                 The position of the song.
+     * @return 是否与记录不同。
+     *         Whether it differs from the record.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.7
+     * @see #differs(Song, int, int, boolean, boolean, String, String, String)
+     */
+    protected abstract boolean differsFromRecord(Song song, int position);
+
+    /**
+     * 从记录读取位置上歌曲的长度，不创建 Song 对象。
+     * Read the length of the song at the position from its record, without creating a Song object.
+     *
+     * @param position 歌曲的位置。
+     *                 The position of the song.
+     * @return 记录中的长度。
+     *         The length in the record.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.8
+     */
+    protected abstract int recordLength(int position);
+
+    /**
+     * 从记录读取位置上歌曲的歌手是否已验证，不创建 Song 对象。
+     * Read whether the artist of the song at the position is verified from its record, without creating a Song object.
+     *
+     * @param position 歌曲的位置。
+     *                 The position of the song.
+     * @return 记录中歌手的验证状态。
+     *         The verified status of the artist in the record.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.8
+     */
+    protected abstract boolean recordArtistVerified(int position);
+
+    /**
+     * 返回编号索引的第 entry 个条目：高 32 位是编号，低 32 位是位置，按编号再按位置升序排列。
+     * Return entry number entry of the code index: the code in the high 32 bits and the position in the low 32 bits, in ascending order of code and then position.
+     *
+     * @param entry 条目的序号，从 0 到 size() - 1。
+     *              The number of the entry, from 0 to size() - 1.
+     * @return 编号索引的条目。
+     *         The code index entry.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.7
+     */
+    protected abstract long codeEntry(int entry);
+
+    /**
+     * 比较歌曲与记录的每个字段，供 differsFromRecord 使用。
+     * Compare every field of the song with the record, for use by differsFromRecord.
+     *
+     * @return 是否有字段不同。
+     *         Whether any field differs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.7
+     */
+    protected static boolean differs(Song song, int songId, int length, boolean verified, boolean artistVerified,
+                                     String name, String artistName, String songArtistName) {
+        return song.getSongId() != songId
+                || song.getLength() != length
+                || song.isVerified() != verified
+                || song.getArtist().isVerified() != artistVerified
+                || !Objects.equals(song.getName(), name)
+                || !Objects.equals(song.getArtist().getArtistName(), artistName)
+                || !Objects.equals(song.getArtistName(), songArtistName);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public Song song(int position) {
+        Song song = loaded(position);
+
+        if (song == null) {
+            Evicted reference = evicted.remove(position);
+            song = reference != null ? reference.get() : null;
+
+            if (song == null) {
+                song = read(position);
+                ChangeListener listener = new ChangeListener(position);
+                song.addSongListener(listener);
+                song.getArtist().addArtistListener(listener);
+            }
+            cache(position, song);
+        }
+        return song;
+    }
+
+    /*
+      已经创建的歌曲可能被修改过，所以优先使用它；否则直接读取记录。被丢弃的歌曲一旦被修改就会被保留，所以不需要查看它们。
+      A song that has been created may have been changed, so it is used first; otherwise the record is read directly. A dropped song is
+      kept as soon as it is changed, so the dropped songs need not be looked at.
+     */
+    @Override
+    public int length(int position) {
+        Song song = loaded(position);
+        return song != null ? song.getLength() : recordLength(position);
+    }
+
+    @Override
+    public boolean isArtistVerified(int position) {
+        Song song = loaded(position);
+        return song != null ? song.getArtist().isVerified() : recordArtistVerified(position);
+    }
+
+    @Override
+    public int positionOfCode(int songCode) {
+        int found = -1;
+
+        /*
+          编号索引按编号再按位置排序：取第一个编号没有被修改过的位置。
+          The code index is sorted by code and then by position: take the first position whose code has not been changed.
+         */
+        for (int entry = firstCodeEntry(songCode); entry < count; entry++) {
+            long code = codeEntry(entry);
+
+            if ((int) (code >>> 32) != songCode) {
+                break;
+            }
+
+            int position = (int) code;
+            Song song = loaded(position);
+
+            if (song == null || song.getSongId() == songCode) {
+                found = position;
+                break;
+            }
+        }
+
+        for (int i = 0; i < changedCodes.size(); i++) {
+            int position = changedCodes.get(i);
+
+            if ((found < 0 || position < found) && changed.get(position).getSongId() == songCode) {
+                found = position;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public ArrayList<Song> songs() {
+        ArrayList<Song> all = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            all.add(song(i));
+        }
+
+        /*
+          取出之后不再需要跟踪修改，注销监听器，使得这个来源可以被回收。
+          Changes no longer need tracking once taken, so remove the listeners, letting this source be collected.
+         */
+        for (int i = 0; i < count; i++) {
+            ChangeListener listener = new ChangeListener(i);
+            all.get(i).removeSongListener(listener);
+            all.get(i).getArtist().removeArtistListener(listener);
+        }
+        return all;
+    }
+
+    /*
+      返回已经创建、还在缓存中或被修改过的歌曲；没有时返回 null。
+      Return the song if it has been created and is still cached or has been changed, or null otherwise.
+     */
+    private Song loaded(int position) {
+        Song song = changed.get(position);
+        return song != null ? song : cached.get(position);
+    }
+
+    private void cache(int position, Song song) {
+        for (Reference<? extends Song> reference; (reference = collected.poll()) != null; ) {
+            int collectedPosition = ((Evicted) reference).position;
+
+            if (evicted.get(collectedPosition) == reference) {
+                evicted.remove(collectedPosition);
+            }
+        }
+
+        if (ringSize == ring.length) {
+            drop(ring[ringNext]);
+        } else {
+            ringSize++;
+        }
+        ring[ringNext] = position;
+        ringNext = (ringNext + 1) % ring.length;
+        cached.put(position, song);
+    }
+
+    /*
+      从缓存中丢弃一首歌曲。被修改过的歌曲在这里与记录比较后发现，并保留下来；其余的歌曲只被弱引用，监听器仍然注册着，
+      使得之后对它们的修改也能被发现。
+      Drop a song from the cache. Songs that have been changed are found here by comparing them with their records, and kept; the others
+      are only held weakly, with their listeners still registered, so that later changes to them are found too.
+     */
+    private void drop(int position) {
+        Song song = cached.remove(position);
+
+        if (song == null || changed.get(position) != null) {
+            return;
+        }
+
+        if (differsFromRecord(song, position)) {
+            changed.put(position, song);
+        } else {
+            evicted.put(position, new Evicted(position, song, collected));
+        }
+    }
+
+    /*
+      二分查找编号索引中第一个编号不小于 songCode 的条目。
+      Binary search for the first entry in the code index whose code is not less than songCode.
+     */
+    private int firstCodeEntry(int songCode) {
+        int low = 0;
+        int high = count;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if ((int) (codeEntry(middle) >>> 32) < songCode) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /*
+      被丢弃的歌曲的弱引用，记住它的位置，以便回收后删除。
+      A weak reference to a dropped song, remembering its position so that it can be removed once collected.
+     */
+    private static class Evicted extends WeakReference<Song> {
+        private final int position;
+
+        Evicted(int position, Song song, ReferenceQueue<Song> queue) {
+            super(song, queue);
+            this.position = position;
+        }
+    }
+
+    /*
+      保留编号或歌手被修改的歌曲，以及已经被丢弃后又被修改的歌曲，并记录编号被修改的位置。
+      Keeps songs whose code or artist has been changed and songs changed after being dropped, and records the positions whose code has
+      been changed.
+     */
+    private class ChangeListener implements SongListener, ArtistListener {
+        private final int position;
+
+        ChangeListener(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public void songNameChanged(Song song, String oldName) {
+            keepIfDropped(song);
+        }
+
+        @Override
+        public void songLengthChanged(Song song, int oldLength) {
+            keepIfDropped(song);
+        }
+
+        @Override
+        public void songArtistNameChanged(Song song, String oldArtistName) {
+            keepIfDropped(song);
+        }
+
+        @Override
+        public void songVerifiedChanged(Song song) {
+            keepIfDropped(song);
+        }
+
+        @Override
+        public void artistNameChanged(Artist artist, String oldArtistName) {
+            artistChanged(artist);
+        }
+
+        @Override
+        public void artistVerifiedChanged(Artist artist) {
+            artistChanged(artist);
+        }
+
+        @Override
+        public void songIdChanged(Song song, int oldSongId) {
+            changed.put(position, song);
+            changedCodes.add(position);
+            evicted.remove(position);
+        }
+
+        /*
+          歌手对象被替换时，与记录比较无法发现，所以直接保留。
+          A replaced Artist object cannot be found by comparing with the record, so the song is kept straight away.
+         */
+        @Override
+        public void songArtistChanged(Song song, Artist oldArtist) {
+            changed.put(position, song);
+            evicted.remove(position);
+        }
+
+        /*
+          缓存中的歌曲在被丢弃时与记录比较；已经被丢弃的歌曲不会再被比较，所以一被修改就保留下来。
+          A cached song is compared with its record when it is dropped; a song that has already been dropped is not compared again, so it
+          is kept as soon as it is changed.
+         */
+        private void keepIfDropped(Song song) {
+            if (cached.get(position) != song) {
+                changed.put(position, song);
+                evicted.remove(position);
+            }
+        }
+
+        private void artistChanged(Artist artist) {
+            Evicted reference = evicted.get(position);
+            Song song = reference != null ? reference.get() : null;
+
+            if (song != null && song.getArtist() == artist) {
+                keepIfDropped(song);
+            }
+        }
+
+        /*
+          同一个来源中同一个位置的监听器相等，用于注销。
+          Listeners for the same position of the same source are equal, for removal.
+         */
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof ChangeListener && ((ChangeListener) object).position == position && ((ChangeListener) object).source() == source();
+        }
+
+        @Override
+        public int hashCode() {
+            return position;
+        }
+
+        private CachedSongSource source() {
+            return CachedSongSource.this;
+        }
+    }
+}
+/*
+ * End of controllers.CachedSongSource Class.
+ */
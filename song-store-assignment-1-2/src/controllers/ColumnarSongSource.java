@@ -0,0 +1,182 @@
+package controllers;
+
+import models.Song;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 此类按列保存歌曲：编号和长度保存在基本类型数组中，验证状态保存在位集中，字符串经过字典编码，保存在一个字节数组中。
+ * 与每首歌曲一个 Song 对象、一个 Artist 对象和几个 String 对象相比，没有对象头和指针，内存占用小得多。Song 对象在使用时才创建，
+ * 并保存在容量有限的缓存中。
+ * This class stores songs by column: codes and lengths in primitive arrays, the verified flags in bit sets, and the strings dictionary
+ * encoded in a single byte array. Compared with a Song object, an Artist object and several String objects per song, there are no object
+ * headers or pointers, so it uses far less memory. Song objects are only created when used, and kept in a cache of bounded size.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.8
+ * @since version 6.7
+ * @see Playlist#compactStorage()
+ */
+class ColumnarSongSource extends CachedSongSource {
+    private final int[] songIds;
+    private final short[] lengths;
+    private final BitSet verified;
+    private final BitSet artistVerified;
+
+    /*
+      字符串在字符串表中的编号；song.getArtistName() 几乎总是 null，所以 songArtistNames 只在有非 null 值时才分配。
+      The numbers of the strings in the string table; song.getArtistName() is almost always null, so songArtistNames is only allocated when there is a non-null value.
+     */
+    private final int[] names;
+    private final int[] artistNames;
+    private int[] songArtistNames;
+    private final StringTable strings;
+
+    /*
+      编号在高 32 位、位置在低 32 位，升序排列。
+      Code in the high 32 bits and position in the low 32 bits, in ascending order.
+     */
+    private final long[] codes;
+
+    ColumnarSongSource(List<Song> songs, int cacheSize) {
+        super(songs.size(), cacheSize);
+        int count = songs.size();
+        songIds = new int[count];
+        lengths = new short[count];
+        verified = new BitSet(count);
+        artistVerified = new BitSet(count);
+        names = new int[count];
+        artistNames = new int[count];
+        codes = new long[count];
+
+        StringTable.Builder builder = new StringTable.Builder();
+
+        for (int i = 0; i < count; i++) {
+            Song song = songs.get(i);
+            songIds[i] = song.getSongId();
+            lengths[i] = (short) song.getLength();
+            verified.set(i, song.isVerified());
+            artistVerified.set(i, song.getArtist().isVerified());
+            names[i] = builder.add(song.getName());
+            artistNames[i] = builder.add(song.getArtist().getArtistName());
+
+            if (song.getArtistName() != null) {
+                if (songArtistNames == null) {
+                    songArtistNames = new int[count];
+                    Arrays.fill(songArtistNames, -1);
+                }
+                songArtistNames[i] = builder.add(song.getArtistName());
+            }
+            codes[i] = (long) song.getSongId() << 32 | i;
+        }
+        Arrays.sort(codes);
+        strings = builder.build();
+    }
+
+    @Override
+    protected Song read(int position) {
+        Song song = new Song(songIds[position], strings.get(names[position]), strings.get(artistNames[position]),
+                artistVerified.get(position), lengths[position]);
+        song.setVerified(verified.get(position));
+        song.setArtistName(songArtistName(position));
+        return song;
+    }
+
+    @Override
+    protected boolean differsFromRecord(Song song, int position) {
+        return differs(song, songIds[position], lengths[position], verified.get(position), artistVerified.get(position),
+                strings.get(names[position]), strings.get(artistNames[position]), songArtistName(position));
+    }
+
+    @Override
+    protected int recordLength(int position) {
+        return lengths[position];
+    }
+
+    @Override
+    protected boolean recordArtistVerified(int position) {
+        return artistVerified.get(position);
+    }
+
+    @Override
+    protected long codeEntry(int entry) {
+        return codes[entry];
+    }
+
+    private String songArtistName(int position) {
+        return songArtistNames == null ? null : strings.get(songArtistNames[position]);
+    }
+
+    /*
+      字典编码的字符串表：每个不同的字符串只保存一次 UTF-8 字节，编号 -1 表示 null。
+      A dictionary-encoded string table: each distinct string is stored once as UTF-8 bytes, and the number -1 means null.
+     */
+    static class StringTable {
+        private final byte[] bytes;
+        private final int[] offsets;
+
+        private StringTable(byte[] bytes, int[] offsets) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+        }
+
+        String get(int number) {
+            if (number < 0) {
+                return null;
+            }
+            return new String(bytes, offsets[number], offsets[number + 1] - offsets[number], StandardCharsets.UTF_8);
+        }
+
+        int size() {
+            return offsets.length - 1;
+        }
+
+        /*
+          建立字符串表；字典只在建立时使用，建立完成后丢弃。
+          Builds a string table; the dictionary is only used while building and is dropped afterwards.
+         */
+        static class Builder {
+            private final HashMap<String, Integer> dictionary = new HashMap<>();
+            private byte[] bytes = new byte[1024];
+            private int[] offsets = new int[64];
+            private int size = 0;
+
+            int add(String string) {
+                if (string == null) {
+                    return -1;
+                }
+
+                Integer number = dictionary.get(string);
+
+                if (number == null) {
+                    byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+                    int start = offsets[size];
+
+                    if (start + encoded.length > bytes.length) {
+                        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, start + encoded.length));
+                    }
+                    System.arraycopy(encoded, 0, bytes, start, encoded.length);
+
+                    if (size + 2 > offsets.length) {
+                        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    }
+                    offsets[size + 1] = start + encoded.length;
+                    number = size++;
+                    dictionary.put(string, number);
+                }
+                return number;
+            }
+
+            StringTable build() {
+                return new StringTable(Arrays.copyOf(bytes, offsets[size]), Arrays.copyOf(offsets, size + 1));
+            }
+        }
+    }
+}
+/*
+ * End of controllers.ColumnarSongSource Class.
+ */
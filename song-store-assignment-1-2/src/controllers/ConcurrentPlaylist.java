@@ -0,0 +1,517 @@
+package controllers;
+
+import models.Song;
+import utils.PersistentList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 此类是可以被多个线程同时使用的歌单。锁分为两个条带（stripe），互不阻塞：
+ * This class is a playlist that can be used by many threads at once. Locking is split into two stripes that do not block each other:
+ * <ul>
+ *   <li>歌曲：读写锁。查找、列出、报表和查询在共享的读锁下同时运行；添加、更新和删除在写锁下依次运行。
+ *       Songs: a read-write lock. Lookups, listings, reports and queries run together under the shared read lock; adding, updating and
+ *       deleting run one at a time under the write lock.</li>
+ *   <li>名字、描述和 setLikes：这个对象的监视器。修改依次运行，读取不加锁（字段是 volatile）。
+ *       Name, description and setLikes: the monitor of this object. Changes run one at a time, and reads take no lock (the fields are
+ *       volatile).</li>
+ * </ul>
+ * addLike 和 addLikes 不需要锁：点赞数是 LongAdder，同时点赞不会丢失。
+ * addLike and addLikes need no lock: the likes are a LongAdder, so no like is lost when they are added at the same time.
+ *
+ * Playlist 的读取方法会在第一次使用时建立索引或从来源取出歌曲，这些都是修改。所以每次写入之后都在写锁下准备好索引，
+ * 使得读锁下的方法只读不写。歌曲保存在按需读取的来源中时（setSongSource、compactStorage、useStorage），来源保持不变，
+ * 但读取来源也会修改它的缓存，所以这时读取改为在写锁下依次运行；读取取出了全部歌曲之后，再准备好索引，恢复共享的读锁。
+ * The read methods of Playlist build the index or take the songs from the source on first use, which are changes. So the index is
+ * prepared under the write lock after every write, and methods under the read lock only read. While the songs are kept in an
+ * on-demand source (setSongSource, compactStorage, useStorage), the source stays in place, but reading it changes its cache too, so
+ * reads then run one at a time under the write lock; once a read has taken all the songs, the index is prepared and the shared read
+ * lock is used again.
+ *
+ * 返回的 Song 对象仍然由歌单共用：要修改歌曲，请使用 updateSong，而不是直接调用 Song 的 setter。getSongs() 和 iterator() 返回快照。
+ * The Song objects returned are still shared with the playlist: to change a song, use updateSong rather than calling the setters of
+ * Song directly. getSongs() and iterator() return snapshots.
+ *
+ * 每次写入歌曲时，还在写锁下以 O(log n) 的时间产生新版本的不可变快照并发布；snapshot() 直接返回最新的版本，不需要任何锁，
+ * 所以读取很多的线程（以及自动保存）可以完全不与写入的线程竞争。
+ * Every write to the songs also produces and publishes a new version of the immutable snapshot under the write lock, in O(log n) time;
+ * snapshot() simply returns the latest version without any lock, so read-heavy threads (and autosave) need not contend with writing
+ * threads at all.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.4
+ * @since version 7.1
+ */
+public class ConcurrentPlaylist extends Playlist {
+    private final ReentrantReadWriteLock songsLock = new ReentrantReadWriteLock();
+
+    /*
+      最新发布的歌曲版本，只在写锁下替换。
+      The latest published version of the songs, only replaced under the write lock.
+     */
+    private volatile Published published = new Published(0, PersistentList.empty());
+
+    public ConcurrentPlaylist(String playlistName, String description) {
+        super(playlistName, description);
+        index();
+    }
+
+    //-------------------------
+    // METADATA STRIPE
+    //-------------------------
+
+    @Override
+    public synchronized void setPlaylistName(String playlistName) {
+        super.setPlaylistName(playlistName);
+    }
+
+    @Override
+    public synchronized void setDescription(String description) {
+        super.setDescription(description);
+    }
+
+    @Override
+    public synchronized void setLikes(int likes) {
+        super.setLikes(likes);
+    }
+
+    //-------------------------
+    // SONGS STRIPE - writes
+    //-------------------------
+
+    /*
+      保存传入列表的副本，使得调用者之后修改它时不会绕过锁。
+      A copy of the list is kept, so the caller cannot bypass the lock by changing it later.
+     */
+    @Override
+    public void setSongs(ArrayList<Song> songs) {
+        write(() -> {
+            super.setSongs(new ArrayList<>(songs));
+            publishAll();
+            return null;
+        });
+    }
+
+    @Override
+    public void setSongSource(SongSource songSource) {
+        write(() -> {
+            super.setSongSource(songSource);
+            publishAll();
+            return null;
+        });
+    }
+
+    @Override
+    public void compactStorage() {
+        write(() -> {
+            super.compactStorage();
+            return null;
+        });
+    }
+
+    @Override
+    public void useStorage(SongSource storage) {
+        write(() -> {
+            super.useStorage(storage);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean addSong(Song song) {
+        return write(() -> {
+            boolean added = super.addSong(song);
+
+            if (added) {
+                publish(published.songs.add(frozen(song)));
+            }
+            return added;
+        });
+    }
+
+    @Override
+    public boolean updateSong(int index, Song song) {
+        return write(() -> {
+            boolean updated = super.updateSong(index, song);
+
+            if (updated) {
+                publish(published.songs.set(index, frozen(song)));
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    public Song deleteSong(int index) {
+        return write(() -> {
+            Song deleted = super.deleteSong(index);
+
+            if (deleted != null) {
+                publish(published.songs.remove(index));
+            }
+            return deleted;
+        });
+    }
+
+    @Override
+    public Song updateVerifiedStatus(int index, boolean verified) {
+        return write(() -> {
+            Song song = super.updateVerifiedStatus(index, verified);
+
+            if (song != null) {
+                publish(published.songs.set(index, frozen(song)));
+            }
+            return song;
+        });
+    }
+
+    /*
+      整批在一次写锁下完成，读线程看不到只完成一半的批次。
+      The whole batch runs under one write lock, so readers never see a half-applied batch.
+     */
+    @Override
+    public int addSongs(Collection<Song> songs) {
+        ArrayList<Song> added = new ArrayList<>(songs);
+
+        return write(() -> {
+            int count = super.addSongs(added);
+            PersistentList<Song> snapshotSongs = published.songs;
+
+            for (Song song : added) {
+                snapshotSongs = snapshotSongs.add(frozen(song));
+            }
+            publish(snapshotSongs);
+            return count;
+        });
+    }
+
+    @Override
+    public int updateSongs(Map<Integer, Song> updates) {
+        return write(() -> {
+            int count = super.updateSongs(updates);
+
+            if (count > 0) {
+                PersistentList<Song> snapshotSongs = published.songs;
+
+                /*
+                  被跳过的项仍是原来的歌曲，复制它们不会改变快照的内容。
+                  Skipped entries still hold their old songs, so copying them does not change the content of the snapshot.
+                 */
+                for (int index : updates.keySet()) {
+                    if (index >= 0 && index < snapshotSongs.size()) {
+                        snapshotSongs = snapshotSongs.set(index, frozen(super.findSong(index)));
+                    }
+                }
+                publish(snapshotSongs);
+            }
+            return count;
+        });
+    }
+
+    @Override
+    public ArrayList<Song> deleteSongs(int... indexes) {
+        return write(() -> {
+            int[] positions = validPositions(indexes, super.numSongs());
+            ArrayList<Song> deleted = super.deleteSongs(indexes);
+            PersistentList<Song> snapshotSongs = published.songs;
+
+            for (int i = positions.length - 1; i >= 0; i--) {
+                snapshotSongs = snapshotSongs.remove(positions[i]);
+            }
+
+            if (positions.length > 0) {
+                publish(snapshotSongs);
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * 返回最新发布的快照，不需要任何锁，时间为 O(1)。快照包含最近一次完成的写入之后的歌曲，以及此刻的名字、描述和点赞数。
+     * Return the latest published snapshot, without any lock, in O(1) time. The snapshot holds the songs as of the last completed write,
+     * and the name, description and likes as of now.
+     *
+     * @return 歌单的快照。
+     *         A snapshot of the playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    @Override
+    public PlaylistSnapshot snapshot() {
+        Published current = published;
+        return new PlaylistSnapshot(current.version, getPlaylistName(), getDescription(), getLikes(), isAddLikeSet(), current.songs);
+    }
+
+    //-------------------------
+    // SNAPSHOTS - under the write lock
+    //-------------------------
+
+    private void publish(PersistentList<Song> songs) {
+        published = new Published(songsVersion(), songs);
+    }
+
+    /*
+      歌曲被整体替换时，复制全部歌曲重新发布。逐个位置读取，使得按需读取的来源不会被取出全部歌曲。
+      When the songs are replaced as a whole, all of them are copied and published again. They are read position by position, so an
+      on-demand source does not have all its songs taken.
+     */
+    private void publishAll() {
+        int count = super.numSongs();
+        ArrayList<Song> songs = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            songs.add(super.findSong(i));
+        }
+        publish(PersistentList.of(PlaylistSnapshot.copies(songs)));
+    }
+
+    private static Song frozen(Song song) {
+        return PlaylistSnapshot.copy(song, new IdentityHashMap<>());
+    }
+
+    //-------------------------
+    // SONGS STRIPE - reads
+    //-------------------------
+
+    @Override
+    public ArrayList<Song> getSongs() {
+        return read(() -> new ArrayList<>(super.getSongs()));
+    }
+
+    @Override
+    public Iterator<Song> iterator() {
+        return getSongs().iterator();
+    }
+
+    @Override
+    public int numSongs() {
+        return read(super::numSongs);
+    }
+
+    @Override
+    public boolean isValidIndex(int index) {
+        return read(() -> super.isValidIndex(index));
+    }
+
+    @Override
+    public Song findSong(int index) {
+        return read(() -> super.findSong(index));
+    }
+
+    @Override
+    public Song findSong(String songName) {
+        return read(() -> super.findSong(songName));
+    }
+
+    @Override
+    public Song findSongByCode(int songCode) {
+        return read(() -> super.findSongByCode(songCode));
+    }
+
+    @Override
+    public int numberOfShortSongs() {
+        return read(super::numberOfShortSongs);
+    }
+
+    @Override
+    public int getTotalPlayListLength() {
+        return read(super::getTotalPlayListLength);
+    }
+
+    @Override
+    public int getAverageSongLength() {
+        return read(super::getAverageSongLength);
+    }
+
+    @Override
+    public int numberOfSongsFromVerifiedArtists() {
+        return read(super::numberOfSongsFromVerifiedArtists);
+    }
+
+    @Override
+    public String listSongs() {
+        return read(super::listSongs);
+    }
+
+    @Override
+    public String listSongsFromVerifiedArtists() {
+        return read(super::listSongsFromVerifiedArtists);
+    }
+
+    @Override
+    public String listSongsFromVerifiedArtistsBetween(int minLength, int maxLength) {
+        return read(() -> super.listSongsFromVerifiedArtistsBetween(minLength, maxLength));
+    }
+
+    @Override
+    public String listSongsLongerThan(int length) {
+        return read(() -> super.listSongsLongerThan(length));
+    }
+
+    @Override
+    public String listSongsBetween(int minLength, int maxLength) {
+        return read(() -> super.listSongsBetween(minLength, maxLength));
+    }
+
+    @Override
+    public String listLongestSongs(int count) {
+        return read(() -> super.listLongestSongs(count));
+    }
+
+    @Override
+    public String listOfSongsOfArtist(String artistName) {
+        return read(() -> super.listOfSongsOfArtist(artistName));
+    }
+
+    @Override
+    public String searchSongsByName(String songName) {
+        return read(() -> super.searchSongsByName(songName));
+    }
+
+    @Override
+    public String searchSongsByArtistName(String artistName) {
+        return read(() -> super.searchSongsByArtistName(artistName));
+    }
+
+    @Override
+    public String searchSongsByArtistPrefix(String prefix) {
+        return read(() -> super.searchSongsByArtistPrefix(prefix));
+    }
+
+    @Override
+    public String toString() {
+        return read(super::toString);
+    }
+
+    @Override
+    public int writeSongs(Appendable out, int offset, int limit) throws IOException {
+        Lock lock = lockForReading();
+
+        try {
+            return super.writeSongs(out, offset, limit);
+        } finally {
+            unlockAfterReading(lock);
+        }
+    }
+
+    @Override
+    public int writeSongsFromVerifiedArtists(Appendable out, int offset, int limit) throws IOException {
+        Lock lock = lockForReading();
+
+        try {
+            return super.writeSongsFromVerifiedArtists(out, offset, limit);
+        } finally {
+            unlockAfterReading(lock);
+        }
+    }
+
+    @Override
+    public int writeSongsLongerThan(Appendable out, int length, int offset, int limit) throws IOException {
+        Lock lock = lockForReading();
+
+        try {
+            return super.writeSongsLongerThan(out, length, offset, limit);
+        } finally {
+            unlockAfterReading(lock);
+        }
+    }
+
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        Lock lock = lockForReading();
+
+        try {
+            super.writeTo(out);
+        } finally {
+            unlockAfterReading(lock);
+        }
+    }
+
+    /*
+      SongQuery 也通过这里在读锁下运行。
+      SongQuery runs under the read lock through here too.
+     */
+    @Override
+    public <T> T read(Supplier<T> reader) {
+        Lock lock = lockForReading();
+
+        try {
+            return reader.get();
+        } finally {
+            unlockAfterReading(lock);
+        }
+    }
+
+    /*
+      取得读取用的锁：通常是读锁；歌曲还在来源中时是写锁。来源只在写锁下安装或取出，所以在读锁下检查之后不会改变。
+      Take the lock for reading: usually the read lock, or the write lock while the songs are still in the source. The source is only
+      installed or taken under the write lock, so it cannot change after being checked under the read lock.
+     */
+    private Lock lockForReading() {
+        Lock lock = songsLock.readLock();
+        lock.lock();
+
+        if (hasSongSource()) {
+            lock.unlock();
+            lock = songsLock.writeLock();
+            lock.lock();
+        }
+        return lock;
+    }
+
+    /*
+      在写锁下的读取可能取出了全部歌曲；这时准备好索引，使得之后在读锁下的读取不需要修改任何状态。
+      A read under the write lock may have taken all the songs; the index is then prepared, so later reads under the read lock change no
+      state.
+     */
+    private void unlockAfterReading(Lock lock) {
+        try {
+            if (lock == songsLock.writeLock() && !hasSongSource()) {
+                index();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+      在写锁下运行 writer，然后准备好索引，使得之后的读取不需要修改任何状态。歌曲保存在来源中时不建立索引，因为那会取出全部歌曲。
+      Run writer under the write lock, then prepare the index, so later reads change no state. No index is built while the songs are kept
+      in a source, because that would take all the songs.
+     */
+    private <T> T write(Supplier<T> writer) {
+        songsLock.writeLock().lock();
+
+        try {
+            T result = writer.get();
+
+            if (!hasSongSource()) {
+                index();
+            }
+            return result;
+        } finally {
+            songsLock.writeLock().unlock();
+        }
+    }
+
+    private static class Published {
+        private final long version;
+        private final PersistentList<Song> songs;
+
+        Published(long version, PersistentList<Song> songs) {
+            this.version = version;
+            this.songs = songs;
+        }
+    }
+}
+/*
+ * End of controllers.ConcurrentPlaylist Class.
+ */
@@ -0,0 +1,295 @@
+package controllers;
+
+import models.Artist;
+import models.ArtistRegistry;
+import models.Song;
+import models.SongListener;
+import utils.IntHashMap;
+
+import java.util.ArrayList;
+
+/**
+ * 此类管理多个歌单，并维护它们共用的曲库：每个歌曲 ID 对应一个规范的 Song 对象，每个歌手名字对应一个规范的 Artist 对象。
+ * 通过曲库添加的歌曲在所有歌单中引用同一个对象，所以很多歌单共用大部分歌曲时不会重复占用内存，
+ * 修改歌手的验证状态只需修改一个对象，就会在所有歌单中生效。
+ * This class manages several playlists and the catalog they share: one canonical Song object per song ID, and one canonical Artist object
+ * per artist name. Songs added through the library are the same object in every playlist, so many playlists sharing most of their songs
+ * do not use memory for each copy, and changing the verified status of an artist changes one object and takes effect in every playlist.
+ *
+ * 歌单中保存的是对规范对象的引用，与保存 int ID 一样小，但不需要每次查找。ID 已经属于另一首不同的歌曲时，新的歌曲不会进入曲库，
+ * 只保存在它自己的歌单中。
+ * Playlists hold references to the canonical objects, which are as small as int IDs but need no lookup on each use. When an ID already
+ * belongs to a different song, the new song is not catalogued and stays private to its own playlist.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.6
+ * @since version 6.5
+ */
+public class Library implements SongListener {
+    private final IntHashMap<Song> songs = new IntHashMap<>();
+    private final ArtistRegistry artists = new ArtistRegistry();
+    private final ArrayList<Playlist> playlists = new ArrayList<>();
+
+    //-------------------------
+    // PLAYLISTS
+    //-------------------------
+
+    /**
+     * 创建新的歌单并加入曲库。
+     * Create a new playlist and add it to the library.
+     *
+     * @param playlistName 歌单名字。
+     *                     The playlist name.
+     * @param description 歌单描述。
+     *                    The playlist description.
+     * @return 新的歌单。
+     *         The new playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public Playlist createPlaylist(String playlistName, String description) {
+        Playlist playlist = new Playlist(playlistName, description);
+        playlists.add(playlist);
+        return playlist;
+    }
+
+    /**
+     * 把已有的歌单（例如刚加载的歌单）加入曲库。歌单中的歌曲保持不变，需要共用时调用 share(Playlist)。
+     * Add an existing playlist (for example, one just loaded) to the library. Its songs are left as they are; call share(Playlist) to share them.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public void addPlaylist(Playlist playlist) {
+        if (!playlists.contains(playlist)) {
+            playlists.add(playlist);
+        }
+    }
+
+    public boolean removePlaylist(Playlist playlist) {
+        return playlists.remove(playlist);
+    }
+
+    public ArrayList<Playlist> getPlaylists() {
+        return new ArrayList<>(playlists);
+    }
+
+    /**
+     * 按名字查找歌单。
+     * Find a playlist by name.
+     *
+     * @param playlistName 歌单名字。
+     *                     The playlist name.
+     * @return 第一个使用该名字的歌单，不存在时返回 null。
+     *         The first playlist with that name, or null if there is none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public Playlist findPlaylist(String playlistName) {
+        for (Playlist playlist : playlists) {
+            if (playlist.getPlaylistName().equals(playlistName)) {
+                return playlist;
+            }
+        }
+        return null;
+    }
+
+    //-------------------------
+    // CATALOG
+    //-------------------------
+
+    /**
+     * 返回与歌曲相同的规范歌曲；曲库中还没有这个 ID 时，这首歌曲成为规范歌曲。ID 已经属于另一首不同的歌曲时，返回这首歌曲本身。
+     * 无论哪种情况，歌曲的歌手都会换成同名的规范歌手；规范歌手的验证状态不同时，歌曲保留自己的歌手，不进入曲库，并返回歌曲本身。
+     * Return the canonical song equal to the song; when the ID is not in the catalog yet, this song becomes the canonical one. When the ID
+     * already belongs to a different song, the song itself is returned. Either way, the artist of the song is replaced by the canonical
+     * artist of that name; when the canonical artist has a different verified status, the song keeps its own artist, stays out of the
+     * catalog, and is returned itself.
+     *
+     * @param song 歌曲。
+     *             The song.
+     * @return 规范歌曲，或者不能共用时返回歌曲本身。
+     *         The canonical song, or the song itself when it cannot be shared.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public Song share(Song song) {
+        Song canonical = songs.get(song.getSongId());
+
+        if (canonical != null && isSameSong(canonical, song)) {
+            return canonical;
+        }
+
+        Artist artist = share(song.getArtist());
+
+        /*
+          共用歌手的验证状态不同时，换成共用歌手会丢掉这首歌曲的状态，而修改共用歌手又会影响其他歌曲；所以这首歌曲保留自己的歌手，不进入曲库。
+          If the shared artist has a different verified status, switching to it would lose the status of this song, and changing it would
+          affect the other songs; so this song keeps its own artist and stays out of the catalog.
+         */
+        if (artist.isVerified() != song.getArtist().isVerified()) {
+            return song;
+        }
+        song.setArtist(artist);
+
+        if (canonical == null) {
+            songs.put(song.getSongId(), song);
+            song.addSongListener(this);
+        }
+        return song;
+    }
+
+    /**
+     * 返回同名的规范歌手；曲库中还没有这个名字时，这个歌手成为规范歌手。
+     * Return the canonical artist with the same name; when the name is not in the catalog yet, this artist becomes the canonical one.
+     *
+     * @param artist 歌手。
+     *               The artist.
+     * @return 规范歌手。
+     *         The canonical artist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public Artist share(Artist artist) {
+        return artists.intern(artist);
+    }
+
+    /**
+     * 把歌单中的每首歌曲换成规范歌曲。
+     * Replace every song in the playlist by its canonical song.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @return 与曲库共用的歌曲数量。
+     *         The number of songs shared with the catalog.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public int share(Playlist playlist) {
+        addPlaylist(playlist);
+        ArrayList<Song> shared = new ArrayList<>(playlist.numSongs());
+        int count = 0;
+
+        for (Song song : playlist) {
+            Song canonical = share(song);
+            shared.add(canonical);
+
+            if (songs.get(canonical.getSongId()) == canonical) {
+                count++;
+            }
+        }
+        playlist.setSongs(shared);
+        return count;
+    }
+
+    /**
+     * 通过曲库向歌单添加歌曲。
+     * Add a song to a playlist through the library.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param song 歌曲。
+     *             The song.
+     * @return 歌曲添加的结果。
+     *         The result of adding the song.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public boolean addSong(Playlist playlist, Song song) {
+        return playlist.addSong(share(song));
+    }
+
+    /**
+     * 通过曲库更新歌单中的歌曲。只有这个歌单中的位置被替换；其他歌单中的同一首歌曲不变。
+     * Update a song in a playlist through the library. Only this position of this playlist is replaced; the same song in other playlists is unchanged.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param index 歌曲的索引。
+     *              The index of the song.
+     * @param song 新的歌曲。
+     *             The new song.
+     * @return 歌曲更新的结果。
+     *         The result of updating the song.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public boolean updateSong(Playlist playlist, int index, Song song) {
+        return playlist.updateSong(index, share(song));
+    }
+
+    public Song findSong(int songId) {
+        return songs.get(songId);
+    }
+
+    public Artist findArtist(String artistName) {
+        return artists.find(artistName);
+    }
+
+    public ArtistRegistry getArtists() {
+        return artists;
+    }
+
+    /**
+     * 修改规范歌手的验证状态；所有歌单中这个歌手的歌曲都会看到新的状态。
+     * Change the verified status of a canonical artist; the songs of this artist in every playlist see the new status.
+     *
+     * @param artistName 歌手名字。
+     *                   The artist name.
+     * @param verified 新的验证状态。
+     *                 The new verified status.
+     * @return 曲库中是否有这个歌手。
+     *         Whether the artist is in the catalog.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.5
+     */
+    public boolean setArtistVerified(String artistName, boolean verified) {
+        return artists.setVerified(artistName, verified);
+    }
+
+    public int numSongs() {
+        return songs.size();
+    }
+
+    public int numArtists() {
+        return artists.size();
+    }
+
+    /*
+      ID 相同时，名字、长度、歌手名字和歌手的验证状态也相同才是同一首歌曲。
+      With the same ID, it is the same song only if the name, length, artist name and artist verified status are the same too.
+     */
+    private static boolean isSameSong(Song canonical, Song song) {
+        return canonical.getSongId() == song.getSongId()
+                && canonical.getName().equals(song.getName())
+                && canonical.getLength() == song.getLength()
+                && canonical.getArtist().getArtistName().equals(song.getArtist().getArtistName())
+                && canonical.getArtist().isVerified() == song.getArtist().isVerified();
+    }
+
+    //-------------------------
+    // LISTENING
+    //-------------------------
+
+    /*
+      规范歌曲的 ID 被直接修改时，更新曲库的键；新的 ID 已经被占用时，这首歌曲不再在曲库中。
+      When the ID of a canonical song is changed directly, re-key it in the catalog; if the new ID is already taken, the song leaves the catalog.
+     */
+    @Override
+    public void songIdChanged(Song song, int oldSongId) {
+        if (songs.get(oldSongId) == song) {
+            songs.remove(oldSongId);
+        }
+
+        if (songs.get(song.getSongId()) == null) {
+            songs.put(song.getSongId(), song);
+        } else {
+            song.removeSongListener(this);
+        }
+    }
+}
+/*
+ * End of controllers.Library Class.
+ */
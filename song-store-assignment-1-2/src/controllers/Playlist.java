@@ -4,12 +4,26 @@ import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.xml.DomDriver;
 import models.Artist;
 import models.Song;
+import utils.IntList;
+import utils.PersistentList;
 
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * 此类用于控制播放器，并提供 CRUD 操作。
@@ -19,11 +33,22 @@ import java.util.ArrayList;
  * @version 4.4
  * @since version 0.0
  */
-public class Playlist {
-    private String playlistName = ""; // valid length is 20 - default to the first 20 characters of input.
+public class Playlist implements Iterable<Song> {
+    /*
+      使用 volatile，使得 ConcurrentPlaylist 的读线程不加锁也能看到最新的名字和描述。
+      They are volatile, so the reading threads of ConcurrentPlaylist see the latest name and description without a lock.
+     */
+    private volatile String playlistName = ""; // valid length is 20 - default to the first 20 characters of input.
     private ArrayList<Song> songs = new ArrayList<Song>();  // should start empty
-    private String description = ""; // valid length is 30 - default to the first 30 characters of input.
-    private int likes = 0;
+    private volatile String description = ""; // valid length is 30 - default to the first 30 characters of input.
+
+    /*
+      点赞数使用 LongAdder：多个线程同时点赞时，各自增加不同的单元，不会丢失点赞，也不会争用同一个变量。
+      保存到 Store.xml 时仍写成整数（见 PlaylistStore.createXStream）。
+      The likes are a LongAdder: threads liking at the same time add to different cells, so no like is lost and they do not contend on
+      one variable. They are still saved to Store.xml as an integer (see PlaylistStore.createXStream).
+     */
+    private LongAdder likes = new LongAdder();
 
     /*
       新增判断：验证 descriptionSet 是否被设置过，使得 PlaylistTest 成功编译。
@@ -41,7 +66,31 @@ public class Playlist {
       新增判断：验证 addLikeSet 是否被设置过，使得 PlaylistTest 成功编译。
       New judgment: Verify whether addLikeSet has been set, so that PlaylistTest can be successfully compiled.
      */
-    private boolean addLikeSet = false;
+    private volatile boolean addLikeSet = false;
+
+    /*
+      歌曲的索引。使用 transient，使得 XStream 不会把它保存到 Store.xml 中；加载后第一次使用时重新建立。
+      Index of the songs. It is transient, so XStream does not save it to Store.xml; it is rebuilt on first use after loading.
+     */
+    private transient PlaylistIndex index;
+
+    /*
+      按需读取歌曲的来源（例如内存映射的 Store.map）。不为 null 时 songs 还没有取出，见 songs()。
+      The source that reads songs on demand (for example, a memory-mapped Store.map). While it is not null, songs has not been taken yet, see songs().
+     */
+    private transient SongSource songSource;
+
+    /*
+      歌单监听器。使用 transient，使得 XStream 不会保存它们；写时复制，使得通知监听器时可以同时注册或注销。
+      Playlist listeners. They are transient, so XStream does not save them; copy-on-write, so listeners can be added or removed while they are notified.
+     */
+    private transient volatile CopyOnWriteArrayList<PlaylistListener> listeners;
+
+    /*
+      歌曲被修改的次数，作为快照的版本（见 snapshot()）。
+      The number of times the songs have been changed, used as the version of snapshots (see snapshot()).
+     */
+    private transient long songsVersion;
 
     //TODO Declare an array list of songs(songs).
     //     This should be empty at the start and does not need to be the constructor.
@@ -89,6 +138,8 @@ public class Playlist {
     }
 
     public void setPlaylistName(String playlistName) {
+        String oldPlaylistName = this.playlistName;
+
         if (!playlistNameSet) {
             if (playlistName.length() <= 20) {
                 this.playlistName = playlistName;
@@ -101,14 +152,78 @@ public class Playlist {
                 this.playlistName = playlistName;
             }
         }
+
+        if (!this.playlistName.equals(oldPlaylistName)) {
+            fire(listener -> listener.playlistRenamed(this));
+        }
     }
 
     public ArrayList<Song> getSongs() {
-        return songs;
+        return songs();
     }
 
     public void setSongs(ArrayList<Song> songs) {
+        if (index != null) {
+            index.detach();
+            index = null;
+        }
         this.songs = songs;
+        this.songSource = null;
+        songsVersion++;
+        fire(listener -> listener.songsReplaced(this));
+    }
+
+    /**
+     * 用按需读取的来源代替 songs。findSong(int)、findSongByCode(int)、numSongs() 和 writeSongs 直接从来源读取，
+     * 其他方法第一次使用时才取出全部歌曲。
+     * Use an on-demand source instead of songs. findSong(int), findSongByCode(int), numSongs() and writeSongs read straight from the source,
+     * and the other methods take all the songs the first time they are used.
+     *
+     * @param songSource 歌曲的来源。
+     *                   The source of the songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    public void setSongSource(SongSource songSource) {
+        setSongs(new ArrayList<>());
+        this.songSource = songSource;
+    }
+
+    /**
+     * 把歌曲改为按列保存（见 ColumnarSongSource），并丢弃 songs ArrayList 中的 Song 对象，使得大型歌单占用的内存小得多。
+     * 歌单的内容不变，所有方法照常可用：查找、列出和保存直接读取列，Song 对象在使用时才重新创建；其他方法第一次使用时恢复为 songs ArrayList。
+     * 之后返回的 Song 对象与之前的不是同一个对象。
+     * Store the songs by column (see ColumnarSongSource) and drop the Song objects in the songs ArrayList, so a large playlist uses far less
+     * memory. The content of the playlist is unchanged and every method still works: lookups, listing and saving read the columns, and Song
+     * objects are created again when used; other methods turn it back into the songs ArrayList the first time they are used. Song objects
+     * returned afterwards are not the same objects as before.
+     *
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.7
+     */
+    public void compactStorage() {
+        useStorage(new ColumnarSongSource(songs(), CachedSongSource.DEFAULT_CACHE_SIZE));
+    }
+
+    /**
+     * 把歌曲改为保存在给定的来源中（例如堆外内存，见 MappedPlaylistFormat.moveOffHeap），并丢弃 songs ArrayList 中的 Song 对象。
+     * 来源必须包含与歌单相同的歌曲，所以与 setSongSource 不同，不会通知监听器。报表方法直接读取来源，不会取出全部歌曲。
+     * Store the songs in the given source instead (for example, off-heap memory, see MappedPlaylistFormat.moveOffHeap), and drop the Song
+     * objects in the songs ArrayList. The source must hold the same songs as the playlist, so unlike setSongSource no listener is notified.
+     * The report methods read the source directly without taking all the songs.
+     *
+     * @param storage 包含歌单全部歌曲的来源。
+     *                The source holding all the songs of the playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.8
+     */
+    public void useStorage(SongSource storage) {
+        if (index != null) {
+            index.detach();
+            index = null;
+        }
+        songs = new ArrayList<>();
+        songSource = storage;
     }
 
     public String getDescription() {
@@ -116,6 +231,8 @@ public class Playlist {
     }
 
     public void setDescription(String description) {
+        String oldDescription = this.description;
+
         if (!descriptionSet) {
             if (description.length() <= 30) {
                 this.description = description;
@@ -128,21 +245,54 @@ public class Playlist {
                 this.description = description;
             }
         }
+
+        if (!this.description.equals(oldDescription)) {
+            fire(listener -> listener.playlistRenamed(this));
+        }
     }
 
+    /**
+     * 返回点赞数。其他线程同时点赞时，返回的是某个时刻的近似快照。
+     * Return the number of likes. While other threads are adding likes, this is a snapshot of some recent moment.
+     *
+     * @return 点赞数。
+     *         The number of likes.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.2
+     */
     public int getLikes() {
-        return likes;
+        return (int) likes.sum();
+    }
+
+    /**
+     * 返回 likes 是否已经通过 setLikes 设置过，用于在保存文件时保留这个状态。
+     * Return whether likes has been set through setLikes, so that saved files keep this state.
+     *
+     * @return likes 是否已经设置过。
+     *         Whether likes has been set.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.9
+     */
+    public boolean isAddLikeSet() {
+        return addLikeSet;
     }
 
     public void setLikes(int likes) {
+        int oldLikes = getLikes();
+        boolean oldAddLikeSet = addLikeSet;
+
         if (!addLikeSet) {
-            this.likes = Math.max(likes, 0);
+            resetLikes(Math.max(likes, 0));
             addLikeSet = true;
         } else {
             if (likes >= 0) {
-                this.likes = likes;
+                resetLikes(likes);
             }
         }
+
+        if (getLikes() != oldLikes || !oldAddLikeSet) {
+            fire(listener -> listener.likesSet(this));
+        }
     }
 
     //-------------------------------------
@@ -165,7 +315,15 @@ public class Playlist {
      * @since version 2.0
      */
     public boolean addSong(Song song) {
-        return songs.add(song);
+        PlaylistIndex songIndex = index();
+
+        if (songs().add(song)) {
+            songIndex.added(song);
+            songsVersion++;
+            fire(listener -> listener.songAdded(this, song));
+            return true;
+        }
+        return false;
     }
 
     //TODO Add a method, updateSong(int, Song).
@@ -191,31 +349,16 @@ public class Playlist {
      */
     public boolean updateSong(int index, Song song) {
         if (isValidIndex(index)) {
-            Song songToUpdate = songs.get(index);
-
-            if (song.getSongId() > 9999 || song.getSongId() < 1000) {
-                return false;
-            }
-
-            if (song.getName().length() > 20) {
-                return false;
-            }
-
-            if (song.getArtist().getArtistName().length() > 15) {
-                return false;
-            }
-
-            if (song.getLength() <= 0) {
-                return false;
-            }
+            Song songToUpdate = songs().get(index);
 
-            if (songToUpdate.getSongId() == song.getSongId() &&
-                    songToUpdate.getName().equals(song.getName()) &&
-                    songToUpdate.getLength() == song.getLength() &&
-                    songToUpdate.getArtist().getArtistName().equals(song.getArtist().getArtistName())) {
+            if (!isUpdate(songToUpdate, song)) {
                 return false;
             } else {
-                songs.set(index, song);
+                PlaylistIndex songIndex = index();
+                songs().set(index, song);
+                songIndex.replaced(index, songToUpdate, song);
+                songsVersion++;
+                fire(listener -> listener.songUpdated(this, index, song));
                 return true;
             }
         }
@@ -241,8 +384,11 @@ public class Playlist {
      */
     public Song deleteSong(int index) {
         if (isValidIndex(index)) {
-            Song deleteSong = songs.get(index);
-            songs.remove(index);
+            PlaylistIndex songIndex = index();
+            Song deleteSong = songs().remove(index);
+            songIndex.removed(index, deleteSong);
+            songsVersion++;
+            fire(listener -> listener.songDeleted(this, index));
             return deleteSong;
         } else {
             return null;
@@ -259,7 +405,164 @@ public class Playlist {
      * @since version 2.0
      */
     public void addLike() {
-        likes++;
+        likes.increment();
+        fire(listener -> listener.likesAdded(this, 1));
+    }
+
+    /**
+     * 一次增加多个点赞，例如加载文件或合并一批点赞时。只通知监听器一次。
+     * Add several likes at once, for example when loading a file or merging a batch of likes. Listeners are notified once.
+     *
+     * @param count 增加的点赞数，不大于 0 时忽略。
+     *              The number of likes to add; ignored when not greater than 0.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.2
+     */
+    public void addLikes(int count) {
+        if (count > 0) {
+            likes.add(count);
+            fire(listener -> listener.likesAdded(this, count));
+        }
+    }
+
+    private void resetLikes(int value) {
+        likes.reset();
+        likes.add(value);
+    }
+
+    //-------------------------------------
+    //  ARRAYLIST CRUD - Batches
+    //-------------------------------------
+
+    /**
+     * 把一批歌曲按顺序添加到歌单末尾，与逐首调用 addSong 的结果相同，但 songs ArrayList 只扩容一次。监听器对每首歌曲收到一次 songAdded。
+     * Add a batch of songs to the end of the playlist in order. The result is the same as calling addSong for each, but the songs ArrayList
+     * grows only once. Listeners get one songAdded per song.
+     *
+     * @param songs 要添加的歌曲。
+     *              The songs to add.
+     * @return 添加的歌曲数量。
+     *         The number of songs added.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    public int addSongs(Collection<Song> songs) {
+        ArrayList<Song> added = new ArrayList<>(songs);
+
+        if (added.isEmpty()) {
+            return 0;
+        }
+
+        PlaylistIndex songIndex = index();
+        ArrayList<Song> playlistSongs = songs();
+        playlistSongs.ensureCapacity(playlistSongs.size() + added.size());
+
+        for (Song song : added) {
+            playlistSongs.add(song);
+            songIndex.added(song);
+        }
+        songsVersion++;
+
+        for (Song song : added) {
+            fire(listener -> listener.songAdded(this, song));
+        }
+        return added.size();
+    }
+
+    /**
+     * 一次更新多首歌曲。每一项的规则与 updateSong 相同：索引无效、新歌曲无效或没有改变的项被跳过。先检查所有项，再一次性替换；
+     * 索引中每个受影响的行号桶只合并一次，而不是每首歌曲插入和删除一次。监听器按索引升序对每首更新的歌曲收到一次 songUpdated。
+     * Update several songs at once. Each entry follows the same rules as updateSong: entries with an invalid index, an invalid new song or no
+     * change are skipped. All the entries are checked first and then replaced in one go; each affected row bucket of the index is merged
+     * once, instead of one insert and one removal per song. Listeners get one songUpdated per updated song, in ascending order of index.
+     *
+     * @param updates 歌曲的索引和新的歌曲。
+     *                The indexes of the songs and their new songs.
+     * @return 更新的歌曲数量。
+     *         The number of songs updated.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    public int updateSongs(Map<Integer, Song> updates) {
+        TreeMap<Integer, Song> changes = new TreeMap<>();
+
+        for (Map.Entry<Integer, Song> update : updates.entrySet()) {
+            int index = update.getKey();
+
+            if (isValidIndex(index) && isUpdate(songs().get(index), update.getValue())) {
+                changes.put(index, update.getValue());
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        PlaylistIndex songIndex = index();
+        ArrayList<Song> playlistSongs = songs();
+        int[] positions = new int[changes.size()];
+        ArrayList<Song> oldSongs = new ArrayList<>(changes.size());
+        ArrayList<Song> newSongs = new ArrayList<>(changes.values());
+        int next = 0;
+
+        for (Map.Entry<Integer, Song> change : changes.entrySet()) {
+            positions[next++] = change.getKey();
+            oldSongs.add(playlistSongs.set(change.getKey(), change.getValue()));
+        }
+        songIndex.replaced(positions, oldSongs, newSongs);
+        songsVersion++;
+
+        for (Map.Entry<Integer, Song> change : changes.entrySet()) {
+            fire(listener -> listener.songUpdated(this, change.getKey(), change.getValue()));
+        }
+        return changes.size();
+    }
+
+    /**
+     * 一次删除多首歌曲。无效或重复的索引被忽略。后面的歌曲只移动一遍，所以删除 k 首歌曲是 O(n)，而逐首调用 deleteSong 是 O(k·n)。
+     * 监听器按索引降序对每首删除的歌曲收到一次 songDeleted，使得按收到的顺序逐个删除得到相同的结果（例如重放日志时）。
+     * Delete several songs at once. Invalid or repeated indexes are ignored. The later songs are moved only once, so deleting k songs is
+     * O(n), where calling deleteSong for each is O(k·n). Listeners get one songDeleted per deleted song in descending order of index, so
+     * deleting one by one in the order received gives the same result (for example, when a journal is replayed).
+     *
+     * @param indexes 要删除的歌曲的索引，顺序不限。
+     *                The indexes of the songs to delete, in any order.
+     * @return 删除的歌曲，按原来的索引升序排列。
+     *         The deleted songs, in ascending order of their old indexes.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    public ArrayList<Song> deleteSongs(int... indexes) {
+        int[] positions = validPositions(indexes, numSongs());
+        ArrayList<Song> deleted = new ArrayList<>(positions.length);
+
+        if (positions.length == 0) {
+            return deleted;
+        }
+
+        PlaylistIndex songIndex = index();
+        ArrayList<Song> playlistSongs = songs();
+        int kept = positions[0];
+        int next = 0;
+
+        for (int i = positions[0]; i < playlistSongs.size(); i++) {
+            if (next < positions.length && positions[next] == i) {
+                deleted.add(playlistSongs.get(i));
+                next++;
+            } else {
+                playlistSongs.set(kept++, playlistSongs.get(i));
+            }
+        }
+        playlistSongs.subList(kept, playlistSongs.size()).clear();
+
+        songIndex.removed(positions, deleted);
+        songsVersion++;
+
+        for (int i = positions.length - 1; i >= 0; i--) {
+            int index = positions[i];
+            fire(listener -> listener.songDeleted(this, index));
+        }
+        return deleted;
     }
 
     //-------------------------------------
@@ -290,7 +593,7 @@ public class Playlist {
      * @since version 2.0
      */
     public boolean isValidIndex(int index) {
-        return index >= 0 && index < songs.size();
+        return index >= 0 && index < numSongs();
     }
 
     //TODO  Add a method  findSong(int) which returns a Song object:
@@ -309,7 +612,7 @@ public class Playlist {
      */
     public Song findSong(int index) {
         if (isValidIndex(index)) {
-            return songs.get(index);
+            return songAt(index);
         } else {
             return null;
         }
@@ -319,13 +622,19 @@ public class Playlist {
     //       - if the supplied string (songName) matches a song name in the songs list, the Song object that matches that name is returned.
     //       - if the supplied string (songName) does not match a song name in the songs list, null is returned.
     // NOTE: If that name appears more than once, it is sufficient to return the first occurence.
+    /**
+     * 寻找名称完全相同的第一首歌曲。
+     * Find the first song whose name is exactly the song name.
+     *
+     * @param songName 歌曲名称。
+     *                 The song name.
+     * @return 第一首匹配的歌曲，不存在时返回 null。
+     *         The first matching song, or null if there is none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.2
+     */
     public Song findSong(String songName) {
-        for (Song song : songs) {
-            if (song.getName().equals(songName)) {
-                return song;
-            }
-        }
-        return null;
+        return index().findSongByName(songName);
     }
 
     //-------------------------------------
@@ -352,8 +661,10 @@ public class Playlist {
      */
     public Song updateVerifiedStatus(int index, boolean verified) {
         if (isValidIndex(index)) {
-            Song song = songs.get(index);
+            Song song = songs().get(index);
             song.setVerified(verified);
+            songsVersion++;
+            fire(listener -> listener.verifiedStatusUpdated(this, index, verified));
             return song;
         } else {
             return null;
@@ -385,21 +696,24 @@ public class Playlist {
      * @since version 2.0
      */
     public int numSongs() {
-        return songs.size();
+        return songSource != null ? songSource.size() : songs.size();
     }
 
     //TODO Add a method, numberOfShortSongs().
     //     The return type is int.
     //     This method returns the number of song objects in the array list that have a length of <= 180.
     public int numberOfShortSongs() {
-        int num = 0;
+        if (songSource != null) {
+            int shortSongs = 0;
 
-        for (Song song : songs) {
-            if (song.getLength() <= 180) {
-                num++;
+            for (int i = 0; i < songSource.size(); i++) {
+                if (songSource.length(i) <= PlaylistIndex.SHORT_SONG_LENGTH) {
+                    shortSongs++;
+                }
             }
+            return shortSongs;
         }
-        return num;
+        return index().getShortSongs();
     }
 
     //TODO Add a method getTotalPlayListLength() which returns a integer value of the total time (in seconds) if the there are songs in the playlist.
@@ -414,15 +728,10 @@ public class Playlist {
      * @since version 2.0
      */
     public int getTotalPlayListLength() {
-        if (songs.isEmpty()) {
+        if (numSongs() == 0) {
             return -1;
         } else {
-            int totalLength = 0;
-
-            for (Song song : songs) {
-                totalLength += song.getLength();
-            }
-            return totalLength;
+            return (int) totalLength();
         }
     }
 
@@ -438,15 +747,10 @@ public class Playlist {
      * @since version 2.0
      */
     public int getAverageSongLength() {
-        if (songs.isEmpty()) {
+        if (numSongs() == 0) {
             return -1;
         } else {
-            int totalLength = 0;
-
-            for (Song song : songs) {
-                totalLength += song.getLength();
-            }
-            return totalLength / songs.size();
+            return (int) (totalLength() / numSongs());
         }
     }
 
@@ -490,20 +794,11 @@ public class Playlist {
      * @since version 4.3
      */
     public String listSongs() {
-        if (songs.isEmpty()) {
+        if (numSongs() == 0) {
             return "No songs in playlist.";
         }
 
-        StringBuilder builder = new StringBuilder();
-
-        for (int i = 0; i < songs.size(); i++) {
-            Song song = songs.get(i);
-            builder.append(i).append(": Song{songId=").append(song.getSongId())
-                    .append(", name='").append(song.getName()).append('\'')
-                    .append(", artistName='").append(song.getArtist().getArtistName()).append('\'')
-                    .append(", length=").append(song.getLength()).append("}\n");
-        }
-        return "Songs from playlist :" + playlistName + "\n" + builder.toString().trim();
+        return "Songs from playlist :" + playlistName + "\n" + render(out -> writeSongs(out, 0, numSongs()));
     }
 
     //TODO Add a method, listSongsFromVerifiedArtists().
@@ -524,28 +819,82 @@ public class Playlist {
      * @since version 4.3
      */
     public String listSongsFromVerifiedArtists() {
-        if (songs.isEmpty()) {
+        if (numSongs() == 0) {
             return "No songs in playlist.";
         }
 
-        StringBuilder builder = new StringBuilder();
-        boolean isVerifiedSong = false;
+        String verifiedSongs = render(out -> writeSongsFromVerifiedArtists(out, 0, numSongs()));
 
-        for (int i = 0; i < songs.size(); i++) {
-            Song song = songs.get(i);
-            if (song != null && song.getArtist() != null && song.getArtist().isVerified()) {
-                builder.append(i).append(": ").append(song).append("\n");
-                isVerifiedSong = true;
+        if (!verifiedSongs.isEmpty()) {
+            return verifiedSongs;
+        } else {
+            return "There are no songs from verified artists on this playlist";
+        }
+    }
+
+
+    /**
+     * 返回歌手已验证的歌曲数量。
+     * Return the number of songs whose artist is verified.
+     *
+     * @return 已验证歌手的歌曲数量。
+     *         The number of songs from verified artists.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.9
+     */
+    public int numberOfSongsFromVerifiedArtists() {
+        if (songSource != null) {
+            int verifiedSongs = 0;
+
+            for (int i = 0; i < songSource.size(); i++) {
+                if (songSource.isArtistVerified(i)) {
+                    verifiedSongs++;
+                }
             }
+            return verifiedSongs;
         }
+        return index().getSongsFromVerifiedArtists();
+    }
 
-        if (isVerifiedSong) {
-            return builder.toString().trim();
+    /**
+     * 列出歌手已验证、长度在给定范围内（包括边界）的歌曲，格式与 listSongsFromVerifiedArtists() 相同。
+     * List the songs whose artist is verified and whose length is within the given range (inclusive), in the same format as listSongsFromVerifiedArtists().
+     *
+     * @param minLength 最小长度。
+     *                  The minimum length.
+     * @param maxLength 最大长度。
+     *                  The maximum length.
+     * @return 由匹配的歌曲组成的字符串。
+     *         The string composed of the matching songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.9
+     */
+    public String listSongsFromVerifiedArtistsBetween(int minLength, int maxLength) {
+        if (numSongs() == 0) {
+            return "No songs in playlist.";
+        }
+
+        IntList positions;
+
+        if (songSource == null) {
+            positions = query().fromVerifiedArtists().lengthBetween(minLength, maxLength).positions();
         } else {
-            return "There are no songs from verified artists on this playlist";
+            positions = new IntList();
+
+            for (int i = 0; i < songSource.size(); i++) {
+                int length = songSource.length(i);
+
+                if (length >= minLength && length <= maxLength && songSource.isArtistVerified(i)) {
+                    positions.add(i);
+                }
+            }
         }
-    }
 
+        if (positions.isEmpty()) {
+            return "There are no songs from verified artists on this playlist between :" + minLength + " and " + maxLength + " secs";
+        }
+        return render(out -> writeSongDetails(out, positions, 0, positions.size()));
+    }
 
     //TODO Add a method, listSongsLongerThan(int).
     //     The return type is String.
@@ -567,30 +916,66 @@ public class Playlist {
      * @since version 2.0
      */
     public String listSongsLongerThan(int length) {
-        if (songs.isEmpty()) {
+        if (numSongs() == 0) {
             return "No songs in playlist.";
         }
 
-        StringBuilder builder = new StringBuilder();
-        boolean isLongerSong = false;
+        int[] positions = positionsWithLengthBetween(length, Integer.MAX_VALUE);
 
-        for (int i = 0; i < songs.size(); i++) {
-            Song song = songs.get(i);
+        if (positions.length == 0) {
+            return "There are no songs on this playlist longer than :" + length + " secs";
+        }
+        return render(out -> writeSongSummaries(out, positions, 0, positions.length));
+    }
 
-            if (song.getLength() >= length) {
-                builder.append(i).append(": Song{songId=").append(song.getSongId())
-                        .append(", name='").append(song.getName()).append('\'')
-                        .append(", artistName='").append(song.getArtist().getArtistName()).append('\'')
-                        .append(", length=").append(song.getLength()).append("}\n");
-                isLongerSong = true;
-            }
+    /**
+     * 列出长度在给定范围内（包括边界）的歌曲。
+     * List songs whose length is within the given range (inclusive).
+     *
+     * @param minLength 最小长度。
+     *                  The minimum length.
+     * @param maxLength 最大长度。
+     *                  The maximum length.
+     * @return 由长度在该范围内的歌曲组成的字符串。
+     *         The string composed of songs whose length is within the range.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.6
+     */
+    public String listSongsBetween(int minLength, int maxLength) {
+        if (numSongs() == 0) {
+            return "No songs in playlist.";
         }
 
-        if (isLongerSong) {
-            return builder.toString().trim();
-        } else {
-            return "There are no songs on this playlist longer than :" + length + " secs";
+        int[] positions = positionsWithLengthBetween(minLength, maxLength);
+
+        if (positions.length == 0) {
+            return "There are no songs on this playlist between :" + minLength + " and " + maxLength + " secs";
         }
+        return render(out -> writeSongSummaries(out, positions, 0, positions.length));
+    }
+
+    /**
+     * 列出最长的若干首歌曲，按长度从长到短排列。
+     * List the longest songs, from longest to shortest.
+     *
+     * @param count 歌曲数量。
+     *              The number of songs.
+     * @return 由最长的歌曲组成的字符串。
+     *         The string composed of the longest songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.6
+     */
+    public String listLongestSongs(int count) {
+        if (numSongs() == 0) {
+            return "No songs in playlist.";
+        }
+
+        int[] positions = longestPositions(count);
+
+        if (positions.length == 0) {
+            return "There are no songs to list.";
+        }
+        return render(out -> writeSongSummaries(out, positions, 0, positions.length));
     }
 
     //TODO Add a method, listOfSongsOfArtist(String).
@@ -614,23 +999,20 @@ public class Playlist {
      */
     public String listOfSongsOfArtist(String artistName) {
 
-        if (songs.isEmpty()) {
+        if (songs().isEmpty()) {
             return "No songs in playlist.";
         }
 
         StringBuilder builder = new StringBuilder();
-        boolean isArtistSong = false;
+        IntList positions = index().positionsOfArtist(artistName);
 
-        for (int i = 0; i < songs.size(); i++) {
-            Song song = songs.get(i);
-
-            if (song.getArtist().getArtistName().equals(artistName)) {
-                builder.append(i).append(": ").append(song.getName()).append(" (").append(song.getSongId()).append(")\n");
-                isArtistSong = true;
-            }
+        for (int i = 0; i < positions.size(); i++) {
+            int position = positions.get(i);
+            Song song = songs().get(position);
+            builder.append(position).append(": ").append(song.getName()).append(" (").append(song.getSongId()).append(")\n");
         }
 
-        if (isArtistSong) {
+        if (!positions.isEmpty()) {
             return builder.toString().trim();
         } else {
             return "There are no  songs on this playlist by " + artistName;
@@ -638,6 +1020,159 @@ public class Playlist {
     }
 
 
+    /**
+     * 开始一个组合条件的查询，例如 query().fromVerifiedArtists().longerThan(240).nameContains("love").list()。
+     * Start a query combining several conditions, for example query().fromVerifiedArtists().longerThan(240).nameContains("love").list().
+     *
+     * @return 新的查询，没有条件时匹配所有歌曲。
+     *         A new query, matching every song until conditions are added.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.0
+     */
+    public SongQuery query() {
+        return new SongQuery(this);
+    }
+
+    /**
+     * 返回歌单当前状态的不可变快照。快照可以被任何线程不加锁地读取，之后对歌单的修改不会影响它；例如自动保存时，写入文件期间歌单可以继续修改。
+     * 这里需要复制全部歌曲；ConcurrentPlaylist 一直保持最新的快照，所以不需要复制。
+     * Return an immutable snapshot of the current state of the playlist. It can be read by any thread without a lock, and later changes to
+     * the playlist do not affect it; for example, the playlist can keep changing while autosave writes the file. Here all the songs have to
+     * be copied; ConcurrentPlaylist keeps an up-to-date snapshot at all times, so it needs no copy.
+     *
+     * @return 歌单的快照。
+     *         A snapshot of the playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public PlaylistSnapshot snapshot() {
+        return read(() -> new PlaylistSnapshot(songsVersion, playlistName, description, getLikes(), addLikeSet,
+                PersistentList.of(PlaylistSnapshot.copies(this))));
+    }
+
+    /*
+      歌曲被修改的次数，供 ConcurrentPlaylist 发布快照时使用。
+      The number of times the songs have been changed, for ConcurrentPlaylist when it publishes a snapshot.
+     */
+    long songsVersion() {
+        return songsVersion;
+    }
+
+    //------------------------------------
+    // STREAMING METHODS - page by page
+    //------------------------------------
+
+    /**
+     * 把从 offset 开始的最多 limit 首歌曲直接写入 out，格式与 listSongs() 相同，不需要先生成整个字符串。
+     * Write at most limit songs starting at offset straight to out, in the same format as listSongs(), without building the whole String first.
+     *
+     * @param out 输出目标，例如 System.out 或 Writer。
+     *            The output, for example System.out or a Writer.
+     * @param offset 第一首歌曲的索引。
+     *               The index of the first song.
+     * @param limit 最多写出的歌曲数量。
+     *              The maximum number of songs to write.
+     * @return 实际写出的歌曲数量，小于 limit 时表示已经写到最后。
+     *         The number of songs written; less than limit means the end has been reached.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.7
+     */
+    public int writeSongs(Appendable out, int offset, int limit) throws IOException {
+        int from = Math.max(offset, 0);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), numSongs());
+
+        for (int i = from; i < to; i++) {
+            appendSongSummary(out, i, songAt(i));
+        }
+        return Math.max(to - from, 0);
+    }
+
+    /**
+     * 把已验证歌手的歌曲分页写入 out，格式与 listSongsFromVerifiedArtists() 相同。offset 按匹配的歌曲计算。
+     * Write a page of songs from verified artists to out, in the same format as listSongsFromVerifiedArtists(). The offset counts matching songs.
+     *
+     * @param out 输出目标。
+     *            The output.
+     * @param offset 跳过的匹配歌曲数量。
+     *               The number of matching songs to skip.
+     * @param limit 最多写出的歌曲数量。
+     *              The maximum number of songs to write.
+     * @return 实际写出的歌曲数量。
+     *         The number of songs written.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.7
+     */
+    public int writeSongsFromVerifiedArtists(Appendable out, int offset, int limit) throws IOException {
+        if (songSource == null) {
+            return writeSongDetails(out, index().positionsFromVerifiedArtists(), offset, limit);
+        }
+
+        int skipped = 0;
+        int written = 0;
+
+        for (int i = 0; i < numSongs() && written < limit; i++) {
+            if (songSource.isArtistVerified(i)) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    out.append(String.valueOf(i)).append(": ").append(songAt(i).toString()).append("\n");
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 把长度不小于 length 的歌曲分页写入 out，格式与 listSongsLongerThan(int) 相同。offset 按匹配的歌曲计算。
+     * Write a page of songs at least length long to out, in the same format as listSongsLongerThan(int). The offset counts matching songs.
+     *
+     * @param out 输出目标。
+     *            The output.
+     * @param length 指定长度。
+     *               Specified length.
+     * @param offset 跳过的匹配歌曲数量。
+     *               The number of matching songs to skip.
+     * @param limit 最多写出的歌曲数量。
+     *              The maximum number of songs to write.
+     * @return 实际写出的歌曲数量。
+     *         The number of songs written.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.7
+     */
+    public int writeSongsLongerThan(Appendable out, int length, int offset, int limit) throws IOException {
+        int[] positions = positionsWithLengthBetween(length, Integer.MAX_VALUE);
+        return writeSongSummaries(out, positions, offset, limit);
+    }
+
+    /**
+     * 把歌单信息直接写入 out，格式与 toString() 相同（不包括空歌单的提示）。
+     * Write the information of the playlist straight to out, in the same format as toString() (apart from the empty playlist message).
+     *
+     * @param out 输出目标。
+     *            The output.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.7
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("controllers.Playlist Name: ").append(playlistName).append("\n");
+        out.append("controllers.Playlist Description: ").append(description).append("\n");
+        out.append("Likes: ").append(String.valueOf(getLikes())).append("\n");
+        out.append("Songs: ").append("\n");
+
+        for (int i = 0; i < numSongs(); i++) {
+            out.append(songAt(i).toString()).append("\n");
+        }
+    }
+
     //------------------------------
     //  FINDING METHODS
     //-------------------------------
@@ -673,12 +1208,11 @@ public class Playlist {
      * @since version 2.0
      */
     public Song findSongByCode(int songCode) {
-        for (Song song : songs) {
-            if (song.getSongId() == songCode) {
-                return song;
-            }
+        if (songSource != null) {
+            int position = songSource.positionOfCode(songCode);
+            return position < 0 ? null : songSource.song(position);
         }
-        return null;
+        return index().findSongByCode(songCode);
     }
 
     //------------------------------
@@ -704,21 +1238,19 @@ public class Playlist {
      * @since version 2.0
      */
     public String searchSongsByName(String songName) {
-        if (songs.isEmpty()) {
+        if (songs().isEmpty()) {
             return "No songs.";
         }
 
         StringBuilder builder = new StringBuilder();
-        boolean isSongName = false;
+        IntList positions = index().searchPositionsByName(songName);
 
-        for (int i = 0; i < songs.size(); i++) {
-            if (songs.get(i).getName().contains(songName)) {
-                builder.append(i).append(": ").append(songs.get(i).toString()).append("\n");
-                isSongName = true;
-            }
+        for (int i = 0; i < positions.size(); i++) {
+            int position = positions.get(i);
+            builder.append(position).append(": ").append(songs().get(position).toString()).append("\n");
         }
 
-        if (isSongName) {
+        if (!positions.isEmpty()) {
             return builder.toString().trim();
         } else {
             return "No songs found.";
@@ -737,32 +1269,374 @@ public class Playlist {
     //        Wrecking Ball (65434)
     //      - If there are no songs stored in the array list, return a string that contains "No songs".
     //      - If there are no songs whose name contains the supplied string, the return string should have "No songs found for this artist.
+    /*
+      修正：Song 构造函数不会设置 Song.artistName 字段，所以改为使用歌手对象的名字，避免 NullPointerException。
+      Fix: the Song constructor never sets the Song.artistName field, so the artist object's name is used instead, avoiding a NullPointerException.
+     */
     public String searchSongsByArtistName(String artistName) {
-        if (songs.isEmpty()) {
+        if (songs().isEmpty()) {
             return "No songs.";
         }
+        return listSongNamesAndCodes(index().positionsOfArtistContaining(artistName));
+    }
 
-        StringBuilder builder = new StringBuilder();
-        boolean isArtistName = false;
-
-        for (Song song : songs) {
-            if (song.getArtistName().contains(artistName)) {
-                builder.append(song.getName()).append(" (").append(song.getSongId()).append(")\n");
-                isArtistName = true;
-            }
+    /**
+     * 根据歌手名字的前缀搜索歌曲。
+     * Search songs by the prefix of the artist name.
+     *
+     * @param prefix 歌手名字的前缀。
+     *               The prefix of the artist name.
+     * @return 由歌手名字以该前缀开头的歌曲组成的字符串。
+     *         The string composed of songs whose artist name starts with the prefix.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.4
+     */
+    public String searchSongsByArtistPrefix(String prefix) {
+        if (songs().isEmpty()) {
+            return "No songs.";
         }
+        return listSongNamesAndCodes(index().positionsOfArtistPrefix(prefix));
+    }
 
-        if (isArtistName) {
-            return builder.toString().trim();
-        } else {
+    /*
+      按 "名称 (ID)" 的格式列出给定位置上的歌曲。
+      List the songs at the given positions in the "name (ID)" format.
+     */
+    private String listSongNamesAndCodes(IntList positions) {
+        if (positions.isEmpty()) {
             return "No songs found for this artist.";
         }
+
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < positions.size(); i++) {
+            Song song = songs().get(positions.get(i));
+            builder.append(song.getName()).append(" (").append(song.getSongId()).append(")\n");
+        }
+        return builder.toString().trim();
     }
 
     //-------------------------
     // HELPER METHODS
     //-------------------------
 
+    /*
+      判断 song 是否可以代替 songToUpdate：新歌曲的字段有效，并且与原来的歌曲不同（规则见 updateSong）。
+      Judge whether song may replace songToUpdate: the fields of the new song are valid and it differs from the old one (see updateSong for the rules).
+     */
+    private static boolean isUpdate(Song songToUpdate, Song song) {
+        if (song.getSongId() > 9999 || song.getSongId() < 1000) {
+            return false;
+        }
+
+        if (song.getName().length() > 20) {
+            return false;
+        }
+
+        if (song.getArtist().getArtistName().length() > 15) {
+            return false;
+        }
+
+        if (song.getLength() <= 0) {
+            return false;
+        }
+
+        return !(songToUpdate.getSongId() == song.getSongId() &&
+                songToUpdate.getName().equals(song.getName()) &&
+                songToUpdate.getLength() == song.getLength() &&
+                songToUpdate.getArtist().getArtistName().equals(song.getArtist().getArtistName()) &&
+                songToUpdate.getArtist().isVerified() == song.getArtist().isVerified());
+    }
+
+    /*
+      返回有效的索引，升序且不重复。ConcurrentPlaylist 也用它找出 deleteSongs 删除的位置。
+      Return the valid indexes, ascending and without duplicates. ConcurrentPlaylist also uses it to find the positions deleteSongs removes.
+     */
+    static int[] validPositions(int[] indexes, int size) {
+        int[] sorted = indexes.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+
+        for (int index : sorted) {
+            if (index >= 0 && index < size && (count == 0 || sorted[count - 1] != index)) {
+                sorted[count++] = index;
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    /*
+      按 "位置: Song{...}" 的格式写出一行歌曲摘要。
+      Write one song summary line in the "position: Song{...}" format.
+     */
+    private static void appendSongSummary(Appendable out, int position, Song song) throws IOException {
+        out.append(String.valueOf(position)).append(": Song{songId=").append(String.valueOf(song.getSongId()))
+                .append(", name='").append(song.getName()).append('\'')
+                .append(", artistName='").append(song.getArtist().getArtistName()).append('\'')
+                .append(", length=").append(String.valueOf(song.getLength())).append("}\n");
+    }
+
+    /*
+      按 "位置: song.toString()" 的格式分页写出给定位置上的歌曲。
+      Write a page of the songs at the given positions in the "position: song.toString()" format.
+     */
+    private int writeSongDetails(Appendable out, IntList positions, int offset, int limit) throws IOException {
+        int from = Math.max(offset, 0);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), positions.size());
+
+        for (int i = from; i < to; i++) {
+            int position = positions.get(i);
+            out.append(String.valueOf(position)).append(": ").append(songAt(position).toString()).append("\n");
+        }
+        return Math.max(to - from, 0);
+    }
+
+    private int writeSongSummaries(Appendable out, int[] positions, int offset, int limit) throws IOException {
+        int from = Math.max(offset, 0);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), positions.length);
+
+        for (int i = from; i < to; i++) {
+            appendSongSummary(out, positions[i], songAt(positions[i]));
+        }
+        return Math.max(to - from, 0);
+    }
+
+    /*
+      用于把流式写出的方法转换为字符串。
+      Used to turn a streaming write method into a String.
+     */
+    private interface SongWriter {
+        void write(Appendable out) throws IOException;
+    }
+
+    /*
+      写入 StringBuilder，不会真正抛出 IOException。
+      Writing to a StringBuilder never actually throws an IOException.
+     */
+    private static String render(SongWriter writer) {
+        StringBuilder builder = new StringBuilder();
+
+        try {
+            writer.write(builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString().trim();
+    }
+
+    /**
+     * 按顺序遍历歌曲。歌曲还在按需读取的来源中时，每首歌曲在遍历到时才读取，不会取出全部歌曲。
+     * Iterate over the songs in order. While the songs are still in the on-demand source, each song is read only when it is reached,
+     * without taking all the songs.
+     *
+     * @return 歌曲的迭代器。
+     *         An iterator over the songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.4
+     */
+    @Override
+    public Iterator<Song> iterator() {
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < numSongs();
+            }
+
+            @Override
+            public Song next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return songAt(position++);
+            }
+        };
+    }
+
+    /**
+     * 注册歌单监听器。
+     * Register a playlist listener.
+     *
+     * @param listener 歌单监听器。
+     *                 The playlist listener.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    public synchronized void addPlaylistListener(PlaylistListener listener) {
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * 注销歌单监听器。
+     * Remove a playlist listener.
+     *
+     * @param listener 歌单监听器。
+     *                 The playlist listener.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    public synchronized void removePlaylistListener(PlaylistListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    private void fire(Consumer<PlaylistListener> event) {
+        CopyOnWriteArrayList<PlaylistListener> listeners = this.listeners;
+
+        if (listeners != null) {
+            for (PlaylistListener listener : listeners) {
+                event.accept(listener);
+            }
+        }
+    }
+
+    /*
+      返回 songs。如果 songs 还在按需读取的来源中，先一次性取出全部歌曲。
+      Return songs. If songs is still in the on-demand source, take all the songs at once first.
+     */
+    private ArrayList<Song> songs() {
+        if (songSource != null) {
+            songs = songSource.songs();
+            songSource = null;
+        }
+        return songs;
+    }
+
+    /*
+      歌曲是否还在按需读取的来源中。
+      Whether the songs are still in the on-demand source.
+     */
+    boolean hasSongSource() {
+        return songSource != null;
+    }
+
+    /*
+      返回位置上的歌曲，不会取出全部歌曲。
+      Return the song at the position, without taking all the songs.
+     */
+    private Song songAt(int position) {
+        return songSource != null ? songSource.song(position) : songs.get(position);
+    }
+
+    /*
+      报表方法使用的辅助方法：songs 还在来源中时，逐个读取长度和验证状态，不创建 Song 对象，也不取出全部歌曲；否则使用索引。
+      Helpers for the report methods: while songs is still in the source, lengths and verified flags are read one by one, without creating
+      Song objects or taking all the songs; otherwise the index is used.
+     */
+    private long totalLength() {
+        if (songSource == null) {
+            return index().getTotalLength();
+        }
+
+        long total = 0;
+
+        for (int i = 0; i < songSource.size(); i++) {
+            total += songSource.length(i);
+        }
+        return total;
+    }
+
+    private int[] positionsWithLengthBetween(int minLength, int maxLength) {
+        if (songSource == null) {
+            return index().positionsWithLengthBetween(minLength, maxLength).toArray();
+        }
+
+        IntList positions = new IntList();
+
+        for (int i = 0; i < songSource.size(); i++) {
+            int length = songSource.length(i);
+
+            if (length >= minLength && length <= maxLength) {
+                positions.add(i);
+            }
+        }
+        return positions.toArray();
+    }
+
+    /*
+      与 PlaylistIndex.longestPositions 相同的顺序：按长度从长到短，长度相同时按位置。先数出每个长度的歌曲，再遍历一次把位置放进各自的位置。
+      The same order as PlaylistIndex.longestPositions: from longest to shortest, and by position for the same length. Count the songs of
+      each length first, then place each position in its slot in a second pass.
+     */
+    private int[] longestPositions(int count) {
+        if (songSource == null) {
+            return index().longestPositions(count);
+        }
+
+        int[] lengthCounts = new int[PlaylistIndex.MAX_LENGTH + 1];
+
+        for (int i = 0; i < songSource.size(); i++) {
+            lengthCounts[clampedLength(i)]++;
+        }
+
+        int[] positions = new int[Math.max(0, Math.min(count, songSource.size()))];
+        int[] next = new int[PlaylistIndex.MAX_LENGTH + 1];
+        int[] end = new int[PlaylistIndex.MAX_LENGTH + 1];
+        int slot = 0;
+
+        for (int length = PlaylistIndex.MAX_LENGTH; length >= PlaylistIndex.MIN_LENGTH; length--) {
+            next[length] = slot;
+            slot = Math.min(positions.length, slot + lengthCounts[length]);
+            end[length] = slot;
+        }
+
+        for (int i = 0; i < songSource.size(); i++) {
+            int length = clampedLength(i);
+
+            if (next[length] < end[length]) {
+                positions[next[length]++] = i;
+            }
+        }
+        return positions;
+    }
+
+    private int clampedLength(int position) {
+        return Math.max(PlaylistIndex.MIN_LENGTH, Math.min(PlaylistIndex.MAX_LENGTH, songSource.length(position)));
+    }
+
+    /**
+     * 在一致的状态下运行 reader，供 SongQuery 和 PlaylistJournal 使用。这里直接运行；ConcurrentPlaylist 在共享锁下运行，
+     * 修改歌曲的线程要等 reader 结束。
+     * Run reader against a consistent state, for SongQuery and PlaylistJournal. Here it simply runs; ConcurrentPlaylist runs it under
+     * the shared lock, so threads changing the songs wait until reader has finished.
+     *
+     * @param reader 读取歌单的操作。
+     *               The operation reading the playlist.
+     * @param <T> 结果的类型。
+     *            The type of the result.
+     * @return reader 的结果。
+     *         The result of reader.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.0
+     */
+    public <T> T read(Supplier<T> reader) {
+        return reader.get();
+    }
+
+    /**
+     * 返回歌曲的索引，也供 SongQuery 使用。索引不存在（例如刚从 Store.xml 加载）或 songs 被直接修改过时，重新建立索引。
+     * Return the index of the songs, also used by SongQuery. It is rebuilt when it does not exist (for example, just loaded from Store.xml) or songs has been modified directly.
+     *
+     * @return 歌曲的索引。
+     *         The index of the songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    PlaylistIndex index() {
+        if (index == null || !index.isIndexing(songs())) {
+            if (index != null) {
+                index.detach();
+            }
+            index = new PlaylistIndex(songs());
+        }
+        return index;
+    }
+
     /*
       题目勘误：TODO 重复，我们注释了重复内容。
       Title error: TODO is repeated, and we annotated the duplicate content.
@@ -785,20 +1659,10 @@ public class Playlist {
      */
     @Override
     public String toString() {
-        StringBuilder builder = new StringBuilder();
-
-        if (songs.isEmpty()) {
+        if (numSongs() == 0) {
             return "No songs in playlist.";
         } else {
-            builder.append("controllers.Playlist Name: ").append(playlistName).append("\n");
-            builder.append("controllers.Playlist Description: ").append(description).append("\n");
-            builder.append("Likes: ").append(likes).append("\n");
-            builder.append("Songs: ").append("\n");
-
-            for (Song song : songs) {
-                builder.append(song.toString()).append("\n");
-            }
-            return builder.toString().trim();
+            return render(this::writeTo);
         }
     }
 }
@@ -0,0 +1,885 @@
+package controllers;
+
+import models.Artist;
+import models.ArtistListener;
+import models.Song;
+import models.SongListener;
+import utils.IntHashMap;
+import utils.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 此类用于维护歌单的索引和统计数据，使得按 ID、名称、歌手或长度查找歌曲以及计算长度报告不必遍历整个 songs ArrayList。
+ * This class maintains the indexes and running totals of a playlist, so that finding songs by ID, name, artist or length, and the length reports, do not walk the whole songs ArrayList.
+ *
+ * 每个位置都有一个稳定的行号（row），行号按位置升序排列，删除歌曲时不需要重新编号。
+ * Every position has a stable row number; rows ascend with the positions and are never renumbered when a song is deleted.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.4
+ * @since version 5.1
+ */
+class PlaylistIndex implements SongListener, ArtistListener {
+    private final ArrayList<Song> songs;
+
+    /*
+      每个位置对应的行号，升序排列。
+      The row number of each position, in ascending order.
+     */
+    private final IntList rows;
+
+    private final IntHashMap<Song> songsByRow;
+    private final IntHashMap<IntList> rowsBySongId;
+    private final HashMap<String, IntList> rowsByName;
+    private final TrigramIndex nameTrigrams;
+
+    /*
+      按歌手名字排序，使得前缀查找只需访问匹配的歌手。
+      Sorted by artist name, so that a prefix lookup only visits the matching artists.
+     */
+    private final TreeMap<String, IntList> rowsByArtist;
+
+    /*
+      每个歌手对象被多少行引用；同一个歌手只注册一次监听器。
+      How many rows reference each artist object; the listener is registered only once per artist.
+     */
+    private final IdentityHashMap<Artist, Integer> artistReferences;
+    private int nextRow = 0;
+
+    /*
+      歌手已验证的行。行号在删除歌曲时不变，所以只需清除被删除的行；与其他按行的条件（例如长度范围）求交集只需要按位与。
+      The rows whose artist is verified. Rows do not change when a song is deleted, so only the deleted row is cleared; intersecting with
+      other conditions by row (for example a length range) is a bitwise and.
+     */
+    private final BitSet verifiedArtistRows = new BitSet();
+
+    /*
+      所有歌曲长度之和，以及长度不超过 SHORT_SONG_LENGTH 的歌曲数量。
+      The sum of all song lengths, and the number of songs no longer than SHORT_SONG_LENGTH.
+     */
+    private long totalLength = 0;
+    private int shortSongs = 0;
+
+    static final int SHORT_SONG_LENGTH = 180;
+
+    /*
+      歌曲长度限制在 1 到 600 秒之间（见 Song.setLength），所以每个长度对应一个桶。
+      Song lengths are bounded to 1..600 seconds (see Song.setLength), so there is one bucket per length.
+     */
+    static final int MIN_LENGTH = 1;
+    static final int MAX_LENGTH = 600;
+    private final IntList[] rowsByLength = new IntList[MAX_LENGTH + 1];
+
+    /*
+      一批修改期间收集对行号桶的增删，最后每个桶合并一次（见 BucketEdits）；不在一批修改中时为 null，直接修改桶。
+      Collects the changes to row buckets during a batch, so each bucket is merged once at the end (see BucketEdits); null outside a batch,
+      when the buckets are changed directly.
+     */
+    private BucketEdits edits;
+
+    /**
+     * 构造函数，为 songs ArrayList 中已有的歌曲建立索引。
+     * Constructor, indexing the songs already in the songs ArrayList.
+     *
+     * @param songs 歌单的 songs ArrayList。
+     *              The songs ArrayList of the playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    PlaylistIndex(ArrayList<Song> songs) {
+        this.songs = songs;
+        this.rows = new IntList(songs.size());
+        this.songsByRow = new IntHashMap<>(songs.size());
+        this.rowsBySongId = new IntHashMap<>(songs.size());
+        this.rowsByName = new HashMap<>();
+        this.nameTrigrams = new TrigramIndex();
+        this.rowsByArtist = new TreeMap<>();
+        this.artistReferences = new IdentityHashMap<>();
+
+        for (Song song : songs) {
+            added(song);
+        }
+    }
+
+    /**
+     * 判断索引是否仍然对应该 songs ArrayList（例如没有被 getSongs() 直接修改过长度）。
+     * Judge whether the index still matches the songs ArrayList (for example, its size was not changed directly through getSongs()).
+     *
+     * @param songs 歌单当前的 songs ArrayList。
+     *              The current songs ArrayList of the playlist.
+     * @return 索引是否可用。
+     *         Whether the index can be used.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    boolean isIndexing(ArrayList<Song> songs) {
+        return this.songs == songs && rows.size() == songs.size();
+    }
+
+    //-------------------------------------
+    //  Maintenance
+    //-------------------------------------
+
+    /*
+      歌曲已追加到 songs ArrayList 的末尾。
+      The song has been appended to the end of the songs ArrayList.
+     */
+    void added(Song song) {
+        int row = nextRow++;
+        rows.add(row);
+        indexSong(row, song);
+    }
+
+    /*
+      位置 index 上的歌曲已被替换。
+      The song at position index has been replaced.
+     */
+    void replaced(int index, Song oldSong, Song newSong) {
+        int row = rows.get(index);
+        unindexSong(row, oldSong);
+        indexSong(row, newSong);
+    }
+
+    /*
+      位置 index 上的歌曲已被删除。
+      The song at position index has been deleted.
+     */
+    void removed(int index, Song oldSong) {
+        int row = rows.removeAt(index);
+        unindexSong(row, oldSong);
+    }
+
+    /*
+      多个位置上的歌曲已被一次替换。positions 升序且不重复，oldSongs 和 newSongs 按同样的顺序；每个行号桶只合并一次。
+      The songs at several positions have been replaced at once. positions ascend without duplicates, and oldSongs and newSongs are in the
+      same order; each row bucket is merged only once.
+     */
+    void replaced(int[] positions, ArrayList<Song> oldSongs, ArrayList<Song> newSongs) {
+        edits = new BucketEdits();
+
+        for (int i = 0; i < positions.length; i++) {
+            int row = rows.get(positions[i]);
+            unindexSong(row, oldSongs.get(i));
+            indexSong(row, newSongs.get(i));
+        }
+        edits.apply();
+        edits = null;
+    }
+
+    /*
+      多个位置上的歌曲已被一次删除。positions 升序且不重复，oldSongs 按同样的顺序；行号列表和每个行号桶只移动一遍。
+      The songs at several positions have been deleted at once. positions ascend without duplicates, and oldSongs are in the same order;
+      the row list and each row bucket are moved only once.
+     */
+    void removed(int[] positions, ArrayList<Song> oldSongs) {
+        edits = new BucketEdits();
+
+        for (int i = 0; i < positions.length; i++) {
+            unindexSong(rows.get(positions[i]), oldSongs.get(i));
+        }
+        edits.apply();
+        edits = null;
+        rows.removeAt(positions);
+    }
+
+    /*
+      注销所有监听器，使不再使用的索引不会继续收到歌曲的修改。
+      Remove all listeners, so that an index no longer in use stops receiving song changes.
+     */
+    void detach() {
+        for (int i = 0; i < rows.size(); i++) {
+            Song song = songsByRow.get(rows.get(i));
+            song.removeSongListener(this);
+        }
+
+        for (Artist artist : artistReferences.keySet()) {
+            artist.removeArtistListener(this);
+        }
+    }
+
+    private void indexSong(int row, Song song) {
+        songsByRow.put(row, song);
+        addRow(rowsBySongId, song.getSongId(), row);
+        addRow(rowsByName, song.getName(), row);
+        nameTrigrams.add(row, song.getName(), edits);
+        indexArtist(row, song.getArtist());
+        indexLength(row, song.getLength());
+        song.addSongListener(this);
+    }
+
+    private void unindexSong(int row, Song song) {
+        song.removeSongListener(this);
+        removeRow(rowsBySongId, song.getSongId(), row);
+        removeRow(rowsByName, song.getName(), row);
+        nameTrigrams.remove(row, song.getName(), edits);
+        unindexArtist(row, song.getArtist());
+        unindexLength(row, song.getLength());
+        songsByRow.remove(row);
+    }
+
+    private void countLength(int length, int count) {
+        totalLength += (long) length * count;
+
+        if (length <= SHORT_SONG_LENGTH) {
+            shortSongs += count;
+        }
+    }
+
+    private void indexLength(int row, int length) {
+        int bucket = clampLength(length);
+
+        if (rowsByLength[bucket] == null) {
+            rowsByLength[bucket] = new IntList(1);
+        }
+
+        addRow(rowsByLength[bucket], row, edits);
+        countLength(length, 1);
+    }
+
+    private void unindexLength(int row, int length) {
+        int bucket = clampLength(length);
+
+        if (rowsByLength[bucket] != null) {
+            removeRow(rowsByLength[bucket], row, () -> { }, edits);
+        }
+        countLength(length, -1);
+    }
+
+    private static int clampLength(int length) {
+        return Math.max(MIN_LENGTH, Math.min(MAX_LENGTH, length));
+    }
+
+    private void indexArtist(int row, Artist artist) {
+        if (artist == null) {
+            return;
+        }
+
+        addRow(rowsByArtist, artist.getArtistName(), row);
+        verifiedArtistRows.set(row, artist.isVerified());
+
+        if (artistReferences.merge(artist, 1, Integer::sum) == 1) {
+            artist.addArtistListener(this);
+        }
+    }
+
+    private void unindexArtist(int row, Artist artist) {
+        if (artist == null) {
+            return;
+        }
+
+        removeRow(rowsByArtist, artist.getArtistName(), row);
+        verifiedArtistRows.clear(row);
+
+        if (artistReferences.merge(artist, -1, Integer::sum) == 0) {
+            artistReferences.remove(artist);
+            artist.removeArtistListener(this);
+        }
+    }
+
+    private void addRow(IntHashMap<IntList> map, int key, int row) {
+        IntList bucket = map.get(key);
+
+        if (bucket == null) {
+            bucket = new IntList(1);
+            map.put(key, bucket);
+        }
+        addRow(bucket, row, edits);
+    }
+
+    private void removeRow(IntHashMap<IntList> map, int key, int row) {
+        IntList bucket = map.get(key);
+
+        if (bucket != null) {
+            removeRow(bucket, row, () -> map.remove(key), edits);
+        }
+    }
+
+    private <K> void addRow(Map<K, IntList> map, K key, int row) {
+        addRow(map.computeIfAbsent(key, k -> new IntList(1)), row, edits);
+    }
+
+    private <K> void removeRow(Map<K, IntList> map, K key, int row) {
+        IntList bucket = map.get(key);
+
+        if (bucket != null) {
+            removeRow(bucket, row, () -> map.remove(key), edits);
+        }
+    }
+
+    /*
+      在一批修改中（edits 不为 null）只记录增删，否则直接修改桶；桶为空时运行 whenEmpty。TrigramIndex 也使用它们。
+      Within a batch (edits is not null) the change is only recorded, otherwise the bucket is changed directly; whenEmpty runs once the
+      bucket is empty. TrigramIndex uses them too.
+     */
+    static void addRow(IntList bucket, int row, BucketEdits edits) {
+        if (edits != null) {
+            edits.add(bucket, row);
+        } else {
+            bucket.add(row);
+        }
+    }
+
+    static void removeRow(IntList bucket, int row, Runnable whenEmpty, BucketEdits edits) {
+        if (edits != null) {
+            edits.remove(bucket, row, whenEmpty);
+        } else {
+            bucket.remove(row);
+
+            if (bucket.isEmpty()) {
+                whenEmpty.run();
+            }
+        }
+    }
+
+    //-------------------------------------
+    //  Lookups
+    //-------------------------------------
+
+    /**
+     * 根据歌曲编号查找第一首匹配的歌曲。
+     * Find the first song matching the song code.
+     *
+     * @param songCode 要搜索的歌曲ID。
+     *                 The song ID to search for.
+     * @return 第一首匹配的歌曲，不存在时返回 null。
+     *         The first matching song, or null if there is none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    Song findSongByCode(int songCode) {
+        IntList bucket = rowsBySongId.get(songCode);
+        return bucket == null ? null : songsByRow.get(bucket.first());
+    }
+
+    /**
+     * 根据歌曲名称查找第一首名称完全相同的歌曲。
+     * Find the first song whose name is exactly the song name.
+     *
+     * @param songName 歌曲名称。
+     *                 The song name.
+     * @return 第一首匹配的歌曲，不存在时返回 null。
+     *         The first matching song, or null if there is none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.2
+     */
+    Song findSongByName(String songName) {
+        IntList bucket = rowsByName.get(songName);
+        return bucket == null ? null : songsByRow.get(bucket.first());
+    }
+
+    /**
+     * 返回名称包含给定字符串的歌曲位置。先用三元组索引缩小候选范围，再用 contains 验证。
+     * Return the positions of the songs whose name contains the string. The trigram index narrows the candidates, which are then verified with contains.
+     *
+     * @param songName 要搜索的字符串。
+     *                 The string to search for.
+     * @return 升序排列的歌曲位置。
+     *         The positions of the songs, in ascending order.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.3
+     */
+    IntList searchPositionsByName(String songName) {
+        IntList positions = new IntList();
+        IntList candidates = songName.length() < TrigramIndex.GRAM_LENGTH ? null : nameTrigrams.candidates(songName);
+
+        /*
+          查询太短（没有三元组可用），或候选歌曲超过八分之一时，顺序遍历比逐个查找更快。
+          When the query is too short to have a trigram, or more than an eighth of the songs are candidates, a sequential scan is faster than looking each one up.
+         */
+        if (candidates == null || candidates.size() > songs.size() / 8) {
+            for (int i = 0; i < songs.size(); i++) {
+                if (songs.get(i).getName().contains(songName)) {
+                    positions.add(i);
+                }
+            }
+            return positions;
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            int row = candidates.get(i);
+
+            if (songsByRow.get(row).getName().contains(songName)) {
+                positions.add(rows.indexOf(row));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * 返回歌手名字完全相同的歌曲位置。
+     * Return the positions of the songs whose artist name is exactly the artist name.
+     *
+     * @param artistName 歌手的名字。
+     *                   The name of the artist.
+     * @return 升序排列的歌曲位置。
+     *         The positions of the songs, in ascending order.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.4
+     */
+    IntList positionsOfArtist(String artistName) {
+        IntList bucket = rowsByArtist.get(artistName);
+        return bucket == null ? new IntList(1) : toPositions(bucket.toArray());
+    }
+
+    /**
+     * 返回歌手名字以给定前缀开头的歌曲位置。
+     * Return the positions of the songs whose artist name starts with the prefix.
+     *
+     * @param prefix 歌手名字的前缀。
+     *               The prefix of the artist name.
+     * @return 升序排列的歌曲位置。
+     *         The positions of the songs, in ascending order.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.4
+     */
+    IntList positionsOfArtistPrefix(String prefix) {
+        return toPositions(artistBucketsWithPrefix(prefix));
+    }
+
+    /**
+     * 返回歌手名字包含给定字符串的歌曲位置。只需遍历不同的歌手名字，而不是所有歌曲。
+     * Return the positions of the songs whose artist name contains the string. Only the distinct artist names are walked, not every song.
+     *
+     * @param text 要搜索的字符串。
+     *             The string to search for.
+     * @return 升序排列的歌曲位置。
+     *         The positions of the songs, in ascending order.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.4
+     */
+    IntList positionsOfArtistContaining(String text) {
+        return toPositions(artistBucketsContaining(text));
+    }
+
+    private ArrayList<IntList> artistBucketsWithPrefix(String prefix) {
+        ArrayList<IntList> buckets = new ArrayList<>();
+
+        for (Map.Entry<String, IntList> entry : rowsByArtist.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            buckets.add(entry.getValue());
+        }
+        return buckets;
+    }
+
+    private ArrayList<IntList> artistBucketsContaining(String text) {
+        ArrayList<IntList> buckets = new ArrayList<>();
+
+        for (Map.Entry<String, IntList> entry : rowsByArtist.entrySet()) {
+            if (entry.getKey().contains(text)) {
+                buckets.add(entry.getValue());
+            }
+        }
+        return buckets;
+    }
+
+    /*
+      合并多个行号列表，并转换为升序的歌曲位置。
+      Merge several row lists and convert them into ascending song positions.
+     */
+    private IntList toPositions(ArrayList<IntList> buckets) {
+        if (buckets.size() == 1) {
+            return toPositions(buckets.get(0).toArray());
+        }
+
+        int total = 0;
+
+        for (IntList bucket : buckets) {
+            total += bucket.size();
+        }
+
+        int[] merged = new int[total];
+        int length = 0;
+
+        for (IntList bucket : buckets) {
+            for (int i = 0; i < bucket.size(); i++) {
+                merged[length++] = bucket.get(i);
+            }
+        }
+        Arrays.sort(merged);
+        return toPositions(merged);
+    }
+
+    /*
+      把升序的行号转换为歌曲位置。
+      Convert ascending rows into song positions.
+     */
+    private IntList toPositions(int[] sortedRows) {
+        IntList positions = new IntList(sortedRows.length);
+
+        for (int row : sortedRows) {
+            positions.add(rows.indexOf(row));
+        }
+        return positions;
+    }
+
+    /**
+     * 返回长度在给定范围内（包括边界）的歌曲位置。
+     * Return the positions of the songs whose length is within the range (inclusive).
+     *
+     * @param minLength 最小长度。
+     *                  The minimum length.
+     * @param maxLength 最大长度。
+     *                  The maximum length.
+     * @return 升序排列的歌曲位置。
+     *         The positions of the songs, in ascending order.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.6
+     */
+    IntList positionsWithLengthBetween(int minLength, int maxLength) {
+        int from = Math.max(minLength, MIN_LENGTH);
+        int to = Math.min(maxLength, MAX_LENGTH);
+        ArrayList<IntList> buckets = new ArrayList<>();
+        int matches = 0;
+
+        for (int length = from; length <= to; length++) {
+            if (rowsByLength[length] != null && !rowsByLength[length].isEmpty()) {
+                buckets.add(rowsByLength[length]);
+                matches += rowsByLength[length].size();
+            }
+        }
+
+        /*
+          匹配超过八分之一时，顺序遍历的代价不超过匹配数量的八倍，而且不需要排序。
+          When more than an eighth of the songs match, a sequential scan costs at most eight times the matches and needs no sort.
+         */
+        if (matches > songs.size() / 8) {
+            IntList positions = new IntList(matches);
+
+            for (int i = 0; i < songs.size(); i++) {
+                int length = songs.get(i).getLength();
+
+                if (length >= minLength && length <= maxLength) {
+                    positions.add(i);
+                }
+            }
+            return positions;
+        }
+        return toPositions(buckets);
+    }
+
+    /**
+     * 返回最长的若干首歌曲的位置，按长度从长到短排列，长度相同时按位置排列。
+     * Return the positions of the longest songs, from longest to shortest, ties in position order.
+     *
+     * @param count 歌曲数量。
+     *              The number of songs.
+     * @return 歌曲位置。
+     *         The positions of the songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.6
+     */
+    int[] longestPositions(int count) {
+        int[] positions = new int[Math.max(0, Math.min(count, rows.size()))];
+        int found = 0;
+
+        for (int length = MAX_LENGTH; length >= MIN_LENGTH && found < positions.length; length--) {
+            IntList bucket = rowsByLength[length];
+
+            for (int i = 0; bucket != null && i < bucket.size() && found < positions.length; i++) {
+                positions[found++] = rows.indexOf(bucket.get(i));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * 返回歌手已验证的歌曲位置。只遍历位集中已设置的位。
+     * Return the positions of the songs whose artist is verified. Only the set bits of the bit set are visited.
+     *
+     * @return 升序排列的歌曲位置。
+     *         The positions of the songs, in ascending order.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.9
+     */
+    IntList positionsFromVerifiedArtists() {
+        return toPositions(verifiedArtistRows);
+    }
+
+    int getSongsFromVerifiedArtists() {
+        return verifiedArtistRows.cardinality();
+    }
+
+    BitSet rowsWithLengthBetween(int minLength, int maxLength) {
+        BitSet matches = new BitSet(nextRow);
+
+        for (int length = Math.max(minLength, MIN_LENGTH); length <= Math.min(maxLength, MAX_LENGTH); length++) {
+            IntList bucket = rowsByLength[length];
+
+            for (int i = 0; bucket != null && i < bucket.size(); i++) {
+                matches.set(bucket.get(i));
+            }
+        }
+        return matches;
+    }
+
+    /*
+      把行的位集转换为升序的歌曲位置；行号和位置同样升序，所以只需同时向前遍历两者，不需要逐个二分查找。
+      Convert a bit set of rows into ascending song positions; rows ascend with the positions, so both are walked forward together
+      instead of binary searching each one.
+     */
+    IntList toPositions(BitSet matchingRows) {
+        IntList positions = new IntList(Math.max(1, matchingRows.cardinality()));
+        int position = 0;
+
+        for (int row = matchingRows.nextSetBit(0); row >= 0; row = matchingRows.nextSetBit(row + 1)) {
+            while (rows.get(position) < row) {
+                position++;
+            }
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    //-------------------------------------
+    //  Row sets, for SongQuery
+    //-------------------------------------
+
+    /*
+      以下方法为查询计划提供每个条件的匹配行：估计数量（不需要建立位集）和行的位集。位集都是新建的，调用者可以修改。
+      The methods below give the query planner the matching rows of each condition: an estimated count (without building a bit set) and a
+      bit set of the rows. Every bit set is new, so the caller may modify it.
+     */
+    int rowCount() {
+        return rows.size();
+    }
+
+    Song songAtRow(int row) {
+        return songsByRow.get(row);
+    }
+
+    BitSet allRows() {
+        return toRows(rows);
+    }
+
+    BitSet verifiedArtistRows() {
+        return (BitSet) verifiedArtistRows.clone();
+    }
+
+    int countLengthBetween(int minLength, int maxLength) {
+        int count = 0;
+
+        for (int length = Math.max(minLength, MIN_LENGTH); length <= Math.min(maxLength, MAX_LENGTH); length++) {
+            count += rowsByLength[length] == null ? 0 : rowsByLength[length].size();
+        }
+        return count;
+    }
+
+    IntList rowsWithSongId(int songId) {
+        return orEmpty(rowsBySongId.get(songId));
+    }
+
+    IntList rowsOfArtist(String artistName) {
+        return orEmpty(rowsByArtist.get(artistName));
+    }
+
+    ArrayList<IntList> rowsOfArtistPrefix(String prefix) {
+        return artistBucketsWithPrefix(prefix);
+    }
+
+    ArrayList<IntList> rowsOfArtistContaining(String text) {
+        return artistBucketsContaining(text);
+    }
+
+    /*
+      名称可能包含 text 的行（还需要用 contains 验证）；text 太短没有三元组时返回 null，表示所有行都是候选。
+      The rows whose name may contain text (still to be verified with contains); null when text is too short to have a trigram, meaning every row is a candidate.
+     */
+    IntList nameCandidateRows(String text) {
+        return text.length() < TrigramIndex.GRAM_LENGTH ? null : nameTrigrams.candidates(text);
+    }
+
+    static BitSet toRows(IntList rowList) {
+        BitSet bits = new BitSet();
+
+        for (int i = 0; i < rowList.size(); i++) {
+            bits.set(rowList.get(i));
+        }
+        return bits;
+    }
+
+    private static IntList orEmpty(IntList bucket) {
+        return bucket == null ? new IntList(1) : bucket;
+    }
+
+    long getTotalLength() {
+        return totalLength;
+    }
+
+    int getShortSongs() {
+        return shortSongs;
+    }
+
+    //-------------------------------------
+    //  SongListener
+    //-------------------------------------
+
+    /*
+      歌曲被直接修改（例如 Driver.updateSong）时，把它的行号移动到新 ID 下。
+      When a song is modified directly (for example by Driver.updateSong), move its rows to the new ID.
+     */
+    @Override
+    public void songIdChanged(Song song, int oldSongId) {
+        IntList bucket = rowsBySongId.get(oldSongId);
+
+        if (bucket == null) {
+            return;
+        }
+
+        for (int row : bucket.toArray()) {
+            if (songsByRow.get(row) == song) {
+                removeRow(rowsBySongId, oldSongId, row);
+                addRow(rowsBySongId, song.getSongId(), row);
+            }
+        }
+    }
+
+    /*
+      歌曲名称被直接修改时，把它的行号移动到新名称下。
+      When a song name is modified directly, move its rows to the new name.
+     */
+    @Override
+    public void songNameChanged(Song song, String oldName) {
+        IntList bucket = rowsByName.get(oldName);
+
+        if (bucket == null) {
+            return;
+        }
+
+        for (int row : bucket.toArray()) {
+            if (songsByRow.get(row) == song) {
+                removeRow(rowsByName, oldName, row);
+                addRow(rowsByName, song.getName(), row);
+                nameTrigrams.remove(row, oldName, null);
+                nameTrigrams.add(row, song.getName(), null);
+            }
+        }
+    }
+
+    /*
+      歌曲的歌手对象被替换时，把一行移动到新歌手下。与 songLengthChanged 一样，每一行各调用一次，所以每次只移动一行，
+      使得每个歌手的引用计数与它的行数一致。新旧歌手同名时行号桶不变，无法区分已经移动的行，所以总是移动第一行，并更新所有行的验证位。
+      When the artist object of a song is replaced, move one row to the new artist. As with songLengthChanged, it is called once per row, so
+      each call moves one row, keeping the reference count of each artist equal to its number of rows. When the old and new artists share a
+      name the row buckets do not change and moved rows cannot be told apart, so the first row is always moved and the verified bits of all
+      rows are updated.
+     */
+    @Override
+    public void songArtistChanged(Song song, Artist oldArtist) {
+        IntList bucket = rowsBySongId.get(song.getSongId());
+
+        if (bucket == null) {
+            return;
+        }
+
+        Artist artist = song.getArtist();
+        String oldName = oldArtist == null ? null : oldArtist.getArtistName();
+        String newName = artist == null ? null : artist.getArtistName();
+        boolean sameName = oldName != null && oldName.equals(newName);
+        IntList oldRows = oldName == null ? null : rowsByArtist.get(oldName);
+        IntList newRows = newName == null ? null : rowsByArtist.get(newName);
+
+        for (int i = 0; i < bucket.size(); i++) {
+            int row = bucket.get(i);
+
+            if (songsByRow.get(row) != song) {
+                continue;
+            }
+
+            boolean moved = newName != null ? newRows != null && newRows.contains(row) : oldRows == null || !oldRows.contains(row);
+
+            if (sameName || !moved) {
+                unindexArtist(row, oldArtist);
+                indexArtist(row, artist);
+                break;
+            }
+        }
+
+        if (sameName) {
+            for (int i = 0; i < bucket.size(); i++) {
+                int row = bucket.get(i);
+
+                if (songsByRow.get(row) == song) {
+                    verifiedArtistRows.set(row, artist.isVerified());
+                }
+            }
+        }
+    }
+
+    /*
+      歌曲长度被直接修改时，移动行号并更新统计数据。每一行各调用一次，所以每次只移动一行。
+      When a song length is modified directly, move the row and update the running totals. It is called once per row, so each call moves one row.
+     */
+    @Override
+    public void songLengthChanged(Song song, int oldLength) {
+        IntList bucket = rowsByLength[clampLength(oldLength)];
+
+        if (bucket == null) {
+            return;
+        }
+
+        for (int row : bucket.toArray()) {
+            if (songsByRow.get(row) == song) {
+                unindexLength(row, oldLength);
+                indexLength(row, song.getLength());
+                return;
+            }
+        }
+    }
+
+    //-------------------------------------
+    //  ArtistListener
+    //-------------------------------------
+
+    /*
+      歌手被改名时（例如 Driver.updateSong），把该歌手的所有行号移动到新名字下。
+      When an artist is renamed (for example by Driver.updateSong), move all of its rows to the new name.
+     */
+    @Override
+    public void artistNameChanged(Artist artist, String oldArtistName) {
+        IntList bucket = rowsByArtist.get(oldArtistName);
+
+        if (bucket == null) {
+            return;
+        }
+
+        for (int row : bucket.toArray()) {
+            if (songsByRow.get(row).getArtist() == artist) {
+                removeRow(rowsByArtist, oldArtistName, row);
+                addRow(rowsByArtist, artist.getArtistName(), row);
+            }
+        }
+    }
+
+    /*
+      歌手的验证状态被修改时（例如 Library.setArtistVerified），更新该歌手所有行的位。
+      When the verified status of an artist is changed (for example by Library.setArtistVerified), update the bits of all of its rows.
+     */
+    @Override
+    public void artistVerifiedChanged(Artist artist) {
+        IntList bucket = rowsByArtist.get(artist.getArtistName());
+
+        if (bucket == null) {
+            return;
+        }
+
+        for (int i = 0; i < bucket.size(); i++) {
+            int row = bucket.get(i);
+
+            if (songsByRow.get(row).getArtist() == artist) {
+                verifiedArtistRows.set(row, artist.isVerified());
+            }
+        }
+    }
+}
+/*
+ * End of controllers.PlaylistIndex Class.
+ */
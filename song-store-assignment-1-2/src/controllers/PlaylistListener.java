@@ -0,0 +1,127 @@
+package controllers;
+
+import models.Song;
+
+/**
+ * 此接口用于监听通过 Playlist 方法进行的修改，例如用于把每次修改写入日志。
+ * This interface listens for changes made through Playlist methods, for example to append each change to a journal.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.1
+ * @since version 6.1
+ */
+public interface PlaylistListener {
+
+    /**
+     * 歌曲被添加到歌单末尾后调用。
+     * Called after a song has been added to the end of the playlist.
+     *
+     * @param playlist 被修改的歌单。
+     *                 The changed playlist.
+     * @param song 添加的歌曲。
+     *             The added song.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    default void songAdded(Playlist playlist, Song song) {
+    }
+
+    /**
+     * 歌曲被 updateSong 替换后调用。
+     * Called after a song has been replaced by updateSong.
+     *
+     * @param playlist 被修改的歌单。
+     *                 The changed playlist.
+     * @param index 歌曲的索引。
+     *              The index of the song.
+     * @param song 新的歌曲。
+     *             The new song.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    default void songUpdated(Playlist playlist, int index, Song song) {
+    }
+
+    /**
+     * 歌曲被删除后调用。
+     * Called after a song has been deleted.
+     *
+     * @param playlist 被修改的歌单。
+     *                 The changed playlist.
+     * @param index 被删除的歌曲原来的索引。
+     *              The index the deleted song had.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    default void songDeleted(Playlist playlist, int index) {
+    }
+
+    /**
+     * 歌曲的 verified 状态被 updateVerifiedStatus 修改后调用。
+     * Called after the verified status of a song has been changed by updateVerifiedStatus.
+     *
+     * @param playlist 被修改的歌单。
+     *                 The changed playlist.
+     * @param index 歌曲的索引。
+     *              The index of the song.
+     * @param verified 新的验证状态。
+     *                 The new verified status.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    default void verifiedStatusUpdated(Playlist playlist, int index, boolean verified) {
+    }
+
+    /**
+     * 通过 addLike 增加点赞后调用。
+     * Called after likes have been added through addLike.
+     *
+     * @param playlist 被修改的歌单。
+     *                 The changed playlist.
+     * @param count 增加的点赞数。
+     *              The number of likes added.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    default void likesAdded(Playlist playlist, int count) {
+    }
+
+    /**
+     * 点赞数被 setLikes 修改后调用。
+     * Called after the likes have been changed by setLikes.
+     *
+     * @param playlist 被修改的歌单。
+     *                 The changed playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    default void likesSet(Playlist playlist) {
+    }
+
+    /**
+     * 歌单名字或描述被修改后调用。
+     * Called after the playlist name or description has been changed.
+     *
+     * @param playlist 被修改的歌单。
+     *                 The changed playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    default void playlistRenamed(Playlist playlist) {
+    }
+
+    /**
+     * 整个 songs 列表被 setSongs 或 setSongSource 替换后调用。
+     * Called after the whole songs list has been replaced by setSongs or setSongSource.
+     *
+     * @param playlist 被修改的歌单。
+     *                 The changed playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    default void songsReplaced(Playlist playlist) {
+    }
+}
+/*
+ * End of controllers.PlaylistListener Interface.
+ */
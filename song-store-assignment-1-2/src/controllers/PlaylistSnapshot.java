@@ -0,0 +1,245 @@
+package controllers;
+
+import models.Artist;
+import models.Song;
+import utils.PersistentList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * 此类是歌单在某一时刻的不可变快照。快照保存歌曲的副本，之后对歌单的修改不会影响它，所以任何线程都可以不加锁地读取，得到一致的结果。
+ * This class is an immutable snapshot of a playlist at one moment. It holds copies of the songs, and later changes to the playlist do not
+ * affect it, so any thread can read it without a lock and get consistent results.
+ *
+ * 歌曲保存在 PersistentList 中。ConcurrentPlaylist 每次写入时在 O(log n) 时间内产生新的版本，新旧版本共用没有改变的部分，所以
+ * ConcurrentPlaylist.snapshot() 是 O(1) 的；Playlist.snapshot() 需要复制全部歌曲。
+ * The songs are kept in a PersistentList. ConcurrentPlaylist produces a new version in O(log n) time on every write, and the versions
+ * share their unchanged parts, so ConcurrentPlaylist.snapshot() is O(1); Playlist.snapshot() has to copy all the songs.
+ *
+ * 报表和列出方法与 Playlist 的同名方法结果相同。返回的 Song 对象是副本，修改它们不会影响快照或歌单。
+ * The report and listing methods give the same results as the Playlist methods of the same name. The Song objects returned are copies, and
+ * changing them affects neither the snapshot nor the playlist.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.3
+ * @since version 7.3
+ * @see Playlist#snapshot()
+ */
+public final class PlaylistSnapshot {
+    private final long version;
+    private final int likes;
+    private final boolean addLikeSet;
+    private final PersistentList<Song> songs;
+
+    /*
+      用快照中的歌曲作为来源的歌单，只供内部使用。它只调用直接读取来源的方法，这些方法不修改任何状态，所以可以被多个线程同时使用。
+      A playlist using the songs of the snapshot as its source, for internal use only. Only methods that read the source directly are
+      called, and they change no state, so it can be used by many threads at once.
+     */
+    private final Playlist view;
+
+    PlaylistSnapshot(long version, String playlistName, String description, int likes, boolean addLikeSet, PersistentList<Song> songs) {
+        this.version = version;
+        this.likes = likes;
+        this.addLikeSet = addLikeSet;
+        this.songs = songs;
+        this.view = new Playlist(playlistName, description);
+        this.view.useStorage(new Source(songs));
+
+        if (addLikeSet) {
+            this.view.setLikes(likes);
+        } else {
+            this.view.addLikes(likes);
+        }
+    }
+
+    /**
+     * 返回快照的版本，即拍摄时歌单的歌曲被修改过的次数。版本相同的快照包含相同的歌曲。
+     * Return the version of the snapshot, that is, how many times the songs of the playlist had been changed when it was taken. Snapshots of
+     * the same version hold the same songs.
+     *
+     * @return 快照的版本。
+     *         The version of the snapshot.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public String getPlaylistName() {
+        return view.getPlaylistName();
+    }
+
+    public String getDescription() {
+        return view.getDescription();
+    }
+
+    public int getLikes() {
+        return likes;
+    }
+
+    public boolean isAddLikeSet() {
+        return addLikeSet;
+    }
+
+    public int numSongs() {
+        return songs.size();
+    }
+
+    public Song findSong(int index) {
+        Song song = view.findSong(index);
+        return song == null ? null : copy(song, new IdentityHashMap<>());
+    }
+
+    public Song findSongByCode(int songCode) {
+        Song song = view.findSongByCode(songCode);
+        return song == null ? null : copy(song, new IdentityHashMap<>());
+    }
+
+    public int numberOfShortSongs() {
+        return view.numberOfShortSongs();
+    }
+
+    public int getTotalPlayListLength() {
+        return view.getTotalPlayListLength();
+    }
+
+    public int getAverageSongLength() {
+        return view.getAverageSongLength();
+    }
+
+    public int numberOfSongsFromVerifiedArtists() {
+        return view.numberOfSongsFromVerifiedArtists();
+    }
+
+    public String listSongs() {
+        return view.listSongs();
+    }
+
+    public String listSongsFromVerifiedArtists() {
+        return view.listSongsFromVerifiedArtists();
+    }
+
+    public String listSongsFromVerifiedArtistsBetween(int minLength, int maxLength) {
+        return view.listSongsFromVerifiedArtistsBetween(minLength, maxLength);
+    }
+
+    public String listSongsLongerThan(int length) {
+        return view.listSongsLongerThan(length);
+    }
+
+    public String listSongsBetween(int minLength, int maxLength) {
+        return view.listSongsBetween(minLength, maxLength);
+    }
+
+    public String listLongestSongs(int count) {
+        return view.listLongestSongs(count);
+    }
+
+    public int writeSongs(Appendable out, int offset, int limit) throws IOException {
+        return view.writeSongs(out, offset, limit);
+    }
+
+    public void writeTo(Appendable out) throws IOException {
+        view.writeTo(out);
+    }
+
+    /**
+     * 复制为普通的歌单，例如用于保存。共用同一个 Artist 对象的歌曲在副本中也共用。
+     * Copy into an ordinary playlist, for example to save it. Songs sharing an Artist object share it in the copy too.
+     *
+     * @return 内容与快照相同的新歌单。
+     *         A new playlist with the same content as the snapshot.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public Playlist toPlaylist() {
+        Playlist copy = new Playlist(getPlaylistName(), getDescription());
+
+        if (addLikeSet) {
+            copy.setLikes(likes);
+        } else {
+            copy.addLikes(likes);
+        }
+
+        copy.setSongs(copies(songs));
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return view.toString();
+    }
+
+    /*
+      复制歌曲及其歌手；artists 记录已经复制过的歌手，使得共用 Artist 对象的歌曲在副本中也共用。
+      Copy the song and its artist; artists records the artists already copied, so songs sharing an Artist object share it in the copies too.
+     */
+    static Song copy(Song song, IdentityHashMap<Artist, Artist> artists) {
+        Artist artist = artists.computeIfAbsent(song.getArtist(), original -> new Artist(original.getArtistName(), original.isVerified()));
+        Song copy = new Song(song.getSongId(), song.getName(), artist, song.getLength());
+        copy.setArtistName(song.getArtistName());
+        copy.setVerified(song.isVerified());
+        return copy;
+    }
+
+    static ArrayList<Song> copies(Iterable<Song> songs) {
+        ArrayList<Song> copies = new ArrayList<>();
+        IdentityHashMap<Artist, Artist> artists = new IdentityHashMap<>();
+
+        for (Song song : songs) {
+            copies.add(copy(song, artists));
+        }
+        return copies;
+    }
+
+    /*
+      快照中的歌曲作为歌单的来源。歌曲已经是副本，不会再被修改，所以直接返回。
+      The songs of the snapshot as the source of a playlist. The songs are already copies that are never changed, so they are returned as they are.
+     */
+    private static class Source implements SongSource {
+        private final PersistentList<Song> songs;
+
+        Source(PersistentList<Song> songs) {
+            this.songs = songs;
+        }
+
+        @Override
+        public int size() {
+            return songs.size();
+        }
+
+        @Override
+        public Song song(int position) {
+            return songs.get(position);
+        }
+
+        /*
+          快照没有编号索引，按顺序查找。
+          A snapshot has no code index, so it searches in order.
+         */
+        @Override
+        public int positionOfCode(int songCode) {
+            int position = 0;
+
+            for (Song song : songs) {
+                if (song.getSongId() == songCode) {
+                    return position;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+        @Override
+        public ArrayList<Song> songs() {
+            return copies(songs);
+        }
+    }
+}
+/*
+ * End of controllers.PlaylistSnapshot Class.
+ */
@@ -0,0 +1,427 @@
+package controllers;
+
+import models.Song;
+import utils.IntList;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * 此类用于组合多个条件查询歌单，例如 "已验证的歌手、长度不小于 240 秒、名称包含 love"：
+ * This class queries a playlist with several conditions combined, for example "verified artists, at least 240 seconds long, name contains love":
+ * <pre>
+ *   playlist.query().fromVerifiedArtists().longerThan(240).nameContains("love").list();
+ * </pre>
+ *
+ * 查询计划先用估计匹配最少的条件从索引取出候选行，再按选择性从高到低处理其他条件：候选行已经很少时逐个检查歌曲，
+ * 否则与该条件的行集合按位与。这样每个条件不需要各自遍历整个歌单。
+ * The query plan takes the candidate rows from the index for the condition estimated to match the fewest songs, then handles the other
+ * conditions from most to least selective: when there are already few candidates, each song is checked, otherwise the candidates are
+ * intersected with the rows of the condition by a bitwise and. So no condition needs its own scan of the whole playlist.
+ *
+ * 查询使用 Playlist 的索引，所以按需读取的歌单（见 Playlist.setSongSource）第一次查询时会取出全部歌曲。
+ * Queries use the index of the Playlist, so a playlist read on demand (see Playlist.setSongSource) takes all its songs on the first query.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.1
+ * @since version 7.0
+ * @see Playlist#query()
+ */
+public class SongQuery {
+
+    /*
+      候选行少于条件估计匹配数量的八分之一时，逐个检查歌曲比建立该条件的位集更快。
+      When the candidates are fewer than an eighth of the matches estimated for a condition, checking each song is faster than building the bit set of that condition.
+     */
+    private static final int CHECK_RATIO = 8;
+
+    private final Playlist playlist;
+    private final ArrayList<Condition> conditions = new ArrayList<>();
+
+    SongQuery(Playlist playlist) {
+        this.playlist = playlist;
+    }
+
+    //-------------------------
+    // CONDITIONS
+    //-------------------------
+
+    public SongQuery fromVerifiedArtists() {
+        return where(new Condition("verified artists") {
+            @Override
+            int estimate(PlaylistIndex index) {
+                return index.getSongsFromVerifiedArtists();
+            }
+
+            @Override
+            BitSet rows(PlaylistIndex index) {
+                return index.verifiedArtistRows();
+            }
+
+            @Override
+            boolean test(Song song) {
+                return song.getArtist() != null && song.getArtist().isVerified();
+            }
+        });
+    }
+
+    /**
+     * 只保留长度不小于 length 的歌曲，与 listSongsLongerThan(int) 相同。
+     * Keep only the songs at least length long, the same as listSongsLongerThan(int).
+     *
+     * @param length 最小长度。
+     *               The minimum length.
+     * @return 这个查询。
+     *         This query.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.0
+     */
+    public SongQuery longerThan(int length) {
+        return lengthBetween(length, Integer.MAX_VALUE);
+    }
+
+    public SongQuery lengthBetween(int minLength, int maxLength) {
+        return where(new Condition("length " + minLength + ".." + maxLength) {
+            @Override
+            int estimate(PlaylistIndex index) {
+                return index.countLengthBetween(minLength, maxLength);
+            }
+
+            @Override
+            BitSet rows(PlaylistIndex index) {
+                return index.rowsWithLengthBetween(minLength, maxLength);
+            }
+
+            @Override
+            boolean test(Song song) {
+                return song.getLength() >= minLength && song.getLength() <= maxLength;
+            }
+        });
+    }
+
+    /**
+     * 只保留名称包含 text 的歌曲。三元组索引给出的候选行还需要逐个验证。
+     * Keep only the songs whose name contains text. The candidate rows from the trigram index still have to be verified one by one.
+     *
+     * @param text 要搜索的字符串。
+     *             The string to search for.
+     * @return 这个查询。
+     *         This query.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.0
+     */
+    public SongQuery nameContains(String text) {
+        return where(new Condition("name contains '" + text + "'") {
+            @Override
+            int estimate(PlaylistIndex index) {
+                IntList candidates = index.nameCandidateRows(text);
+                return candidates == null ? index.rowCount() : candidates.size();
+            }
+
+            @Override
+            BitSet rows(PlaylistIndex index) {
+                IntList candidates = index.nameCandidateRows(text);
+                return candidates == null ? index.allRows() : PlaylistIndex.toRows(candidates);
+            }
+
+            @Override
+            boolean test(Song song) {
+                return song.getName().contains(text);
+            }
+
+            @Override
+            boolean isExact() {
+                return false;
+            }
+        });
+    }
+
+    public SongQuery byArtist(String artistName) {
+        return where(new Condition("artist '" + artistName + "'") {
+            @Override
+            int estimate(PlaylistIndex index) {
+                return index.rowsOfArtist(artistName).size();
+            }
+
+            @Override
+            BitSet rows(PlaylistIndex index) {
+                return PlaylistIndex.toRows(index.rowsOfArtist(artistName));
+            }
+
+            @Override
+            boolean test(Song song) {
+                return song.getArtist() != null && song.getArtist().getArtistName().equals(artistName);
+            }
+        });
+    }
+
+    public SongQuery artistStartsWith(String prefix) {
+        return where(new Condition("artist starts with '" + prefix + "'") {
+            @Override
+            int estimate(PlaylistIndex index) {
+                return size(index.rowsOfArtistPrefix(prefix));
+            }
+
+            @Override
+            BitSet rows(PlaylistIndex index) {
+                return toRows(index.rowsOfArtistPrefix(prefix));
+            }
+
+            @Override
+            boolean test(Song song) {
+                return song.getArtist() != null && song.getArtist().getArtistName().startsWith(prefix);
+            }
+        });
+    }
+
+    public SongQuery artistContains(String text) {
+        return where(new Condition("artist contains '" + text + "'") {
+            @Override
+            int estimate(PlaylistIndex index) {
+                return size(index.rowsOfArtistContaining(text));
+            }
+
+            @Override
+            BitSet rows(PlaylistIndex index) {
+                return toRows(index.rowsOfArtistContaining(text));
+            }
+
+            @Override
+            boolean test(Song song) {
+                return song.getArtist() != null && song.getArtist().getArtistName().contains(text);
+            }
+        });
+    }
+
+    public SongQuery withCode(int songCode) {
+        return where(new Condition("code " + songCode) {
+            @Override
+            int estimate(PlaylistIndex index) {
+                return index.rowsWithSongId(songCode).size();
+            }
+
+            @Override
+            BitSet rows(PlaylistIndex index) {
+                return PlaylistIndex.toRows(index.rowsWithSongId(songCode));
+            }
+
+            @Override
+            boolean test(Song song) {
+                return song.getSongId() == songCode;
+            }
+        });
+    }
+
+    private SongQuery where(Condition condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    //-------------------------
+    // RESULTS
+    //-------------------------
+
+    /**
+     * 返回满足所有条件的歌曲位置。
+     * Return the positions of the songs matching every condition.
+     *
+     * @return 升序排列的歌曲位置。
+     *         The positions of the songs, in ascending order.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.0
+     */
+    public IntList positions() {
+        return playlist.read(() -> {
+            PlaylistIndex index = playlist.index();
+            return index.toPositions(run(index, null));
+        });
+    }
+
+    public ArrayList<Song> songs() {
+        return playlist.read(() -> {
+            IntList positions = positions();
+            ArrayList<Song> songs = new ArrayList<>(positions.size());
+
+            for (int i = 0; i < positions.size(); i++) {
+                songs.add(playlist.findSong(positions.get(i)));
+            }
+            return songs;
+        });
+    }
+
+    public int count() {
+        return playlist.read(() -> run(playlist.index(), null).cardinality());
+    }
+
+    /**
+     * 列出满足所有条件的歌曲，格式与 listSongsFromVerifiedArtists() 相同。
+     * List the songs matching every condition, in the same format as listSongsFromVerifiedArtists().
+     *
+     * @return 由匹配的歌曲组成的字符串。
+     *         The string composed of the matching songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.0
+     */
+    public String list() {
+        return playlist.read(() -> {
+            if (playlist.numSongs() == 0) {
+                return "No songs in playlist.";
+            }
+
+            IntList positions = positions();
+
+            if (positions.isEmpty()) {
+                return "No songs match the query.";
+            }
+
+            StringBuilder builder = new StringBuilder();
+
+            for (int i = 0; i < positions.size(); i++) {
+                builder.append(positions.get(i)).append(": ").append(playlist.findSong(positions.get(i))).append("\n");
+            }
+            return builder.toString().trim();
+        });
+    }
+
+    /**
+     * 执行查询并描述查询计划的每一步：从哪个条件开始、每个其他条件是求交集还是逐个检查，以及每步之后剩下的行数。
+     * Run the query and describe each step of its plan: which condition it starts from, whether each other condition is intersected or
+     * checked one by one, and how many rows are left after each step.
+     *
+     * @return 查询计划的描述，每步一行。
+     *         The description of the query plan, one line per step.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.0
+     */
+    public String explain() {
+        StringBuilder plan = new StringBuilder();
+        playlist.read(() -> run(playlist.index(), plan));
+        return plan.toString().trim();
+    }
+
+    /*
+      按计划执行查询，返回匹配的行；plan 不为 null 时写出每一步。
+      Run the query by its plan and return the matching rows; each step is written to plan when it is not null.
+     */
+    private BitSet run(PlaylistIndex index, StringBuilder plan) {
+        if (conditions.isEmpty()) {
+            BitSet all = index.allRows();
+            step(plan, "scan all songs", all);
+            return all;
+        }
+
+        ArrayList<Planned> steps = new ArrayList<>(conditions.size());
+
+        for (Condition condition : conditions) {
+            steps.add(new Planned(condition, condition.estimate(index)));
+        }
+        steps.sort(Comparator.comparingInt(step -> step.estimate));
+
+        Condition first = steps.get(0).condition;
+        BitSet candidates = first.rows(index);
+        ArrayList<Condition> unverified = new ArrayList<>();
+        step(plan, "index " + first.description + " (estimated " + steps.get(0).estimate + ")", candidates);
+
+        if (!first.isExact()) {
+            unverified.add(first);
+        }
+
+        for (int i = 1; i < steps.size() && !candidates.isEmpty(); i++) {
+            Planned step = steps.get(i);
+
+            if ((long) candidates.cardinality() * CHECK_RATIO <= step.estimate) {
+                check(index, candidates, step.condition);
+                step(plan, "check " + step.condition.description, candidates);
+            } else {
+                candidates.and(step.condition.rows(index));
+                step(plan, "intersect " + step.condition.description + " (estimated " + step.estimate + ")", candidates);
+
+                if (!step.condition.isExact()) {
+                    unverified.add(step.condition);
+                }
+            }
+        }
+
+        for (Condition condition : unverified) {
+            if (!candidates.isEmpty()) {
+                check(index, candidates, condition);
+                step(plan, "verify " + condition.description, candidates);
+            }
+        }
+        return candidates;
+    }
+
+    private static void check(PlaylistIndex index, BitSet candidates, Condition condition) {
+        for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+            if (!condition.test(index.songAtRow(row))) {
+                candidates.clear(row);
+            }
+        }
+    }
+
+    private static void step(StringBuilder plan, String description, BitSet rows) {
+        if (plan != null) {
+            plan.append(description).append(" -> ").append(rows.cardinality()).append(" rows\n");
+        }
+    }
+
+    private static int size(ArrayList<IntList> buckets) {
+        int size = 0;
+
+        for (IntList bucket : buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    private static BitSet toRows(ArrayList<IntList> buckets) {
+        BitSet rows = new BitSet();
+
+        for (IntList bucket : buckets) {
+            for (int i = 0; i < bucket.size(); i++) {
+                rows.set(bucket.get(i));
+            }
+        }
+        return rows;
+    }
+
+    /*
+      一个查询条件：估计匹配的行数、从索引取出匹配的行，以及检查一首歌曲。
+      A query condition: estimates the matching rows, takes the matching rows from the index, and checks one song.
+     */
+    private abstract static class Condition {
+        final String description;
+
+        Condition(String description) {
+            this.description = description;
+        }
+
+        abstract int estimate(PlaylistIndex index);
+
+        abstract BitSet rows(PlaylistIndex index);
+
+        abstract boolean test(Song song);
+
+        /*
+          rows 返回的是否正好是匹配的行；否则只是候选行，还需要用 test 验证。
+          Whether rows returns exactly the matching rows; otherwise they are only candidates still to be verified with test.
+         */
+        boolean isExact() {
+            return true;
+        }
+    }
+
+    private static class Planned {
+        final Condition condition;
+        final int estimate;
+
+        Planned(Condition condition, int estimate) {
+            this.condition = condition;
+            this.estimate = estimate;
+        }
+    }
+}
+/*
+ * End of controllers.SongQuery Class.
+ */
@@ -0,0 +1,103 @@
+package controllers;
+
+import models.Song;
+
+import java.util.ArrayList;
+
+/**
+ * 此接口表示按需读取歌曲的来源（例如内存映射的歌曲文件）。歌单可以先使用它回答按位置、按编号的查找和分页列出，
+ * 直到其他操作需要完整的 songs ArrayList 时，才一次性取出全部歌曲。
+ * This interface is a source that reads songs on demand (for example, a memory-mapped song file). A playlist can answer lookups by position
+ * and by code and list pages from it, and only takes all the songs at once when another operation needs the full songs ArrayList.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.8
+ * @since version 6.0
+ */
+public interface SongSource {
+
+    /**
+     * 返回歌曲数量。
+     * Return the number of songs.
+     *
+     * @return 歌曲数量。
+     *         The number of songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    int size();
+
+    /**
+     * 返回位置上的歌曲。只要调用者还引用返回的 Song 对象，或者它被修改过，之后返回的仍是这个对象，所以对它的修改总会保留下来；
+     * 没有被引用、也没有修改过的歌曲可以被丢弃，之后重新读取为新的对象。
+     * Return the song at the position. As long as a caller still holds the returned Song object, or it has been changed, that object is
+     * returned from then on, so changes to it are always kept; a song that is neither held nor changed may be dropped and read again
+     * later as a new object.
+     *
+     * @param position 歌曲的位置。
+     *                 The position of the song.
+     * @return 位置上的歌曲。
+     *         The song at the position.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    Song song(int position);
+
+    /**
+     * 返回第一首编号为 songCode 的歌曲的位置。
+     * Return the position of the first song whose code is songCode.
+     *
+     * @param songCode 歌曲编号。
+     *                 The song code.
+     * @return 歌曲的位置，不存在时返回 -1。
+     *         The position of the song, or -1 if there is none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    int positionOfCode(int songCode);
+
+    /**
+     * 返回位置上歌曲的长度。报表方法用它遍历歌单，不需要为每首歌曲创建 Song 对象；默认通过 song(int) 读取。
+     * Return the length of the song at the position. The report methods use it to go through the playlist without creating a Song object
+     * for each song; by default it is read through song(int).
+     *
+     * @param position 歌曲的位置。
+     *                 The position of the song.
+     * @return 歌曲的长度。
+     *         The length of the song.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.8
+     */
+    default int length(int position) {
+        return song(position).getLength();
+    }
+
+    /**
+     * 返回位置上歌曲的歌手是否已验证，用途与 length(int) 相同。
+     * Return whether the artist of the song at the position is verified, for the same use as length(int).
+     *
+     * @param position 歌曲的位置。
+     *                 The position of the song.
+     * @return 歌手是否已验证。
+     *         Whether the artist is verified.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.8
+     */
+    default boolean isArtistVerified(int position) {
+        return song(position).getArtist().isVerified();
+    }
+
+    /**
+     * 取出全部歌曲。调用之后不再使用这个来源。
+     * Take all the songs. The source is not used after this call.
+     *
+     * @return 全部歌曲。
+     *         All the songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    ArrayList<Song> songs();
+}
+/*
+ * End of controllers.SongSource Interface.
+ */
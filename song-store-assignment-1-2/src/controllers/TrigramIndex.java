@@ -0,0 +1,112 @@
+package controllers;
+
+import utils.IntHashMap;
+import utils.IntList;
+
+/**
+ * 此类用于维护歌曲名称的三元组（trigram）索引，在 searchSongsByName 验证 contains 之前缩小候选歌曲的范围。
+ * This class maintains a trigram index over song names, narrowing the candidate songs before searchSongsByName verifies contains.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.4
+ * @since version 5.3
+ */
+class TrigramIndex {
+
+    /*
+      查询短于该长度时，没有三元组可用，需要调用者自行遍历。
+      Queries shorter than this have no trigram, so the caller has to scan instead.
+     */
+    static final int GRAM_LENGTH = 3;
+
+    private final IntHashMap<IntList> rowsByGram = new IntHashMap<>();
+
+    /**
+     * 把名称中的每个三元组与行号关联。
+     * Associate every trigram of the name with the row.
+     *
+     * @param row 行号。
+     *            The row.
+     * @param name 歌曲名称。
+     *             The song name.
+     * @param edits 一批修改中收集增删的对象，不在一批修改中时为 null（见 BucketEdits）。
+     *              Collects the changes during a batch, or null outside a batch (see BucketEdits).
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.3
+     */
+    void add(int row, String name, BucketEdits edits) {
+        for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+            int gram = gram(name, i);
+            IntList bucket = rowsByGram.get(gram);
+
+            if (bucket == null) {
+                bucket = new IntList(1);
+                rowsByGram.put(gram, bucket);
+            }
+            PlaylistIndex.addRow(bucket, row, edits);
+        }
+    }
+
+    /**
+     * 删除名称中每个三元组与行号的关联。
+     * Remove the association between every trigram of the name and the row.
+     *
+     * @param row 行号。
+     *            The row.
+     * @param name 歌曲名称。
+     *             The song name.
+     * @param edits 一批修改中收集增删的对象，不在一批修改中时为 null（见 BucketEdits）。
+     *              Collects the changes during a batch, or null outside a batch (see BucketEdits).
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.3
+     */
+    void remove(int row, String name, BucketEdits edits) {
+        for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+            int gram = gram(name, i);
+            IntList bucket = rowsByGram.get(gram);
+
+            if (bucket != null) {
+                PlaylistIndex.removeRow(bucket, row, () -> rowsByGram.remove(gram), edits);
+            }
+        }
+    }
+
+    /**
+     * 返回可能包含查询字符串的行号：取查询中最少歌曲的三元组。结果仍需用 contains 验证。
+     * Return the rows that may contain the query: those of the query's rarest trigram. The result still has to be verified with contains.
+     *
+     * @param query 查询字符串，长度至少为 GRAM_LENGTH。
+     *              The query, at least GRAM_LENGTH characters long.
+     * @return 升序排列的候选行号。
+     *         The candidate rows, in ascending order.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.3
+     */
+    IntList candidates(String query) {
+        IntList rarest = null;
+
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            IntList bucket = rowsByGram.get(gram(query, i));
+
+            if (bucket == null) {
+                return new IntList(1);
+            }
+
+            if (rarest == null || bucket.size() < rarest.size()) {
+                rarest = bucket;
+            }
+        }
+        return rarest;
+    }
+
+    /*
+      把三个字符合并为一个 int 键。字符小于 1024 时键是唯一的，其他字符的冲突只会多出候选歌曲，不会影响结果。
+      Pack three characters into one int key. Keys are unique for characters below 1024; collisions elsewhere only add candidates, never change results.
+     */
+    private static int gram(String text, int start) {
+        return (text.charAt(start) << 20) ^ (text.charAt(start + 1) << 10) ^ text.charAt(start + 2);
+    }
+}
+/*
+ * End of controllers.TrigramIndex Class.
+ */
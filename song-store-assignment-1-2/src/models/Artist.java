@@ -1,11 +1,13 @@
 package models;
 
+import java.util.ArrayList;
+
 /**
  * 此类用于创建并存储歌手对象。
  * This class is used to create and store artist objects.
  *
  * @author Fan Xinkang, Xu Shiyi, Lu Siyu
- * @version 5.0
+ * @version 6.9
  * @since version 3.0
  */
 public class Artist {
@@ -26,6 +28,12 @@ public class Artist {
     //     Default is false.
     private boolean verified = false;
 
+    /*
+      监听歌手修改的歌单索引。使用 transient，使得 XStream 不会把它保存到 Store.xml 中。
+      Playlist indexes listening for changes to this artist. It is transient, so XStream does not save it to Store.xml.
+     */
+    private transient ArrayList<ArtistListener> listeners;
+
     //TODO Add the constructor, Artist(String, boolean), that adheres to the above validation rules.
     /**
      * 构造函数，将 artistName 和 verified 作为参数传入 Artist。
@@ -53,6 +61,8 @@ public class Artist {
     }
 
     public void setArtistName(String artistName) {
+        String oldArtistName = this.artistName;
+
         if (!artistNameSet) {
             if (artistName.length() <= 15) {
                 this.artistName = artistName;
@@ -65,6 +75,12 @@ public class Artist {
                 this.artistName = artistName;
             }
         }
+
+        if (listeners != null && !this.artistName.equals(oldArtistName)) {
+            for (ArtistListener listener : listenersCopy()) {
+                listener.artistNameChanged(this, oldArtistName);
+            }
+        }
     }
 
     public boolean isVerified() {
@@ -72,7 +88,54 @@ public class Artist {
     }
 
     public void setVerified(boolean verified) {
+        boolean oldVerified = this.verified;
         this.verified = verified;
+
+        if (listeners != null && verified != oldVerified) {
+            for (ArtistListener listener : listenersCopy()) {
+                listener.artistVerifiedChanged(this);
+            }
+        }
+    }
+
+    /**
+     * 注册歌手监听器。
+     * Register an artist listener.
+     *
+     * @param listener 歌手监听器。
+     *                 The artist listener.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.4
+     */
+    public void addArtistListener(ArtistListener listener) {
+        if (listeners == null) {
+            listeners = new ArrayList<>(1);
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * 注销歌手监听器。
+     * Remove an artist listener.
+     *
+     * @param listener 歌手监听器。
+     *                 The artist listener.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.4
+     */
+    public void removeArtistListener(ArtistListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /*
+      监听器的副本。监听器可能在被调用时注销自己（例如 ArtistRegistry 在新名字已经被占用时），所以遍历副本，使得后面的监听器不会被跳过。
+      A copy of the listeners. A listener may remove itself while it is called (ArtistRegistry does when the new name is already taken),
+      so the copy is iterated, and the listeners after it are not skipped.
+     */
+    private ArtistListener[] listenersCopy() {
+        return listeners.toArray(new ArtistListener[0]);
     }
 
     //TODO Add a generated equals method.
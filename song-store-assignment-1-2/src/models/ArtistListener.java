@@ -0,0 +1,41 @@
+package models;
+
+/**
+ * 此接口用于监听歌手字段的修改，使得歌单的索引在歌手被直接修改时仍保持一致。
+ * This interface listens for changes to artist fields, so that playlist indexes stay consistent when an artist is modified directly.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.9
+ * @since version 5.4
+ */
+public interface ArtistListener {
+
+    /**
+     * 歌手名字被修改后调用。
+     * Called after the artist name has been changed.
+     *
+     * @param artist 被修改的歌手。
+     *               The changed artist.
+     * @param oldArtistName 修改前的歌手名字。
+     *                      The artist name before the change.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.4
+     */
+    default void artistNameChanged(Artist artist, String oldArtistName) {
+    }
+
+    /**
+     * 歌手的验证状态被修改后调用。
+     * Called after the verified status of the artist has been changed.
+     *
+     * @param artist 被修改的歌手。
+     *               The changed artist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.9
+     */
+    default void artistVerifiedChanged(Artist artist) {
+    }
+}
+/*
+ * End of models.ArtistListener Interface.
+ */
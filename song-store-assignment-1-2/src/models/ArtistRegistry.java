@@ -0,0 +1,134 @@
+package models;
+
+import java.util.HashMap;
+
+/**
+ * 此类按名字保存共用的 Artist 对象（享元）：同名的歌手只创建一个对象，所以歌手数据占用的内存随不同歌手的数量增长，而不是随歌曲数量增长，
+ * 修改一个歌手的验证状态也只需修改一个对象。
+ * This class keeps shared Artist objects by name (flyweights): only one object is created per artist name, so the memory used by artist
+ * data grows with the number of distinct artists rather than the number of songs, and changing the verified status of an artist changes
+ * one object.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.6
+ * @since version 6.6
+ */
+public class ArtistRegistry implements ArtistListener {
+    private final HashMap<String, Artist> artists = new HashMap<>();
+
+    /**
+     * 返回这个名字的共用歌手；还没有时用给定的验证状态创建。已有的歌手保持自己的验证状态。
+     * Return the shared artist with this name, creating it with the given verified status if there is none yet. An existing artist keeps its own verified status.
+     *
+     * @param artistName 歌手名字，超过 15 个字符时与 Artist 一样截断。
+     *                   The artist name, truncated like Artist does when it is longer than 15 characters.
+     * @param verified 新建歌手时的验证状态。
+     *                 The verified status when the artist is created.
+     * @return 共用的歌手。
+     *         The shared artist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.6
+     */
+    public Artist intern(String artistName, boolean verified) {
+        Artist artist = artists.get(artistName);
+        return artist != null ? artist : intern(new Artist(artistName, verified));
+    }
+
+    /**
+     * 返回与这个歌手同名的共用歌手；还没有时，这个歌手成为共用歌手。
+     * Return the shared artist with the same name as this artist; if there is none yet, this artist becomes the shared one.
+     *
+     * @param artist 歌手。
+     *               The artist.
+     * @return 共用的歌手。
+     *         The shared artist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.6
+     */
+    public Artist intern(Artist artist) {
+        Artist shared = artists.get(artist.getArtistName());
+
+        if (shared == null) {
+            artists.put(artist.getArtistName(), artist);
+            artist.addArtistListener(this);
+            shared = artist;
+        }
+        return shared;
+    }
+
+    /**
+     * 使用共用的歌手创建歌曲。共用歌手的验证状态不同时，歌曲使用一个新的、不共用的歌手，使得传入的状态不会丢失。
+     * Create a song with the shared artist. When the shared artist has a different verified status, the song gets a new artist that is
+     * not shared, so the status passed in is not lost.
+     *
+     * @param songId 歌曲ID。
+     *               Song ID.
+     * @param name 歌曲名称。
+     *             Song name.
+     * @param artistName 歌手的名字。
+     *                   Artist name.
+     * @param verified 歌手的验证状态。
+     *                 The verified status of the artist.
+     * @param length 歌曲长度。
+     *               Song length.
+     * @return 新的歌曲。
+     *         The new song.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.6
+     */
+    public Song newSong(int songId, String name, String artistName, boolean verified, int length) {
+        Artist artist = intern(artistName, verified);
+        return new Song(songId, name, artist.isVerified() == verified ? artist : new Artist(artistName, verified), length);
+    }
+
+    public Artist find(String artistName) {
+        return artists.get(artistName);
+    }
+
+    /**
+     * 修改共用歌手的验证状态；使用这个歌手的每首歌曲都会看到新的状态。
+     * Change the verified status of a shared artist; every song using this artist sees the new status.
+     *
+     * @param artistName 歌手名字。
+     *                   The artist name.
+     * @param verified 新的验证状态。
+     *                 The new verified status.
+     * @return 是否有这个歌手。
+     *         Whether the artist exists.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.6
+     */
+    public boolean setVerified(String artistName, boolean verified) {
+        Artist artist = artists.get(artistName);
+
+        if (artist == null) {
+            return false;
+        }
+        artist.setVerified(verified);
+        return true;
+    }
+
+    public int size() {
+        return artists.size();
+    }
+
+    /*
+      共用歌手的名字被直接修改时，更新它的键；新的名字已经被占用时，这个歌手不再被共用。
+      When the name of a shared artist is changed directly, re-key it; if the new name is already taken, the artist is no longer shared.
+     */
+    @Override
+    public void artistNameChanged(Artist artist, String oldArtistName) {
+        if (artists.get(oldArtistName) == artist) {
+            artists.remove(oldArtistName);
+        }
+
+        if (artists.get(artist.getArtistName()) == null) {
+            artists.put(artist.getArtistName(), artist);
+        } else {
+            artist.removeArtistListener(this);
+        }
+    }
+}
+/*
+ * End of models.ArtistRegistry Class.
+ */
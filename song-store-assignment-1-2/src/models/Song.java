@@ -1,5 +1,6 @@
 package models;
 
+import java.util.ArrayList;
 import java.util.Objects;
 
 /**
@@ -49,6 +50,12 @@ public class Song {
     //     Default is 1.
     private int length = 1;
 
+    /*
+      监听歌曲修改的歌单索引。使用 transient，使得 XStream 不会把它保存到 Store.xml 中。
+      Playlist indexes listening for changes to this song. It is transient, so XStream does not save it to Store.xml.
+     */
+    private transient ArrayList<SongListener> listeners;
+
     /*
       题目勘误：修改为 String 类型变量 artistName，用于存储 artistName 字段，使得 SongTest 成功编译。
       Title error: The new string variable artistName is added to store the artistName field, so that SongTest can be successfully compiled.
@@ -78,6 +85,29 @@ public class Song {
         setLength(length);
     }
 
+    /**
+     * 构造函数，使用已有的 Artist 对象，使得同一个歌手的歌曲可以共用一个对象（例如来自 ArtistRegistry）。
+     * Constructor using an existing Artist object, so the songs of one artist can share a single object (for example, from ArtistRegistry).
+     *
+     * @param songId 歌曲ID。
+     *               Song ID.
+     * @param name  歌曲名称。
+     *              Song name.
+     * @param artist 歌手。
+     *               The artist.
+     * @param length 歌曲长度。
+     *               Song length.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.6
+     * @see ArtistRegistry
+     */
+    public Song(int songId, String name, Artist artist, int length) {
+        setSongId(songId);
+        setName(name);
+        setArtist(artist);
+        setLength(length);
+    }
+
     //TODO Add a getter and setter for each field, that adheres to the above validation rules.
     /*
       封装。
@@ -88,8 +118,15 @@ public class Song {
     }
 
     public void setSongId(int songId) {
-        if (songId >= 1000 && songId <= 9999) {
+        if (songId >= 1000 && songId <= 9999 && songId != this.songId) {
+            int oldSongId = this.songId;
             this.songId = songId;
+
+            if (listeners != null) {
+                for (SongListener listener : listenersCopy()) {
+                    listener.songIdChanged(this, oldSongId);
+                }
+            }
         }
     }
 
@@ -98,6 +135,8 @@ public class Song {
     }
 
     public void setName(String name) {
+        String oldName = this.name;
+
         if (!nameSet) {
             if (name.length() <= 20) {
                 this.name = name;
@@ -111,6 +150,12 @@ public class Song {
                 this.name = name;
             }
         }
+
+        if (listeners != null && !this.name.equals(oldName)) {
+            for (SongListener listener : listenersCopy()) {
+                listener.songNameChanged(this, oldName);
+            }
+        }
     }
 
     /*
@@ -122,7 +167,14 @@ public class Song {
     }
 
     public void setArtistName(String artistName) {
+        String oldArtistName = this.artistName;
         this.artistName = artistName;
+
+        if (listeners != null && !Objects.equals(artistName, oldArtistName)) {
+            for (SongListener listener : listenersCopy()) {
+                listener.songArtistNameChanged(this, oldArtistName);
+            }
+        }
     }
 
     public boolean isVerified() {
@@ -130,7 +182,14 @@ public class Song {
     }
 
     public void setVerified(boolean verified) {
+        boolean oldVerified = this.verified;
         this.verified = verified;
+
+        if (listeners != null && verified != oldVerified) {
+            for (SongListener listener : listenersCopy()) {
+                listener.songVerifiedChanged(this);
+            }
+        }
     }
 
     public int getLength() {
@@ -138,8 +197,15 @@ public class Song {
     }
 
     public void setLength(int length) {
-        if (length >= 1 && length <= 600) {
+        if (length >= 1 && length <= 600 && length != this.length) {
+            int oldLength = this.length;
             this.length = length;
+
+            if (listeners != null) {
+                for (SongListener listener : listenersCopy()) {
+                    listener.songLengthChanged(this, oldLength);
+                }
+            }
         }
     }
 
@@ -148,7 +214,54 @@ public class Song {
     }
 
     public void setArtist(Artist artist) {
+        Artist oldArtist = this.artist;
         this.artist = artist;
+
+        if (listeners != null && artist != oldArtist) {
+            for (SongListener listener : listenersCopy()) {
+                listener.songArtistChanged(this, oldArtist);
+            }
+        }
+    }
+
+    /**
+     * 注册歌曲监听器。同一个监听器可以注册多次，每次注册对应歌单中的一个位置。
+     * Register a song listener. The same listener may be registered more than once, once for each position in a playlist.
+     *
+     * @param listener 歌曲监听器。
+     *                 The song listener.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    public void addSongListener(SongListener listener) {
+        if (listeners == null) {
+            listeners = new ArrayList<>(1);
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * 注销一次歌曲监听器的注册。
+     * Remove one registration of a song listener.
+     *
+     * @param listener 歌曲监听器。
+     *                 The song listener.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    public void removeSongListener(SongListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /*
+      监听器的副本。监听器可能在被调用时注销自己（例如 Library 在歌曲 ID 被修改时），所以遍历副本，使得后面的监听器不会被跳过。
+      A copy of the listeners. A listener may remove itself while it is called (Library does when the song ID changes), so the copy is
+      iterated, and the listeners after it are not skipped.
+     */
+    private SongListener[] listenersCopy() {
+        return listeners.toArray(new SongListener[0]);
     }
 
     //TODO Add a generated equals method.
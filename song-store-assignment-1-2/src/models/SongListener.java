@@ -0,0 +1,97 @@
+package models;
+
+/**
+ * 此接口用于监听歌曲字段的修改，使得歌单的索引在歌曲被直接修改时仍保持一致。
+ * This interface listens for changes to song fields, so that playlist indexes stay consistent when a song is modified directly.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.7
+ * @since version 5.1
+ */
+public interface SongListener {
+
+    /**
+     * 歌曲 ID 被修改后调用。
+     * Called after the song ID has been changed.
+     *
+     * @param song 被修改的歌曲。
+     *             The changed song.
+     * @param oldSongId 修改前的歌曲 ID。
+     *                  The song ID before the change.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    default void songIdChanged(Song song, int oldSongId) {
+    }
+
+    /**
+     * 歌曲名称被修改后调用。
+     * Called after the song name has been changed.
+     *
+     * @param song 被修改的歌曲。
+     *             The changed song.
+     * @param oldName 修改前的歌曲名称。
+     *                The song name before the change.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.2
+     */
+    default void songNameChanged(Song song, String oldName) {
+    }
+
+    /**
+     * 歌曲的歌手对象被替换后调用。
+     * Called after the artist object of the song has been replaced.
+     *
+     * @param song 被修改的歌曲。
+     *             The changed song.
+     * @param oldArtist 修改前的歌手。
+     *                  The artist before the change.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.4
+     */
+    default void songArtistChanged(Song song, Artist oldArtist) {
+    }
+
+    /**
+     * 歌曲长度被修改后调用。
+     * Called after the song length has been changed.
+     *
+     * @param song 被修改的歌曲。
+     *             The changed song.
+     * @param oldLength 修改前的歌曲长度。
+     *                  The song length before the change.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.5
+     */
+    default void songLengthChanged(Song song, int oldLength) {
+    }
+
+    /**
+     * 歌曲自己的歌手名字字段被修改后调用。
+     * Called after the artist name field of the song itself has been changed.
+     *
+     * @param song 被修改的歌曲。
+     *             The changed song.
+     * @param oldArtistName 修改前的歌手名字字段。
+     *                      The artist name field before the change.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.7
+     */
+    default void songArtistNameChanged(Song song, String oldArtistName) {
+    }
+
+    /**
+     * 歌曲的验证状态被修改后调用。
+     * Called after the verified status of the song has been changed.
+     *
+     * @param song 被修改的歌曲。
+     *             The changed song.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.7
+     */
+    default void songVerifiedChanged(Song song) {
+    }
+}
+/*
+ * End of models.SongListener Interface.
+ */
@@ -0,0 +1,146 @@
+package persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 此类用于安全地替换文件：先写入同一目录下的临时文件并同步到磁盘，再原子地重命名为目标文件，
+ * 所以中途崩溃时目标文件要么是旧的内容，要么是新的内容，不会是写了一半的文件。替换前可以保留旧文件的滚动备份。
+ * This class replaces files safely: it writes a temporary file in the same directory and syncs it to disk, then atomically renames it over
+ * the target, so a crash part way leaves the target with either the old or the new content, never a half-written file. The old file can be
+ * kept as a rolling backup before it is replaced.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.2
+ * @since version 6.2
+ */
+public class AtomicFile {
+
+    private AtomicFile() {
+    }
+
+    /**
+     * 用于把内容写入输出流。
+     * Used to write the content to an output stream.
+     *
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.2
+     */
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 原子地替换文件的内容。
+     * Replace the content of a file atomically.
+     *
+     * @param file 目标文件。
+     *             The target file.
+     * @param backups 保留的旧文件备份数量：file.1.bak 是最近的一份，file.2.bak 是更早的一份，依此类推。
+     *                The number of backups of the old file to keep: file.1.bak is the most recent, file.2.bak the one before, and so on.
+     * @param writer 写入新内容。
+     *               Writes the new content.
+     * @throws IOException 如果写入失败，则抛出异常，目标文件保持不变。
+     *                     If writing fails, an exception is thrown and the target file is left unchanged.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.2
+     */
+    public static void write(File file, int backups, ContentWriter writer) throws IOException {
+        Path target = file.getAbsoluteFile().toPath();
+        Path directory = target.getParent();
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileOutputStream output = new FileOutputStream(temporary.toFile())) {
+                BufferedOutputStream out = new BufferedOutputStream(output, 1 << 16);
+                writer.write(out);
+                out.flush();
+                output.getChannel().force(true);
+            }
+
+            if (backups > 0 && Files.exists(target)) {
+                rotateBackups(target, backups);
+            }
+            move(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        syncDirectory(directory);
+    }
+
+    /**
+     * 返回文件的第 generation 份备份，1 为最近的一份。
+     * Return backup number generation of a file, where 1 is the most recent.
+     *
+     * @param file 文件。
+     *             The file.
+     * @param generation 备份的序号，从 1 开始。
+     *                   The number of the backup, starting at 1.
+     * @return 备份文件。
+     *         The backup file.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.2
+     */
+    public static File backupFile(File file, int generation) {
+        return new File(file.getPath() + "." + generation + ".bak");
+    }
+
+    /*
+      把每份备份往后移一位，再把当前文件作为最近的一份备份。当前文件通过硬链接保留，所以在新文件替换它之前它一直存在。
+      Move every backup one place back, then keep the current file as the most recent backup. The current file is kept through a hard link,
+      so it exists right up until the new file replaces it.
+     */
+    private static void rotateBackups(Path target, int backups) throws IOException {
+        File file = target.toFile();
+        Files.deleteIfExists(backupFile(file, backups).toPath());
+
+        for (int generation = backups - 1; generation >= 1; generation--) {
+            Path backup = backupFile(file, generation).toPath();
+
+            if (Files.exists(backup)) {
+                move(backup, backupFile(file, generation + 1).toPath());
+            }
+        }
+
+        Path newest = backupFile(file, 1).toPath();
+
+        try {
+            Files.createLink(newest, target);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(target, newest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /*
+      同步目录，使得重命名本身也写入磁盘。有的平台不能打开目录，这时跳过。
+      Sync the directory, so the rename itself reaches the disk. Some platforms cannot open a directory, in which case this is skipped.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 不支持同步目录。 Syncing a directory is not supported.
+        }
+    }
+}
+/*
+ * End of persistence.AtomicFile Class.
+ */
@@ -0,0 +1,308 @@
+package persistence;
+
+import controllers.Playlist;
+import models.Artist;
+import models.Song;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 此类用于以紧凑的二进制格式保存和加载歌单，作为 XStream XML 的替代。
+ * This class saves and loads playlists in a compact binary format, as an alternative to XStream XML.
+ *
+ * 文件结构 / File layout:
+ * <pre>
+ *   magic "SONG" | version (1 byte)
+ *   playlistName | description | likes | artist count | artists... | song count | songs...
+ *   artist: name | verified (1 byte)
+ *   song:   songId | name | artist dictionary index | length | flags (1 byte) [ | artistName ]
+ * </pre>
+ * 整数使用 varint 编码，字符串使用 varint 长度前缀的 UTF-8。
+ * Integers are varint encoded, and strings are UTF-8 with a varint length prefix.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.6
+ * @since version 5.8
+ */
+public class BinaryPlaylistFormat {
+    static final byte[] MAGIC = {'S', 'O', 'N', 'G'};
+    static final int VERSION = 1;
+
+    /*
+      歌曲标志位：Song 自身的 verified 字段，以及 Song.artistName 字段是否存在。
+      Song flag bits: the song's own verified field, and whether the Song.artistName field is present.
+     */
+    private static final int FLAG_VERIFIED = 1;
+    private static final int FLAG_ARTIST_NAME = 2;
+
+    private BinaryPlaylistFormat() {
+    }
+
+    /**
+     * 判断文件开头的字节是否为二进制格式。
+     * Judge whether the bytes at the start of a file are the binary format.
+     *
+     * @param header 文件开头的字节。
+     *               The bytes at the start of the file.
+     * @return 是否为二进制格式。
+     *         Whether it is the binary format.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.8
+     */
+    public static boolean isBinary(byte[] header) {
+        if (header.length < MAGIC.length) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把歌单写入输出流。
+     * Write the playlist to the output stream.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param output 输出流，调用者负责关闭。
+     *               The output stream, closed by the caller.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.8
+     */
+    public static void write(Playlist playlist, OutputStream output) throws IOException {
+        write(playlist, playlist.getLikes(), output);
+    }
+
+    /*
+      写入歌单，点赞数使用给定的值，供 PlaylistJournal 使用：它写入的点赞数要与日志记录一致，而不是其他线程刚刚增加的值。
+      Write the playlist with the given number of likes, for PlaylistJournal: the likes it writes must agree with its records, not with
+      likes other threads have just added.
+     */
+    static void write(Playlist playlist, int likes, OutputStream output) throws IOException {
+        BufferedOutputStream out = new BufferedOutputStream(output, 1 << 16);
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeString(out, playlist.getPlaylistName());
+        writeString(out, playlist.getDescription());
+        writeVarInt(out, likes);
+
+        /*
+          歌手字典：名字和验证状态相同的歌手只保存一次。
+          Artist dictionary: artists with the same name and verified status are saved once.
+         */
+        HashMap<ArtistKey, Integer> dictionary = new HashMap<>();
+        List<ArtistKey> artists = new ArrayList<>();
+        int count = playlist.numSongs();
+        int[] artistIndexes = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            Artist artist = playlist.findSong(i).getArtist();
+            ArtistKey key = new ArtistKey(artist.getArtistName(), artist.isVerified());
+            Integer artistIndex = dictionary.get(key);
+
+            if (artistIndex == null) {
+                artistIndex = artists.size();
+                dictionary.put(key, artistIndex);
+                artists.add(key);
+            }
+            artistIndexes[i] = artistIndex;
+        }
+
+        writeVarInt(out, artists.size());
+
+        for (ArtistKey artist : artists) {
+            writeString(out, artist.name);
+            out.write(artist.verified ? 1 : 0);
+        }
+
+        writeVarInt(out, count);
+
+        for (int i = 0; i < count; i++) {
+            Song song = playlist.findSong(i);
+            int flags = (song.isVerified() ? FLAG_VERIFIED : 0) | (song.getArtistName() != null ? FLAG_ARTIST_NAME : 0);
+
+            writeVarInt(out, song.getSongId());
+            writeString(out, song.getName());
+            writeVarInt(out, artistIndexes[i]);
+            writeVarInt(out, song.getLength());
+            out.write(flags);
+
+            if ((flags & FLAG_ARTIST_NAME) != 0) {
+                writeString(out, song.getArtistName());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 从输入流读取歌单。
+     * Read a playlist from the input stream.
+     *
+     * @param input 输入流，调用者负责关闭。
+     *              The input stream, closed by the caller.
+     * @return 读取的歌单。
+     *         The playlist that was read.
+     * @throws IOException 如果读取失败或格式不正确，则抛出异常。
+     *                     If reading fails or the format is wrong, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.8
+     */
+    public static Playlist read(InputStream input) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input, 1 << 16);
+        byte[] header = in.readNBytes(MAGIC.length);
+
+        if (!isBinary(header)) {
+            throw new IOException("Not a binary playlist file.");
+        }
+
+        int version = in.read();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary playlist version: " + version);
+        }
+
+        Playlist playlist = new Playlist(readString(in), readString(in));
+        playlist.setLikes(readVarInt(in));
+
+        int artistCount = readVarInt(in);
+        Artist[] artists = new Artist[artistCount];
+
+        for (int i = 0; i < artistCount; i++) {
+            String artistName = readString(in);
+            artists[i] = new Artist(artistName, readByte(in) != 0);
+        }
+
+        int songCount = readVarInt(in);
+        ArrayList<Song> songs = new ArrayList<>(songCount);
+
+        for (int i = 0; i < songCount; i++) {
+            int songId = readVarInt(in);
+            String name = readString(in);
+            int artistIndex = readVarInt(in);
+            int length = readVarInt(in);
+            int flags = readByte(in);
+
+            if (artistIndex >= artistCount) {
+                throw new IOException("Corrupt binary playlist: artist index " + artistIndex + " out of range.");
+            }
+
+            /*
+              字典中的每个歌手只创建一个 Artist 对象，由它的所有歌曲共用。
+              Only one Artist object is created for each artist in the dictionary, shared by all of its songs.
+             */
+            Song song = new Song(songId, name, artists[artistIndex], length);
+            song.setVerified((flags & FLAG_VERIFIED) != 0);
+
+            if ((flags & FLAG_ARTIST_NAME) != 0) {
+                song.setArtistName(readString(in));
+            }
+            songs.add(song);
+        }
+
+        playlist.setSongs(songs);
+        return playlist;
+    }
+
+    //-------------------------
+    // ENCODING HELPERS
+    //-------------------------
+
+    static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte(in);
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary playlist: varint too long.");
+    }
+
+    static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(InputStream in) throws IOException {
+        int length = readVarInt(in);
+        byte[] bytes = in.readNBytes(length);
+
+        if (bytes.length != length) {
+            throw new EOFException("Corrupt binary playlist: string truncated.");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+
+        if (b < 0) {
+            throw new EOFException("Corrupt binary playlist: unexpected end of file.");
+        }
+        return b;
+    }
+
+    /*
+      歌手字典的键。
+      Key of the artist dictionary.
+     */
+    private static class ArtistKey {
+        private final String name;
+        private final boolean verified;
+
+        ArtistKey(String name, boolean verified) {
+            this.name = name;
+            this.verified = verified;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+
+            ArtistKey key = (ArtistKey) object;
+            return verified == key.verified && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, verified);
+        }
+    }
+}
+/*
+ * End of persistence.BinaryPlaylistFormat Class.
+ */
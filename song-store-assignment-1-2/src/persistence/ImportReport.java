@@ -0,0 +1,205 @@
+package persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 此类是一次批量导入的结果：读取的行数、添加的歌曲数量、按原因统计的被拒绝行数、最先被拒绝的几行，以及用时和每秒处理的行数。
+ * This class is the result of one bulk import: the rows read, the songs added, the rejected rows counted by reason, the first few
+ * rejected rows, and the time taken and rows processed per second.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.5
+ * @since version 7.5
+ * @see SongImporter
+ */
+public class ImportReport {
+
+    /*
+      最多保存多少条被拒绝的行，用于显示；更多的行只计数。
+      How many rejected rows are kept for display at most; further rows are only counted.
+     */
+    static final int MAX_REJECTIONS = 20;
+
+    /**
+     * 一行被拒绝的原因。
+     * The reasons a row is rejected.
+     *
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.5
+     */
+    public enum Problem {
+
+        /*
+          字段数量不是 5 个，或者引号不匹配。
+          The row does not have 5 fields, or its quotes do not match.
+         */
+        FIELD_COUNT,
+
+        /*
+          歌曲 ID 不是 1000 到 9999 之间的整数。
+          The song ID is not a whole number from 1000 to 9999.
+         */
+        SONG_ID,
+
+        /*
+          歌曲名称为空。
+          The song name is empty.
+         */
+        NAME,
+
+        /*
+          歌手名字为空。
+          The artist name is empty.
+         */
+        ARTIST,
+
+        /*
+          验证状态不是 true/false、yes/no、y/n 或 1/0。
+          The verified status is not true/false, yes/no, y/n or 1/0.
+         */
+        VERIFIED,
+
+        /*
+          歌曲长度不是 1 到 600 之间的整数。
+          The song length is not a whole number from 1 to 600.
+         */
+        LENGTH
+    }
+
+    /**
+     * 一条被拒绝的行：行号（从 1 开始）、原因和原始内容。
+     * A rejected row: its line number (from 1), the reason and the original text.
+     *
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.5
+     */
+    public static class Rejection {
+        private final int lineNumber;
+        private final Problem problem;
+        private final String line;
+
+        Rejection(int lineNumber, Problem problem, String line) {
+            this.lineNumber = lineNumber;
+            this.problem = problem;
+            this.line = line;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public Problem getProblem() {
+            return problem;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + " (" + problem + "): " + line;
+        }
+    }
+
+    private final EnumMap<Problem, Integer> rejectedByProblem = new EnumMap<>(Problem.class);
+    private final ArrayList<Rejection> rejections = new ArrayList<>();
+    private long rows;
+    private long songsAdded;
+    private long elapsedNanos;
+
+    ImportReport() {
+    }
+
+    /*
+      记录一块已解析的行。块按文件顺序加入，所以保存的被拒绝行也按行号排列。
+      Record a chunk of parsed rows. Chunks are recorded in file order, so the rejected rows kept are in line order too.
+     */
+    void record(int chunkRows, int chunkSongsAdded, EnumMap<Problem, Integer> chunkRejected, List<Rejection> chunkRejections) {
+        rows += chunkRows;
+        songsAdded += chunkSongsAdded;
+        chunkRejected.forEach((problem, count) -> rejectedByProblem.merge(problem, count, Integer::sum));
+
+        for (Rejection rejection : chunkRejections) {
+            if (rejections.size() >= MAX_REJECTIONS) {
+                break;
+            }
+            rejections.add(rejection);
+        }
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /*
+      数据行的数量，不包括标题行和空行。
+      The number of data rows, not counting the header and blank lines.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getSongsAdded() {
+        return songsAdded;
+    }
+
+    public long getRejected() {
+        long rejected = 0;
+
+        for (int count : rejectedByProblem.values()) {
+            rejected += count;
+        }
+        return rejected;
+    }
+
+    public int getRejected(Problem problem) {
+        return rejectedByProblem.getOrDefault(problem, 0);
+    }
+
+    public Map<Problem, Integer> getRejectedByProblem() {
+        return Collections.unmodifiableMap(rejectedByProblem);
+    }
+
+    /*
+      最先被拒绝的行，最多 MAX_REJECTIONS 条。
+      The first rejected rows, MAX_REJECTIONS at most.
+     */
+    public List<Rejection> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1e6;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format("Imported %d of %d rows in %.1f ms (%.0f rows/sec), %d rejected",
+                songsAdded, rows, getElapsedMillis(), getRowsPerSecond(), getRejected()));
+
+        if (!rejectedByProblem.isEmpty()) {
+            builder.append(' ').append(rejectedByProblem);
+        }
+
+        for (Rejection rejection : rejections) {
+            builder.append("\n  ").append(rejection);
+        }
+
+        if (getRejected() > rejections.size()) {
+            builder.append("\n  ...");
+        }
+        return builder.toString();
+    }
+}
+/*
+ * End of persistence.ImportReport Class.
+ */
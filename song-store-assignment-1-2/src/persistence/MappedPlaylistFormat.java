@@ -0,0 +1,403 @@
+package persistence;
+
+import controllers.CachedSongSource;
+import controllers.Playlist;
+import models.Song;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 此类用于以定长记录的格式保存歌单，并通过 FileChannel.map 内存映射打开，使得加载时不需要解析或创建每一首歌曲。
+ * This class saves playlists as fixed-size records and opens them memory-mapped through FileChannel.map, so loading does not parse or create every song.
+ *
+ * 文件结构 / File layout (big-endian):
+ * <pre>
+ *   header (44 bytes): magic "SMAP" | version | song count | likes | addLikeSet | playlistName | description
+ *                      | records offset | code index offset | string heap offset | string heap size
+ *   records (20 bytes each): songId | nameRef | artistNameRef | songArtistNameRef | length (short) | flags (byte) | unused (byte)
+ *   code index (8 bytes each): songId | position, sorted by songId then position
+ *   string heap: byte length | UTF-8 bytes, each distinct string stored once
+ * </pre>
+ * 字符串引用是相对于字符串区开头的偏移量，-1 表示 null。
+ * String references are offsets from the start of the string heap, and -1 means null.
+ *
+ * 同样的结构也可以放在堆外内存中（见 moveOffHeap），使得非常大的歌单不在 Java 堆中保存每首歌曲的对象。
+ * The same layout can also be held in off-heap memory (see moveOffHeap), so a very large playlist keeps no per-song objects on the Java heap.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.2
+ * @since version 6.0
+ */
+public class MappedPlaylistFormat {
+    static final byte[] MAGIC = {'S', 'M', 'A', 'P'};
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 44;
+    static final int RECORD_SIZE = 20;
+    static final int CODE_ENTRY_SIZE = 8;
+
+    /*
+      默认最多缓存的歌曲数量。
+      The default maximum number of cached songs.
+     */
+    public static final int DEFAULT_CACHE_SIZE = CachedSongSource.DEFAULT_CACHE_SIZE;
+
+    /*
+      记录中各字段的偏移量。
+      Offsets of the fields in a record.
+     */
+    static final int SONG_ID = 0;
+    static final int NAME = 4;
+    static final int ARTIST_NAME = 8;
+    static final int SONG_ARTIST_NAME = 12;
+    static final int LENGTH = 16;
+    static final int FLAGS = 18;
+
+    /*
+      记录的标志位：Song 自身的 verified 字段，以及歌手的 verified 字段。
+      Record flag bits: the song's own verified field, and the artist's verified field.
+     */
+    static final int FLAG_VERIFIED = 1;
+    static final int FLAG_ARTIST_VERIFIED = 2;
+
+    private MappedPlaylistFormat() {
+    }
+
+    /**
+     * 判断文件开头的字节是否为内存映射格式。
+     * Judge whether the bytes at the start of a file are the memory-mapped format.
+     *
+     * @param header 文件开头的字节。
+     *               The bytes at the start of the file.
+     * @return 是否为内存映射格式。
+     *         Whether it is the memory-mapped format.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    public static boolean isMapped(byte[] header) {
+        return header.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC);
+    }
+
+    /**
+     * 把歌单写入输出流。
+     * Write the playlist to the output stream.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param output 输出流，调用者负责关闭。
+     *               The output stream, closed by the caller.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    public static void write(Playlist playlist, OutputStream output) throws IOException {
+        Image.of(playlist).writeTo(output);
+    }
+
+    /**
+     * 把歌单的歌曲移到堆外内存：按文件的结构写入 ByteBuffer.allocateDirect 分配的缓冲区，之后歌单直接从缓冲区读取。
+     * Java 堆中只保留最近使用的歌曲和被修改过的歌曲，所以无论歌单多大，垃圾回收需要扫描的对象都很少。
+     * Move the songs of the playlist off-heap: they are written in the file layout to a buffer allocated by ByteBuffer.allocateDirect, and
+     * the playlist reads straight from the buffer afterwards. Only recently used and changed songs stay on the Java heap, so however large
+     * the playlist, the garbage collector has few objects to scan.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @throws IOException 如果歌单太大，无法放入一个缓冲区，则抛出异常。
+     *                     If the playlist is too large for one buffer, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.8
+     * @see Playlist#useStorage(controllers.SongSource)
+     */
+    public static void moveOffHeap(Playlist playlist) throws IOException {
+        moveOffHeap(playlist, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * 把歌单的歌曲移到堆外内存，最多缓存 cacheSize 首读取过的歌曲（被修改过的歌曲总是保留）。
+     * Move the songs of the playlist off-heap, caching at most cacheSize songs that have been read (changed songs are always kept).
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param cacheSize 最多缓存的歌曲数量。
+     *                  The maximum number of cached songs.
+     * @throws IOException 如果歌单太大，无法放入一个缓冲区，则抛出异常。
+     *                     If the playlist is too large for one buffer, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.8
+     */
+    public static void moveOffHeap(Playlist playlist, int cacheSize) throws IOException {
+        Image image = Image.of(playlist);
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) image.size());
+
+        image.writeTo(new OutputStream() {
+            @Override
+            public void write(int b) {
+                buffer.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                buffer.put(bytes, offset, length);
+            }
+        });
+        buffer.clear();
+        playlist.useStorage(source(buffer, cacheSize));
+    }
+
+    /**
+     * 以内存映射的方式打开歌单文件。歌曲在第一次使用时才从文件中读取。
+     * Open a playlist file memory-mapped. Songs are read from the file the first time they are used.
+     *
+     * @param file 歌单文件。
+     *             The playlist file.
+     * @return 歌单。
+     *         The playlist.
+     * @throws IOException 如果读取失败或格式不正确，则抛出异常。
+     *                     If reading fails or the format is wrong, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    public static Playlist open(File file) throws IOException {
+        return open(file, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * 以内存映射的方式打开歌单文件，最多缓存 cacheSize 首读取过的歌曲（被修改过的歌曲总是保留）。
+     * Open a playlist file memory-mapped, caching at most cacheSize songs that have been read (changed songs are always kept).
+     *
+     * @param file 歌单文件。
+     *             The playlist file.
+     * @param cacheSize 最多缓存的歌曲数量。
+     *                  The maximum number of cached songs.
+     * @return 歌单。
+     *         The playlist.
+     * @throws IOException 如果读取失败或格式不正确，则抛出异常。
+     *                     If reading fails or the format is wrong, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.4
+     */
+    public static Playlist open(File file, int cacheSize) throws IOException {
+        /*
+          映射在通道关闭后仍然有效。
+          The mapping stays valid after the channel is closed.
+         */
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Playlist file is too large to map: " + file);
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), cacheSize);
+        }
+    }
+
+    /**
+     * 从输入流读取歌单。无法映射时（例如不是文件）先把全部字节读入内存，其余与 open(File) 相同。
+     * Read a playlist from the input stream. When it cannot be mapped (for example, it is not a file), all the bytes are read into memory first; otherwise it is the same as open(File).
+     *
+     * @param input 输入流，调用者负责关闭。
+     *              The input stream, closed by the caller.
+     * @return 歌单。
+     *         The playlist.
+     * @throws IOException 如果读取失败或格式不正确，则抛出异常。
+     *                     If reading fails or the format is wrong, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.0
+     */
+    public static Playlist read(InputStream input) throws IOException {
+        return read(ByteBuffer.wrap(input.readAllBytes()), DEFAULT_CACHE_SIZE);
+    }
+
+    private static Playlist read(ByteBuffer buffer, int cacheSize) throws IOException {
+        MappedSongSource source = source(buffer, cacheSize);
+        Playlist playlist;
+
+        try {
+            playlist = new Playlist(source.string(buffer.getInt(20)), source.string(buffer.getInt(24)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int likes = buffer.getInt(12);
+
+        if (buffer.getInt(16) != 0) {
+            playlist.setLikes(likes);
+        } else {
+            playlist.addLikes(likes);
+        }
+        playlist.setSongSource(source);
+        return playlist;
+    }
+
+    /*
+      检查缓冲区的头部和各部分的偏移量，返回读取其中歌曲的来源。
+      Check the header and section offsets of the buffer, and return a source reading the songs in it.
+     */
+    private static MappedSongSource source(ByteBuffer buffer, int cacheSize) throws IOException {
+        if (buffer.limit() < HEADER_SIZE) {
+            throw new IOException("Corrupt memory-mapped playlist: header truncated.");
+        }
+
+        byte[] header = new byte[MAGIC.length];
+        buffer.get(0, header);
+
+        if (!isMapped(header)) {
+            throw new IOException("Not a memory-mapped playlist file.");
+        }
+
+        int version = buffer.getInt(4);
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported memory-mapped playlist version: " + version);
+        }
+
+        int count = buffer.getInt(8);
+        int recordsOffset = buffer.getInt(28);
+        int codeIndexOffset = buffer.getInt(32);
+        int heapOffset = buffer.getInt(36);
+        int heapSize = buffer.getInt(40);
+
+        if (count < 0 || recordsOffset != HEADER_SIZE
+                || codeIndexOffset != recordsOffset + (long) count * RECORD_SIZE
+                || heapOffset != codeIndexOffset + (long) count * CODE_ENTRY_SIZE
+                || heapOffset + (long) heapSize != buffer.limit()) {
+            throw new IOException("Corrupt memory-mapped playlist: bad section offsets or truncated file.");
+        }
+
+        return new MappedSongSource(buffer, count, recordsOffset, codeIndexOffset, heapOffset, cacheSize);
+    }
+
+    /*
+      按文件结构准备好的歌单：记录、编号索引和字符串区都已经生成，大小已知，可以写入文件或堆外缓冲区。
+      A playlist prepared in the file layout: the records, code index and string heap are built and the size is known, so it can be written
+      to a file or to an off-heap buffer.
+     */
+    private static class Image {
+        private final Playlist playlist;
+        private final int count;
+        private final StringHeap heap = new StringHeap();
+        private final int playlistName;
+        private final int description;
+        private final ByteBuffer records;
+        private final long[] codes;
+        private final long codeIndexOffset;
+        private final long heapOffset;
+
+        private Image(Playlist playlist) throws IOException {
+            this.playlist = playlist;
+            count = playlist.numSongs();
+            playlistName = heap.add(playlist.getPlaylistName());
+            description = heap.add(playlist.getDescription());
+            records = ByteBuffer.allocate(count * RECORD_SIZE);
+            codes = new long[count];
+
+            for (int i = 0; i < count; i++) {
+                Song song = playlist.findSong(i);
+                records.putInt(song.getSongId());
+                records.putInt(heap.add(song.getName()));
+                records.putInt(heap.add(song.getArtist().getArtistName()));
+                records.putInt(heap.add(song.getArtistName()));
+                records.putShort((short) song.getLength());
+                records.put((byte) ((song.isVerified() ? FLAG_VERIFIED : 0) | (song.getArtist().isVerified() ? FLAG_ARTIST_VERIFIED : 0)));
+                records.put((byte) 0);
+
+                /*
+                  编号在高 32 位、位置在低 32 位，排序后即按编号再按位置排列。
+                  Code in the high 32 bits and position in the low 32 bits, so sorting orders by code and then by position.
+                 */
+                codes[i] = (long) song.getSongId() << 32 | i;
+            }
+            Arrays.sort(codes);
+
+            codeIndexOffset = HEADER_SIZE + (long) count * RECORD_SIZE;
+            heapOffset = codeIndexOffset + (long) count * CODE_ENTRY_SIZE;
+
+            if (size() > Integer.MAX_VALUE) {
+                throw new IOException("Playlist is too large for the memory-mapped format.");
+            }
+        }
+
+        static Image of(Playlist playlist) throws IOException {
+            return new Image(playlist);
+        }
+
+        long size() {
+            return heapOffset + heap.size();
+        }
+
+        void writeTo(OutputStream output) throws IOException {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(playlist.getLikes());
+            out.writeInt(playlist.isAddLikeSet() ? 1 : 0);
+            out.writeInt(playlistName);
+            out.writeInt(description);
+            out.writeInt(HEADER_SIZE);
+            out.writeInt((int) codeIndexOffset);
+            out.writeInt((int) heapOffset);
+            out.writeInt(heap.size());
+            out.write(records.array());
+
+            for (long code : codes) {
+                out.writeLong(code);
+            }
+            heap.writeTo(out);
+            out.flush();
+        }
+    }
+
+    /*
+      字符串区：相同的字符串只保存一次。
+      The string heap: each distinct string is stored once.
+     */
+    private static class StringHeap {
+        private final HashMap<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        int add(String value) {
+            if (value == null) {
+                return -1;
+            }
+
+            Integer offset = offsets.get(value);
+
+            if (offset == null) {
+                offset = bytes.size();
+                offsets.put(value, offset);
+
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                bytes.write(utf8.length >>> 24);
+                bytes.write(utf8.length >>> 16);
+                bytes.write(utf8.length >>> 8);
+                bytes.write(utf8.length);
+                bytes.writeBytes(utf8);
+            }
+            return offset;
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            bytes.writeTo(out);
+        }
+    }
+}
+/*
+ * End of persistence.MappedPlaylistFormat Class.
+ */
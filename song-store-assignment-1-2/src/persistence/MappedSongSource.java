@@ -0,0 +1,108 @@
+package persistence;
+
+import controllers.CachedSongSource;
+import models.Song;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 此类从内存映射的歌单文件（或者按同样结构写入的堆外缓冲区）中按需读取歌曲。读取过的歌曲保存在容量有限的缓存中，所以歌单比堆内存大时内存占用也保持不变；
+ * 被修改过的歌曲和还被调用者引用的歌曲不会被丢弃，使得修改不会丢失。
+ * This class reads songs on demand from a memory-mapped playlist file (or an off-heap buffer written in the same layout). Songs that have been read are kept in a cache of bounded size, so memory
+ * use stays flat even for playlists larger than the heap; songs that have been changed or are still held by a caller are never dropped, so no change is lost.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.8
+ * @since version 6.0
+ * @see MappedPlaylistFormat
+ */
+class MappedSongSource extends CachedSongSource {
+    private final ByteBuffer buffer;
+    private final int recordsOffset;
+    private final int codeIndexOffset;
+    private final int heapOffset;
+
+    MappedSongSource(ByteBuffer buffer, int count, int recordsOffset, int codeIndexOffset, int heapOffset, int cacheSize) {
+        super(count, cacheSize);
+        this.buffer = buffer;
+        this.recordsOffset = recordsOffset;
+        this.codeIndexOffset = codeIndexOffset;
+        this.heapOffset = heapOffset;
+    }
+
+    @Override
+    protected Song read(int position) {
+        int record = record(position);
+        int flags = buffer.get(record + MappedPlaylistFormat.FLAGS);
+
+        Song song = new Song(buffer.getInt(record + MappedPlaylistFormat.SONG_ID),
+                string(buffer.getInt(record + MappedPlaylistFormat.NAME)),
+                string(buffer.getInt(record + MappedPlaylistFormat.ARTIST_NAME)),
+                (flags & MappedPlaylistFormat.FLAG_ARTIST_VERIFIED) != 0,
+                buffer.getShort(record + MappedPlaylistFormat.LENGTH));
+        song.setVerified((flags & MappedPlaylistFormat.FLAG_VERIFIED) != 0);
+        song.setArtistName(string(buffer.getInt(record + MappedPlaylistFormat.SONG_ARTIST_NAME)));
+        return song;
+    }
+
+    @Override
+    protected boolean differsFromRecord(Song song, int position) {
+        int record = record(position);
+        int flags = buffer.get(record + MappedPlaylistFormat.FLAGS);
+
+        return differs(song, buffer.getInt(record + MappedPlaylistFormat.SONG_ID),
+                buffer.getShort(record + MappedPlaylistFormat.LENGTH),
+                (flags & MappedPlaylistFormat.FLAG_VERIFIED) != 0,
+                (flags & MappedPlaylistFormat.FLAG_ARTIST_VERIFIED) != 0,
+                string(buffer.getInt(record + MappedPlaylistFormat.NAME)),
+                string(buffer.getInt(record + MappedPlaylistFormat.ARTIST_NAME)),
+                string(buffer.getInt(record + MappedPlaylistFormat.SONG_ARTIST_NAME)));
+    }
+
+    @Override
+    protected int recordLength(int position) {
+        return buffer.getShort(record(position) + MappedPlaylistFormat.LENGTH);
+    }
+
+    @Override
+    protected boolean recordArtistVerified(int position) {
+        return (buffer.get(record(position) + MappedPlaylistFormat.FLAGS) & MappedPlaylistFormat.FLAG_ARTIST_VERIFIED) != 0;
+    }
+
+    @Override
+    protected long codeEntry(int entry) {
+        return buffer.getLong(codeIndexOffset + entry * MappedPlaylistFormat.CODE_ENTRY_SIZE);
+    }
+
+    private int record(int position) {
+        return recordsOffset + position * MappedPlaylistFormat.RECORD_SIZE;
+    }
+
+    String string(int reference) {
+        if (reference == -1) {
+            return null;
+        }
+
+        int offset = heapOffset + reference;
+
+        if (reference < 0 || offset > buffer.limit() - 4) {
+            throw new UncheckedIOException(new IOException("Corrupt memory-mapped playlist: string reference " + reference + " out of range."));
+        }
+
+        int length = buffer.getInt(offset);
+
+        if (length < 0 || length > buffer.limit() - offset - 4) {
+            throw new UncheckedIOException(new IOException("Corrupt memory-mapped playlist: string truncated."));
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+/*
+ * End of persistence.MappedSongSource Class.
+ */
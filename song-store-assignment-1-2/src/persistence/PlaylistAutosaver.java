@@ -0,0 +1,329 @@
+package persistence;
+
+import controllers.Playlist;
+import controllers.PlaylistListener;
+import controllers.PlaylistSnapshot;
+import models.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 此类在后台线程中自动保存歌单。每次修改使版本号加一；第一次修改之后等待一段时间再保存，
+ * 这段时间内的其他修改合并为同一次保存。保存时先在持有歌单锁的情况下取得歌单的快照（见 Playlist.snapshot()），再释放锁、在后台复制并写入文件，
+ * 所以修改歌单的线程最多等待取得快照，不会等待 I/O。ConcurrentPlaylist 的快照不需要复制，修改歌单的线程几乎不需要等待。
+ * This class saves a playlist automatically on a background thread. Every change increments a version number; after the first change
+ * it waits for a while before saving, and other changes in that time are merged into the same save. A save takes a snapshot of the
+ * playlist (see Playlist.snapshot()) while holding the playlist lock, then releases the lock and copies and writes the file in the
+ * background, so a thread changing the playlist waits at most for the snapshot, never for I/O. A snapshot of a ConcurrentPlaylist needs no
+ * copying, so threads changing it hardly wait at all.
+ *
+ * 通过 Playlist 方法进行的修改会被自动发现；直接修改 Song 或 Artist 对象后，应调用 markDirty()。
+ * Changes made through Playlist methods are noticed automatically; call markDirty() after modifying Song or Artist objects directly.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.3
+ * @since version 6.3
+ */
+public class PlaylistAutosaver implements PlaylistListener, AutoCloseable {
+    private final Playlist playlist;
+    private final File file;
+    private final StoreFormat format;
+    private final Lock lock;
+    private final long delayMillis;
+    private final ScheduledExecutorService executor;
+
+    /*
+      version 在每次修改后加一；savedVersion 是最近一次成功保存的版本。
+      version is incremented after every change; savedVersion is the version of the last successful save.
+     */
+    private final AtomicLong version = new AtomicLong();
+    private volatile long savedVersion;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /*
+      统计信息，只在后台线程中修改。
+      Metrics, only changed on the background thread.
+     */
+    private volatile int saves;
+    private volatile long coalescedChanges;
+    private volatile long lastSaveNanos;
+    private volatile long totalSaveNanos;
+    private volatile long maxSaveNanos;
+    private volatile int failedSaves;
+    private volatile IOException lastFailure;
+
+    /**
+     * 创建自动保存服务，并开始监听歌单的修改。
+     * Create the autosave service and start listening for changes to the playlist.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param file 保存的文件。
+     *             The file to save to.
+     * @param format 保存格式。
+     *               The format to save in.
+     * @param lock 修改歌单的线程在修改时持有的锁，取得快照时也持有它。
+     *             The lock held by threads while they change the playlist; it is also held while the snapshot is taken.
+     * @param delayMillis 第一次修改之后等待保存的毫秒数。
+     *                    The number of milliseconds to wait after the first change before saving.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.3
+     */
+    public PlaylistAutosaver(Playlist playlist, File file, StoreFormat format, Lock lock, long delayMillis) {
+        this.playlist = playlist;
+        this.file = file;
+        this.format = format;
+        this.lock = lock;
+        this.delayMillis = delayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "playlist-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        playlist.addPlaylistListener(this);
+    }
+
+    public Playlist getPlaylist() {
+        return playlist;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 记录一次没有经过 Playlist 方法的修改，并安排保存。
+     * Record a change that did not go through Playlist methods, and schedule a save.
+     *
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.3
+     */
+    public void markDirty() {
+        version.incrementAndGet();
+
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::saveQuietly, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 判断是否有还没有保存的修改。
+     * Judge whether there are changes that have not been saved.
+     *
+     * @return 是否有还没有保存的修改。
+     *         Whether there are unsaved changes.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.3
+     */
+    public boolean isDirty() {
+        return version.get() != savedVersion;
+    }
+
+    /**
+     * 立即保存还没有保存的修改，并等待保存完成。
+     * Save the unsaved changes now and wait for the save to finish.
+     *
+     * @throws IOException 如果保存失败，则抛出异常。
+     *                     If saving fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.3
+     */
+    public void flush() throws IOException {
+        try {
+            executor.submit(() -> {
+                save();
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the autosave.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 停止监听歌单，保存还没有保存的修改，然后停止后台线程。
+     * Stop listening to the playlist, save the unsaved changes, then stop the background thread.
+     *
+     * @throws IOException 如果最后一次保存失败，则抛出异常。
+     *                     If the last save fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.3
+     */
+    @Override
+    public void close() throws IOException {
+        playlist.removePlaylistListener(this);
+
+        try {
+            flush();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //-------------------------
+    // METRICS
+    //-------------------------
+
+    public int getSaves() {
+        return saves;
+    }
+
+    /**
+     * 返回被合并到其他保存中的修改数量。
+     * Return the number of changes that were merged into another save.
+     *
+     * @return 被合并的修改数量。
+     *         The number of merged changes.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.3
+     */
+    public long getCoalescedChanges() {
+        return coalescedChanges;
+    }
+
+    public double getLastSaveMillis() {
+        return lastSaveNanos / 1e6;
+    }
+
+    public double getAverageSaveMillis() {
+        return saves == 0 ? 0 : totalSaveNanos / 1e6 / saves;
+    }
+
+    public double getMaxSaveMillis() {
+        return maxSaveNanos / 1e6;
+    }
+
+    public int getFailedSaves() {
+        return failedSaves;
+    }
+
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * 返回自动保存的状态和统计信息。
+     * Return the status and metrics of the autosave.
+     *
+     * @return 自动保存的状态和统计信息。
+     *         The status and metrics of the autosave.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.3
+     */
+    @Override
+    public String toString() {
+        return String.format("Autosave to %s (%s): %s, %d saves, %d changes coalesced, last %.1f ms, average %.1f ms, max %.1f ms, %d failed%s",
+                file.getName(), format, isDirty() ? "unsaved changes" : "up to date", saves, coalescedChanges,
+                getLastSaveMillis(), getAverageSaveMillis(), getMaxSaveMillis(), failedSaves,
+                lastFailure == null ? "" : " (last error: " + lastFailure.getMessage() + ")");
+    }
+
+    //-------------------------
+    // LISTENING
+    //-------------------------
+
+    @Override
+    public void songAdded(Playlist playlist, Song song) {
+        markDirty();
+    }
+
+    @Override
+    public void songUpdated(Playlist playlist, int index, Song song) {
+        markDirty();
+    }
+
+    @Override
+    public void songDeleted(Playlist playlist, int index) {
+        markDirty();
+    }
+
+    @Override
+    public void verifiedStatusUpdated(Playlist playlist, int index, boolean verified) {
+        markDirty();
+    }
+
+    @Override
+    public void likesAdded(Playlist playlist, int count) {
+        markDirty();
+    }
+
+    @Override
+    public void likesSet(Playlist playlist) {
+        markDirty();
+    }
+
+    @Override
+    public void playlistRenamed(Playlist playlist) {
+        markDirty();
+    }
+
+    @Override
+    public void songsReplaced(Playlist playlist) {
+        markDirty();
+    }
+
+    //-------------------------
+    // SAVING
+    //-------------------------
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            // 已经记录在 lastFailure 中，下一次修改时重试。 Already recorded in lastFailure; retried on the next change.
+        }
+    }
+
+    /*
+      只在后台线程中运行。
+      Only runs on the background thread.
+     */
+    private void save() throws IOException {
+        scheduled.set(false);
+        long start = System.nanoTime();
+        PlaylistSnapshot snapshot;
+        long snapshotVersion;
+
+        lock.lock();
+        try {
+            snapshotVersion = version.get();
+
+            if (snapshotVersion == savedVersion) {
+                return;
+            }
+            snapshot = playlist.snapshot();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            PlaylistStore.save(snapshot.toPlaylist(), file, format);
+        } catch (IOException e) {
+            failedSaves++;
+            lastFailure = e;
+            throw e;
+        }
+
+        long nanos = System.nanoTime() - start;
+        coalescedChanges += snapshotVersion - savedVersion - 1;
+        savedVersion = snapshotVersion;
+        saves++;
+        lastSaveNanos = nanos;
+        totalSaveNanos += nanos;
+        maxSaveNanos = Math.max(maxSaveNanos, nanos);
+        lastFailure = null;
+    }
+}
+/*
+ * End of persistence.PlaylistAutosaver Class.
+ */
@@ -0,0 +1,556 @@
+package persistence;
+
+import controllers.Playlist;
+import controllers.PlaylistListener;
+import models.Song;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 此类为歌单维护一个只追加的操作日志：每次通过 Playlist 方法进行的修改（添加、更新、删除、修改验证状态、点赞、改名）
+ * 被编码为一条紧凑的记录，save() 只追加这些记录，所以保存的开销与修改的大小成正比，而不是与歌单的大小成正比。
+ * 日志比快照还大时，或者整个 songs 列表被替换时，save() 会把歌单压缩为新的快照并清空日志。加载时先读取快照，再重放日志。
+ * This class keeps an append-only operation journal for a playlist: every change made through Playlist methods (add, update, delete,
+ * verified status, like, rename) is encoded as one compact record, and save() only appends those records, so the cost of a save is
+ * proportional to the change rather than to the playlist. When the journal grows larger than the snapshot, or the whole songs list is
+ * replaced, save() compacts the playlist into a new snapshot and empties the journal. Loading reads the snapshot and then replays the journal.
+ *
+ * 文件结构 / File layout:
+ * <pre>
+ *   snapshot: BinaryPlaylistFormat
+ *   journal:  magic "SJRN" | version (1 byte) | snapshot length (8 bytes) | snapshot CRC32 (4 bytes) | records...
+ *   record:   payload length (varint) | operation (1 byte) | arguments... | CRC32 of the payload (4 bytes)
+ * </pre>
+ * 日志头记录了对应快照的长度和 CRC32：压缩时如果在写完快照之后、重写日志之前中断，旧日志不再与快照匹配，会被忽略
+ * （它的修改已经包含在快照中）。最后一条记录不完整或校验失败时，只重放它之前的记录。
+ * The journal header records the length and CRC32 of its snapshot: if compaction stops after the snapshot is written but before the
+ * journal is rewritten, the old journal no longer matches the snapshot and is ignored (its changes are already in the snapshot).
+ * If the last record is incomplete or fails its checksum, only the records before it are replayed.
+ *
+ * 注意：只有通过 Playlist 方法进行的修改才会被记录；直接修改 Song 或 Artist 对象后，应调用 compact()。
+ * Note: only changes made through Playlist methods are recorded; call compact() after modifying Song or Artist objects directly.
+ *
+ * 记录、save() 和 compact() 在这个对象的监视器下依次运行，所以歌单可以被多个线程同时修改（例如 ConcurrentPlaylist 的 addLike 不加锁）。
+ * compact() 先取得歌单的读锁（见 Playlist.read），再取得监视器，与在写锁下记录修改的线程顺序相同，所以压缩期间歌曲不会改变，也不会死锁。
+ * 点赞不加锁，可能在记录之前就被计入，所以快照中的点赞数使用日志记录过的值。
+ * Records, save() and compact() run one at a time under the monitor of this object, so the playlist can be changed by several threads
+ * at once (for example, addLike of ConcurrentPlaylist takes no lock). compact() takes the read lock of the playlist (see Playlist.read)
+ * before the monitor, in the same order as threads recording a change under the write lock, so the songs cannot change during
+ * compaction and no deadlock can occur. Likes take no lock and may be counted before they are recorded, so the snapshot holds the
+ * likes as recorded by the journal.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.4
+ * @since version 6.1
+ */
+public class PlaylistJournal implements PlaylistListener {
+    public static final String SNAPSHOT_FILE_NAME = "Store.snapshot";
+    public static final String JOURNAL_FILE_NAME = "Store.journal";
+
+    static final byte[] MAGIC = {'S', 'J', 'R', 'N'};
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = MAGIC.length + 1 + 8 + 4;
+
+    /*
+      日志记录的操作。
+      Operations of the journal records.
+     */
+    private static final int ADD = 1;
+    private static final int UPDATE = 2;
+    private static final int DELETE = 3;
+    private static final int VERIFY = 4;
+    private static final int ADD_LIKES = 5;
+    private static final int SET_LIKES = 6;
+    private static final int RENAME = 7;
+
+    /*
+      歌曲的标志位。
+      Song flag bits.
+     */
+    private static final int FLAG_VERIFIED = 1;
+    private static final int FLAG_ARTIST_VERIFIED = 2;
+    private static final int FLAG_ARTIST_NAME = 4;
+
+    private final Playlist playlist;
+    private final File snapshotFile;
+    private final File journalFile;
+
+    /*
+      还没有写入日志文件的记录。
+      Records not yet written to the journal file.
+     */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private int pendingRecords;
+
+    /*
+      songs 被整个替换后，只能通过新的快照保存。
+      Once songs has been replaced as a whole, it can only be saved through a new snapshot.
+     */
+    private boolean snapshotNeeded;
+    private long snapshotLength;
+
+    /*
+      日志记录过的点赞数，写入快照时使用。
+      The likes as recorded by the journal, written to the snapshot.
+     */
+    private int likes;
+
+    private PlaylistJournal(Playlist playlist, File snapshotFile, File journalFile) {
+        this.playlist = playlist;
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFile;
+        this.likes = playlist.getLikes();
+    }
+
+    /**
+     * 为歌单创建新的快照和空日志，并开始记录它的修改。
+     * Create a new snapshot and an empty journal for the playlist, and start recording its changes.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param snapshotFile 快照文件。
+     *                     The snapshot file.
+     * @param journalFile 日志文件。
+     *                    The journal file.
+     * @return 歌单的日志。
+     *         The journal of the playlist.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    public static PlaylistJournal create(Playlist playlist, File snapshotFile, File journalFile) throws IOException {
+        PlaylistJournal journal = new PlaylistJournal(playlist, snapshotFile, journalFile);
+        journal.compact();
+        playlist.addPlaylistListener(journal);
+        return journal;
+    }
+
+    /**
+     * 读取快照并重放日志，然后继续记录歌单的修改。
+     * Read the snapshot and replay the journal, then keep recording changes to the playlist.
+     *
+     * @param snapshotFile 快照文件。
+     *                     The snapshot file.
+     * @param journalFile 日志文件。
+     *                    The journal file.
+     * @return 歌单的日志，歌单通过 getPlaylist() 获得。
+     *         The journal of the playlist; the playlist is available from getPlaylist().
+     * @throws IOException 如果读取失败或快照格式不正确，则抛出异常。
+     *                     If reading fails or the snapshot format is wrong, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    public static PlaylistJournal open(File snapshotFile, File journalFile) throws IOException {
+        Playlist playlist;
+        CRC32 snapshotCrc = new CRC32();
+        long snapshotLength;
+
+        try (CheckedInputStream input = new CheckedInputStream(new FileInputStream(snapshotFile), snapshotCrc)) {
+            playlist = BinaryPlaylistFormat.read(input);
+            input.transferTo(OutputStream.nullOutputStream());
+            snapshotLength = snapshotFile.length();
+        }
+
+        PlaylistJournal journal = new PlaylistJournal(playlist, snapshotFile, journalFile);
+        journal.snapshotLength = snapshotLength;
+        long validLength = journal.replay(snapshotLength, (int) snapshotCrc.getValue());
+        journal.likes = playlist.getLikes();
+
+        if (validLength < 0) {
+            journal.writeEmptyJournal(snapshotLength, (int) snapshotCrc.getValue());
+        } else if (validLength < journalFile.length()) {
+            /*
+              丢弃不完整的最后一条记录，使得之后追加的记录可以被重放。
+              Drop the incomplete last record, so that records appended later can be replayed.
+             */
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+
+        playlist.addPlaylistListener(journal);
+        return journal;
+    }
+
+    public Playlist getPlaylist() {
+        return playlist;
+    }
+
+    /**
+     * 返回还没有保存的修改数量。
+     * Return the number of changes that have not been saved yet.
+     *
+     * @return 还没有保存的修改数量。
+     *         The number of changes that have not been saved yet.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    public synchronized int getPendingChanges() {
+        return pendingRecords;
+    }
+
+    /**
+     * 保存修改：把新的记录追加到日志文件并同步到磁盘；需要时改为压缩为新的快照。
+     * Save the changes: append the new records to the journal file and sync it to disk, or compact into a new snapshot when needed.
+     *
+     * @return 追加的记录数量；压缩时返回 -1。
+     *         The number of records appended, or -1 if the journal was compacted.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    public int save() throws IOException {
+        synchronized (this) {
+            if (!snapshotNeeded && journalFile.length() + pending.size() <= Math.max(snapshotLength, HEADER_SIZE + 4096)) {
+                int appended = pendingRecords;
+
+                if (appended > 0) {
+                    try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                        ByteBuffer records = ByteBuffer.wrap(pending.toByteArray());
+
+                        while (records.hasRemaining()) {
+                            channel.write(records);
+                        }
+                        channel.force(false);
+                    }
+                    pending.reset();
+                    pendingRecords = 0;
+                }
+                return appended;
+            }
+        }
+
+        /*
+          compact() 要先取得歌单的读锁，所以在监视器之外调用。
+          compact() has to take the read lock of the playlist first, so it is called outside the monitor.
+         */
+        compact();
+        return -1;
+    }
+
+    /**
+     * 把整个歌单写成新的快照，并清空日志。
+     * Write the whole playlist as a new snapshot and empty the journal.
+     *
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    public void compact() throws IOException {
+        try {
+            playlist.read(() -> {
+                synchronized (this) {
+                    try {
+                        writeSnapshot();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 停止记录歌单的修改。
+     * Stop recording changes to the playlist.
+     *
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.1
+     */
+    public void detach() {
+        playlist.removePlaylistListener(this);
+    }
+
+    //-------------------------
+    // RECORDING
+    //-------------------------
+
+    @Override
+    public void songAdded(Playlist playlist, Song song) {
+        record(out -> {
+            out.write(ADD);
+            writeSong(out, song);
+        });
+    }
+
+    @Override
+    public void songUpdated(Playlist playlist, int index, Song song) {
+        record(out -> {
+            out.write(UPDATE);
+            BinaryPlaylistFormat.writeVarInt(out, index);
+            writeSong(out, song);
+        });
+    }
+
+    @Override
+    public void songDeleted(Playlist playlist, int index) {
+        record(out -> {
+            out.write(DELETE);
+            BinaryPlaylistFormat.writeVarInt(out, index);
+        });
+    }
+
+    @Override
+    public void verifiedStatusUpdated(Playlist playlist, int index, boolean verified) {
+        record(out -> {
+            out.write(VERIFY);
+            BinaryPlaylistFormat.writeVarInt(out, index);
+            out.write(verified ? 1 : 0);
+        });
+    }
+
+    @Override
+    public synchronized void likesAdded(Playlist playlist, int count) {
+        likes += count;
+        record(out -> {
+            out.write(ADD_LIKES);
+            BinaryPlaylistFormat.writeVarInt(out, count);
+        });
+    }
+
+    @Override
+    public synchronized void likesSet(Playlist playlist) {
+        likes = playlist.getLikes();
+        record(out -> {
+            out.write(SET_LIKES);
+            BinaryPlaylistFormat.writeVarInt(out, likes);
+        });
+    }
+
+    @Override
+    public void playlistRenamed(Playlist playlist) {
+        record(out -> {
+            out.write(RENAME);
+            BinaryPlaylistFormat.writeString(out, playlist.getPlaylistName());
+            BinaryPlaylistFormat.writeString(out, playlist.getDescription());
+        });
+    }
+
+    @Override
+    public synchronized void songsReplaced(Playlist playlist) {
+        snapshotNeeded = true;
+    }
+
+    /*
+      用于编码一条记录的内容。
+      Used to encode the payload of one record.
+     */
+    private interface RecordWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /*
+      写入 ByteArrayOutputStream，不会真正抛出 IOException。
+      Writing to a ByteArrayOutputStream never actually throws an IOException.
+     */
+    private synchronized void record(RecordWriter writer) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        CRC32 crc = new CRC32();
+
+        try {
+            writer.write(payload);
+            crc.update(payload.toByteArray());
+            BinaryPlaylistFormat.writeVarInt(pending, payload.size());
+            payload.writeTo(pending);
+            new DataOutputStream(pending).writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pendingRecords++;
+    }
+
+    private static void writeSong(OutputStream out, Song song) throws IOException {
+        int flags = (song.isVerified() ? FLAG_VERIFIED : 0)
+                | (song.getArtist().isVerified() ? FLAG_ARTIST_VERIFIED : 0)
+                | (song.getArtistName() != null ? FLAG_ARTIST_NAME : 0);
+
+        BinaryPlaylistFormat.writeVarInt(out, song.getSongId());
+        BinaryPlaylistFormat.writeString(out, song.getName());
+        BinaryPlaylistFormat.writeString(out, song.getArtist().getArtistName());
+        BinaryPlaylistFormat.writeVarInt(out, song.getLength());
+        out.write(flags);
+
+        if ((flags & FLAG_ARTIST_NAME) != 0) {
+            BinaryPlaylistFormat.writeString(out, song.getArtistName());
+        }
+    }
+
+    /*
+      在歌单的读锁和这个对象的监视器下运行（见 compact()）。
+      Runs under the read lock of the playlist and the monitor of this object (see compact()).
+     */
+    private void writeSnapshot() throws IOException {
+        CRC32 crc = new CRC32();
+        AtomicFile.write(snapshotFile, 0, output -> BinaryPlaylistFormat.write(playlist, likes, new CheckedOutputStream(output, crc)));
+
+        snapshotLength = snapshotFile.length();
+        writeEmptyJournal(snapshotLength, (int) crc.getValue());
+        pending.reset();
+        pendingRecords = 0;
+        snapshotNeeded = false;
+    }
+
+    private void writeEmptyJournal(long snapshotLength, int snapshotCrc) throws IOException {
+        AtomicFile.write(journalFile, 0, output -> {
+            DataOutputStream out = new DataOutputStream(output);
+            out.write(MAGIC);
+            out.write(VERSION);
+            out.writeLong(snapshotLength);
+            out.writeInt(snapshotCrc);
+            out.flush();
+        });
+    }
+
+    //-------------------------
+    // REPLAYING
+    //-------------------------
+
+    /*
+      重放日志中与快照匹配的记录，返回有效部分的长度；日志不存在或与快照不匹配时返回 -1。
+      Replay the journal records that match the snapshot, returning the length of the valid part, or -1 if the journal is missing or does not match the snapshot.
+     */
+    private long replay(long snapshotLength, int snapshotCrc) throws IOException {
+        if (!journalFile.exists()) {
+            return -1;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile), 1 << 16))) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+
+            if (magic.length < MAGIC.length || !Arrays.equals(magic, MAGIC) || in.read() != VERSION) {
+                return -1;
+            }
+
+            try {
+                if (in.readLong() != snapshotLength || in.readInt() != snapshotCrc) {
+                    return -1;
+                }
+            } catch (EOFException e) {
+                return -1;
+            }
+
+            long validLength = HEADER_SIZE;
+            byte[] payload;
+
+            while ((payload = readRecord(in)) != null) {
+                apply(new ByteArrayInputStream(payload));
+                validLength += varIntSize(payload.length) + payload.length + 4;
+            }
+            return validLength;
+        }
+    }
+
+    /*
+      读取下一条记录的内容；到达文件末尾、记录不完整或校验失败时返回 null。
+      Read the payload of the next record, or null at the end of the file, or if the record is incomplete or fails its checksum.
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            in.mark(1);
+
+            if (in.read() < 0) {
+                return null;
+            }
+            in.reset();
+
+            int length = BinaryPlaylistFormat.readVarInt(in);
+            byte[] payload = in.readNBytes(length);
+
+            if (payload.length != length) {
+                return null;
+            }
+
+            int crc = in.readInt();
+            CRC32 expected = new CRC32();
+            expected.update(payload);
+            return crc == (int) expected.getValue() ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void apply(InputStream in) throws IOException {
+        int operation = in.read();
+
+        switch (operation) {
+            case ADD:
+                playlist.addSong(readSong(in));
+                break;
+            case UPDATE:
+                playlist.updateSong(BinaryPlaylistFormat.readVarInt(in), readSong(in));
+                break;
+            case DELETE:
+                playlist.deleteSong(BinaryPlaylistFormat.readVarInt(in));
+                break;
+            case VERIFY:
+                playlist.updateVerifiedStatus(BinaryPlaylistFormat.readVarInt(in), in.read() != 0);
+                break;
+            case ADD_LIKES:
+                playlist.addLikes(BinaryPlaylistFormat.readVarInt(in));
+                break;
+            case SET_LIKES:
+                playlist.setLikes(BinaryPlaylistFormat.readVarInt(in));
+                break;
+            case RENAME:
+                playlist.setPlaylistName(BinaryPlaylistFormat.readString(in));
+                playlist.setDescription(BinaryPlaylistFormat.readString(in));
+                break;
+            default:
+                throw new IOException("Corrupt playlist journal: unknown operation " + operation);
+        }
+    }
+
+    private static Song readSong(InputStream in) throws IOException {
+        int songId = BinaryPlaylistFormat.readVarInt(in);
+        String name = BinaryPlaylistFormat.readString(in);
+        String artistName = BinaryPlaylistFormat.readString(in);
+        int length = BinaryPlaylistFormat.readVarInt(in);
+        int flags = in.read();
+
+        Song song = new Song(songId, name, artistName, (flags & FLAG_ARTIST_VERIFIED) != 0, length);
+        song.setVerified((flags & FLAG_VERIFIED) != 0);
+
+        if ((flags & FLAG_ARTIST_NAME) != 0) {
+            song.setArtistName(BinaryPlaylistFormat.readString(in));
+        }
+        return song;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
+/*
+ * End of persistence.PlaylistJournal Class.
+ */
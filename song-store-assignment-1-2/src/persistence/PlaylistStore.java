@@ -0,0 +1,249 @@
+package persistence;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.SingleValueConverter;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+import controllers.Playlist;
+import models.Artist;
+import models.Song;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 此类用于保存和加载歌单文件。加载时根据文件开头的字节自动识别 XML 或二进制格式。
+ * This class saves and loads playlist files. On load, XML or binary is detected automatically from the first bytes of the file.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.2
+ * @since version 5.8
+ */
+public class PlaylistStore {
+
+    /*
+      保存时保留的旧文件备份数量。
+      The number of backups of the old file kept when saving.
+     */
+    public static final int BACKUPS = 2;
+
+    private PlaylistStore() {
+    }
+
+    /**
+     * 创建 XStream 对象，并设置别名。保存和加载使用 XmlPlaylistFormat，这里保留用于检查两者的兼容性。
+     * Create an XStream object and set aliases. Saving and loading use XmlPlaylistFormat; this is kept to check that the two stay compatible.
+     *
+     * @return XStream 对象。
+     *         XStream object.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 3.1.1
+     */
+    public static XStream createXStream() {
+        XStream xstream = new XStream(new DomDriver());
+        xstream.alias("song", Song.class);
+        xstream.alias("artist", Artist.class);
+        xstream.alias("playlist", Playlist.class);
+        XStream.setupDefaultSecurity(xstream);
+        xstream.allowTypes(new Class[]{Song.class, Artist.class, Playlist.class, LongAdder.class});
+
+        /*
+          点赞数是 LongAdder，但仍写成 <likes>3</likes>，与之前的 Store.xml 相同。
+          The likes are a LongAdder, but are still written as <likes>3</likes>, the same as the existing Store.xml.
+         */
+        xstream.registerLocalConverter(Playlist.class, "likes", new LikesConverter());
+        return xstream;
+    }
+
+    private static class LikesConverter implements SingleValueConverter {
+        @Override
+        public boolean canConvert(Class type) {
+            return type == LongAdder.class;
+        }
+
+        @Override
+        public String toString(Object likes) {
+            return Long.toString(((LongAdder) likes).sum());
+        }
+
+        @Override
+        public Object fromString(String likes) {
+            LongAdder adder = new LongAdder();
+            adder.add(Long.parseLong(likes.trim()));
+            return adder;
+        }
+    }
+
+    /**
+     * 以给定格式把歌单写入输出流。
+     * Write the playlist to the output stream in the given format.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param output 输出流，调用者负责关闭。
+     *               The output stream, closed by the caller.
+     * @param format 保存格式。
+     *               The format to save in.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.8
+     */
+    public static void write(Playlist playlist, OutputStream output, StoreFormat format) throws IOException {
+        if (format == StoreFormat.BINARY) {
+            BinaryPlaylistFormat.write(playlist, output);
+        } else if (format == StoreFormat.MAPPED) {
+            MappedPlaylistFormat.write(playlist, output);
+        } else {
+            /*
+              文件中没有 XML 声明，读取时按 UTF-8 解析，所以写入时也固定使用 UTF-8，而不是系统默认编码。
+              The file has no XML declaration and the reader assumes UTF-8, so write UTF-8 too instead of the platform default charset.
+             */
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 1 << 16);
+            XmlPlaylistFormat.write(playlist, writer);
+        }
+    }
+
+    /**
+     * 从输入流读取歌单，自动识别格式。
+     * Read a playlist from the input stream, detecting the format automatically.
+     *
+     * @param input 输入流，调用者负责关闭。
+     *              The input stream, closed by the caller.
+     * @return 读取的歌单。
+     *         The playlist that was read.
+     * @throws IOException 如果读取失败，则抛出异常。
+     *                     If reading fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.8
+     */
+    public static Playlist read(InputStream input) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input, 1 << 16);
+        in.mark(BinaryPlaylistFormat.MAGIC.length);
+        byte[] header = in.readNBytes(BinaryPlaylistFormat.MAGIC.length);
+        in.reset();
+
+        if (BinaryPlaylistFormat.isBinary(header)) {
+            return BinaryPlaylistFormat.read(in);
+        }
+
+        if (MappedPlaylistFormat.isMapped(header)) {
+            return MappedPlaylistFormat.read(in);
+        }
+        return XmlPlaylistFormat.read(in);
+    }
+
+    /**
+     * 以给定格式把歌单原子地保存到文件，并保留旧文件的滚动备份。
+     * Save the playlist to a file in the given format atomically, keeping rolling backups of the old file.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param file 文件。
+     *             The file.
+     * @param format 保存格式。
+     *               The format to save in.
+     * @throws IOException 如果保存失败，则抛出异常，原来的文件保持不变。
+     *                     If saving fails, an exception is thrown and the original file is left unchanged.
+     * @see AtomicFile#write(File, int, AtomicFile.ContentWriter)
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.8
+     */
+    public static void save(Playlist playlist, File file, StoreFormat format) throws IOException {
+        AtomicFile.write(file, BACKUPS, output -> write(playlist, output, format));
+    }
+
+    /**
+     * 从文件加载歌单，自动识别格式。
+     * Load a playlist from a file, detecting the format automatically.
+     *
+     * @param file 文件。
+     *             The file.
+     * @return 加载的歌单。
+     *         The loaded playlist.
+     * @throws IOException 如果加载失败，则抛出异常。
+     *                     If loading fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.8
+     */
+    public static Playlist load(File file) throws IOException {
+        try (FileInputStream input = new FileInputStream(file)) {
+            byte[] header = input.readNBytes(MappedPlaylistFormat.MAGIC.length);
+
+            /*
+              内存映射格式直接映射文件，不通过输入流读取。
+              The memory-mapped format maps the file directly instead of reading it through the stream.
+             */
+            if (MappedPlaylistFormat.isMapped(header)) {
+                return MappedPlaylistFormat.open(file);
+            }
+        }
+
+        try (FileInputStream input = new FileInputStream(file)) {
+            return read(input);
+        }
+    }
+
+    /**
+     * 主文件损坏时使用：从最近的一份开始依次尝试加载文件的备份。
+     * Used when the main file is corrupt: try to load the backups of the file, starting with the most recent.
+     *
+     * @param file 损坏的歌单文件。
+     *             The corrupt playlist file.
+     * @return 从第一份可用的备份加载的歌单。
+     *         The playlist loaded from the first usable backup.
+     * @throws IOException 如果没有可用的备份，则抛出异常。
+     *                     If there is no usable backup, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.2
+     */
+    public static Playlist recover(File file) throws IOException {
+        IOException failure = new IOException("No usable backup of " + file.getName());
+
+        for (int generation = 1; generation <= BACKUPS; generation++) {
+            File backup = AtomicFile.backupFile(file, generation);
+
+            if (backup.exists()) {
+                try {
+                    return load(backup);
+                } catch (IOException | RuntimeException e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * 返回最近保存的歌单文件（Store.xml、Store.dat 或 Store.map），都不存在时返回 Store.xml。
+     * Return the most recently saved playlist file (Store.xml, Store.dat or Store.map), or Store.xml if none exists.
+     *
+     * @return 最近保存的歌单文件。
+     *         The most recently saved playlist file.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.8
+     */
+    public static File latestStoreFile() {
+        File latest = new File(StoreFormat.XML.getFileName());
+
+        for (StoreFormat format : StoreFormat.values()) {
+            File file = new File(format.getFileName());
+
+            if (file.exists() && (!latest.exists() || file.lastModified() > latest.lastModified())) {
+                latest = file;
+            }
+        }
+        return latest;
+    }
+}
+/*
+ * End of persistence.PlaylistStore Class.
+ */
@@ -0,0 +1,473 @@
+package persistence;
+
+import controllers.Library;
+import controllers.Playlist;
+import models.Artist;
+import models.ArtistRegistry;
+import models.Song;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 此类从 CSV 或 TSV 文件批量导入歌曲。每行有 5 个字段：songId, name, artist, verified, length；第一行不以数字开头时作为标题行跳过。
+ * 文件按顺序流式读取，每 chunkLines 行组成一块，交给线程池并行解析和验证；解析好的块按文件顺序用 Playlist.addSongs 一次添加，
+ * 所以歌曲的顺序与文件相同，同时最多只有几块在内存中。
+ * This class imports songs in bulk from a CSV or TSV file. Each row has 5 fields: songId, name, artist, verified, length; a first row that
+ * does not start with a number is skipped as the header. The file is streamed in order, and every chunkLines rows form a chunk that a
+ * thread pool parses and validates in parallel; parsed chunks are added in file order with one Playlist.addSongs each, so the songs keep
+ * the order of the file while only a few chunks are in memory at a time.
+ *
+ * 规则与 Song 和 Artist 相同：歌曲名称超过 20 个字符、歌手名字超过 15 个字符时截断。Song 会把无效的 ID 或长度悄悄换成默认值，
+ * 但导入时这通常是数据错误，所以这样的行与无法解析的行一样被拒绝并计数，而不是被添加（见 ImportReport.Problem）。
+ * The rules are the same as Song and Artist: song names longer than 20 characters and artist names longer than 15 are truncated. Song
+ * quietly replaces an invalid ID or length by its default, but in an import that is usually a data error, so such rows are rejected and
+ * counted like rows that cannot be parsed, instead of being added (see ImportReport.Problem).
+ *
+ * CSV 字段可以用双引号括起来，其中可以包含逗号，两个双引号表示一个双引号；字段不能跨行。TSV 不使用引号。
+ * CSV fields may be enclosed in double quotes, which may contain commas, with two double quotes standing for one; a field cannot span
+ * lines. TSV does not use quotes.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.5
+ * @since version 7.5
+ * @see ImportReport
+ */
+public class SongImporter {
+    public static final int DEFAULT_CHUNK_LINES = 4096;
+
+    private static final int FIELDS = 5;
+
+    /*
+      与 Song.setSongId 和 Song.setLength 相同的范围。
+      The same ranges as Song.setSongId and Song.setLength.
+     */
+    private static final int MIN_SONG_ID = 1000;
+    private static final int MAX_SONG_ID = 9999;
+    private static final int MIN_LENGTH = 1;
+    private static final int MAX_LENGTH = 600;
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private final int threads;
+    private final int chunkLines;
+
+    /**
+     * 使用与处理器数量相同的线程和默认的块大小。
+     * Use as many threads as processors and the default chunk size.
+     *
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.5
+     */
+    public SongImporter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_LINES);
+    }
+
+    /**
+     * 构造函数。
+     * Constructor.
+     *
+     * @param threads 并行解析的线程数量。
+     *                The number of threads parsing in parallel.
+     * @param chunkLines 每块的行数，也是每次 addSongs 最多添加的歌曲数量。
+     *                   The number of rows per chunk, which is also the most songs added by one addSongs.
+     * @throws IllegalArgumentException 如果 threads 或 chunkLines 小于 1。
+     *                                  If threads or chunkLines is less than 1.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.5
+     */
+    public SongImporter(int threads, int chunkLines) {
+        if (threads < 1 || chunkLines < 1) {
+            throw new IllegalArgumentException("threads and chunkLines must be at least 1.");
+        }
+        this.threads = threads;
+        this.chunkLines = chunkLines;
+    }
+
+    /**
+     * 把 UTF-8 编码的 CSV 或 TSV 文件中的歌曲导入歌单；文件名以 .tsv 结尾时按 TSV 读取，否则按 CSV 读取。
+     * Import the songs in a UTF-8 CSV or TSV file into the playlist; a file name ending in .tsv is read as TSV, any other as CSV.
+     *
+     * @param file 要导入的文件。
+     *             The file to import.
+     * @param playlist 添加歌曲的歌单。
+     *                 The playlist to add the songs to.
+     * @param library 共用歌曲和歌手的曲库；为 null 时只在这次导入的歌曲之间共用歌手。
+     *                The library to share songs and artists through; when null, artists are only shared among the songs of this import.
+     * @return 导入的结果。
+     *         The result of the import.
+     * @throws IOException 如果读取失败。
+     *                     If reading fails.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.5
+     */
+    public ImportReport importFile(File file, Playlist playlist, Library library) throws IOException {
+        try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return importFrom(in, delimiterFor(file.getName()), playlist, library);
+        }
+    }
+
+    /**
+     * 从 in 导入用 delimiter 分隔的歌曲。in 不会被关闭。
+     * Import the songs separated by delimiter from in. in is not closed.
+     *
+     * @param in 要读取的内容。
+     *           What to read.
+     * @param delimiter 字段分隔符，CSV 为 ','，TSV 为 '\t'。
+     *                  The field delimiter, ',' for CSV and '\t' for TSV.
+     * @param playlist 添加歌曲的歌单。
+     *                 The playlist to add the songs to.
+     * @param library 共用歌曲和歌手的曲库，可以为 null。
+     *                The library to share songs and artists through, or null.
+     * @return 导入的结果。
+     *         The result of the import.
+     * @throws IOException 如果读取失败。读取失败之前已经解析好的块已经被添加。
+     *                     If reading fails. The chunks parsed before the failure have been added.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.5
+     */
+    public ImportReport importFrom(Reader in, char delimiter, Playlist playlist, Library library) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(in, 1 << 16);
+        ArtistRegistry artists = library != null ? library.getArtists() : new ArtistRegistry();
+        ImportReport report = new ImportReport();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "song-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        /*
+          正在解析的块，按文件顺序。最多 2 * threads 块，使得线程不会空闲，而内存只与块的大小有关，与文件大小无关。
+          The chunks being parsed, in file order. At most 2 * threads chunks, so the threads never sit idle while memory depends only on the
+          chunk size, not on the file size.
+         */
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+
+        try {
+            Chunk chunk = new Chunk(chunkLines, delimiter);
+            boolean firstRow = true;
+            int lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                    line = line.substring(1);
+                }
+
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                if (firstRow) {
+                    firstRow = false;
+
+                    if (isHeader(line, delimiter)) {
+                        continue;
+                    }
+                }
+
+                chunk.add(lineNumber, line);
+
+                if (chunk.isFull()) {
+                    if (pending.size() >= 2 * threads) {
+                        load(pending.poll(), playlist, library, artists, report);
+                    }
+                    pending.add(executor.submit(chunk));
+                    chunk = new Chunk(chunkLines, delimiter);
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                pending.add(executor.submit(chunk));
+            }
+
+            while (!pending.isEmpty()) {
+                load(pending.poll(), playlist, library, artists, report);
+            }
+        } finally {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    public static char delimiterFor(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".tsv") ? '\t' : ',';
+    }
+
+    //-------------------------
+    // PARSING
+    //-------------------------
+
+    /*
+      等待一块解析完成，然后一次添加它的歌曲。歌手在这里（只在调用的线程中）换成共用的歌手，因为 ArtistRegistry 和 Library 不是线程安全的。
+      共用歌手的验证状态与这一行不同时，歌曲保留自己的歌手（也不进入曲库），使得每一行的 verified 列都不会丢失。
+      Wait for a chunk to be parsed, then add its songs at once. The artists are replaced by shared ones here, on the calling thread only,
+      because ArtistRegistry and Library are not thread-safe. When the shared artist has a different verified status from the row, the
+      song keeps its own artist (and stays out of the catalog), so the verified column of every row is kept.
+     */
+    private static void load(Future<Chunk> future, Playlist playlist, Library library, ArtistRegistry artists, ImportReport report)
+            throws IOException {
+        Chunk chunk;
+
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing songs.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+
+        ArrayList<Song> songs = chunk.songs;
+
+        for (int i = 0; i < songs.size(); i++) {
+            Song song = songs.get(i);
+
+            if (library != null) {
+                songs.set(i, library.share(song));
+                continue;
+            }
+            Artist shared = artists.intern(song.getArtist());
+
+            if (shared.isVerified() == song.getArtist().isVerified()) {
+                song.setArtist(shared);
+            }
+        }
+
+        int added = playlist.addSongs(songs);
+        report.record(chunk.rows, added, chunk.rejected, chunk.rejections);
+    }
+
+    /*
+      第一行的第一个字段不是整数时，它是标题行。
+      The first row is the header when its first field is not a whole number.
+     */
+    static boolean isHeader(String line, char delimiter) {
+        String[] fields = new String[FIELDS];
+
+        if (split(line, delimiter, fields) < 1) {
+            return false;
+        }
+
+        try {
+            Integer.parseInt(fields[0]);
+            return false;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /*
+      解析一行；被拒绝时抛出 Rejected。
+      Parse one row, throwing Rejected when it is rejected.
+     */
+    static Song parse(String line, char delimiter, String[] fields) throws Rejected {
+        if (split(line, delimiter, fields) != FIELDS) {
+            throw new Rejected(ImportReport.Problem.FIELD_COUNT);
+        }
+
+        int songId = parseInt(fields[0], MIN_SONG_ID, MAX_SONG_ID, ImportReport.Problem.SONG_ID);
+
+        if (fields[1].isEmpty()) {
+            throw new Rejected(ImportReport.Problem.NAME);
+        }
+
+        if (fields[2].isEmpty()) {
+            throw new Rejected(ImportReport.Problem.ARTIST);
+        }
+
+        boolean verified = parseVerified(fields[3]);
+        int length = parseInt(fields[4], MIN_LENGTH, MAX_LENGTH, ImportReport.Problem.LENGTH);
+        return new Song(songId, fields[1], new Artist(fields[2], verified), length);
+    }
+
+    /*
+      把一行拆成字段，保存在 fields 中（超出 fields 长度的字段只计数），返回字段数量；引号不匹配时返回 -1。
+      没有引号的字段去掉两端的空白。只有 CSV 使用引号。
+      Split a row into fields, kept in fields (fields beyond its length are only counted), and return the number of fields, or -1 when the
+      quotes do not match. Unquoted fields have the white space at both ends removed. Only CSV uses quotes.
+     */
+    static int split(String line, char delimiter, String[] fields) {
+        int count = 0;
+        int position = 0;
+        int length = line.length();
+
+        while (position <= length) {
+            String field;
+            int end;
+
+            if (delimiter == ',' && position < length && line.charAt(position) == '"') {
+                StringBuilder value = new StringBuilder();
+                end = position + 1;
+
+                while (true) {
+                    if (end >= length) {
+                        return -1;
+                    }
+
+                    char c = line.charAt(end++);
+
+                    if (c != '"') {
+                        value.append(c);
+                    } else if (end < length && line.charAt(end) == '"') {
+                        value.append('"');
+                        end++;
+                    } else {
+                        break;
+                    }
+                }
+
+                if (end < length && line.charAt(end) != delimiter) {
+                    return -1;
+                }
+                field = value.toString();
+            } else {
+                end = line.indexOf(delimiter, position);
+
+                if (end < 0) {
+                    end = length;
+                }
+                field = line.substring(position, end).trim();
+            }
+
+            if (count < fields.length) {
+                fields[count] = field;
+            }
+            count++;
+            position = end + 1;
+        }
+        return count;
+    }
+
+    private static int parseInt(String field, int min, int max, ImportReport.Problem problem) throws Rejected {
+        try {
+            int value = Integer.parseInt(field);
+
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Rejected below.
+        }
+        throw new Rejected(problem);
+    }
+
+    private static boolean parseVerified(String field) throws Rejected {
+        switch (field.toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "yes":
+            case "y":
+            case "1":
+                return true;
+            case "false":
+            case "no":
+            case "n":
+            case "0":
+                return false;
+            default:
+                throw new Rejected(ImportReport.Problem.VERIFIED);
+        }
+    }
+
+    /*
+      一块要解析的行。call() 在线程池中运行，结果只在 Future.get() 之后读取。
+      A chunk of rows to parse. call() runs in the thread pool, and its results are only read after Future.get().
+     */
+    private static class Chunk implements Callable<Chunk> {
+        private final char delimiter;
+        private final int[] lineNumbers;
+        private final String[] lines;
+        private int rows;
+
+        private final ArrayList<Song> songs;
+        private final EnumMap<ImportReport.Problem, Integer> rejected = new EnumMap<>(ImportReport.Problem.class);
+        private final ArrayList<ImportReport.Rejection> rejections = new ArrayList<>();
+
+        Chunk(int capacity, char delimiter) {
+            this.delimiter = delimiter;
+            this.lineNumbers = new int[capacity];
+            this.lines = new String[capacity];
+            this.songs = new ArrayList<>(capacity);
+        }
+
+        void add(int lineNumber, String line) {
+            lineNumbers[rows] = lineNumber;
+            lines[rows++] = line;
+        }
+
+        boolean isFull() {
+            return rows == lines.length;
+        }
+
+        boolean isEmpty() {
+            return rows == 0;
+        }
+
+        @Override
+        public Chunk call() {
+            String[] fields = new String[FIELDS];
+
+            for (int i = 0; i < rows; i++) {
+                try {
+                    songs.add(parse(lines[i], delimiter, fields));
+                } catch (Rejected e) {
+                    rejected.merge(e.getProblem(), 1, Integer::sum);
+
+                    if (rejections.size() < ImportReport.MAX_REJECTIONS) {
+                        rejections.add(new ImportReport.Rejection(lineNumbers[i], e.getProblem(), lines[i]));
+                    }
+                }
+                lines[i] = null;
+            }
+            return this;
+        }
+    }
+
+    /*
+      一行被拒绝。不记录调用栈，因为它只用于在解析一行时提前返回。
+      A row is rejected. No stack trace is recorded, as it is only used to return early while parsing a row.
+     */
+    static class Rejected extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final ImportReport.Problem problem;
+
+        Rejected(ImportReport.Problem problem) {
+            super(problem.name(), null, false, false);
+            this.problem = problem;
+        }
+
+        ImportReport.Problem getProblem() {
+            return problem;
+        }
+    }
+}
+/*
+ * End of persistence.SongImporter Class.
+ */
@@ -0,0 +1,63 @@
+package persistence;
+
+/**
+ * 歌单文件的保存格式。
+ * The formats a playlist file can be saved in.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.3
+ * @since version 5.8
+ */
+public enum StoreFormat {
+
+    /*
+      XStream XML，与之前的 Store.xml 相同。
+      XStream XML, the same as the existing Store.xml.
+     */
+    XML("Store.xml"),
+
+    /*
+      紧凑的二进制格式，见 BinaryPlaylistFormat。
+      The compact binary format, see BinaryPlaylistFormat.
+     */
+    BINARY("Store.dat"),
+
+    /*
+      定长记录的内存映射格式，见 MappedPlaylistFormat。
+      The fixed-record memory-mapped format, see MappedPlaylistFormat.
+     */
+    MAPPED("Store.map");
+
+    private final String fileName;
+
+    StoreFormat(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * 返回使用给定文件名的格式。
+     * Return the format that uses the given file name.
+     *
+     * @param fileName 文件名。
+     *                 The file name.
+     * @return 使用该文件名的格式；没有时返回 null。
+     *         The format using that file name, or null if there is none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 6.3
+     */
+    public static StoreFormat forFileName(String fileName) {
+        for (StoreFormat format : values()) {
+            if (format.fileName.equals(fileName)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
+/*
+ * End of persistence.StoreFormat Enum.
+ */
@@ -0,0 +1,454 @@
+package persistence;
+
+import controllers.Playlist;
+import models.Artist;
+import models.Song;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * 此类用 StAX 逐首歌曲地读写 Store.xml，不需要先在内存中建立整个 DOM 树。
+ * 输出与 PlaylistStore.createXStream() 写出的文件逐字节相同，XStream 写出的文件也可以直接读取。
+ * This class reads and writes Store.xml song by song with StAX, without building the whole DOM tree in memory first.
+ * The output is byte for byte the same as a file written by PlaylistStore.createXStream(), and files written by XStream can be read directly.
+ *
+ * 与 XStream 一样，同一个 Song 或 Artist 对象第二次出现时写成 reference 属性（XPath 相对路径）。
+ * Like XStream, the second appearance of the same Song or Artist object is written as a reference attribute (a relative XPath).
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.2
+ * @since version 5.9
+ */
+public class XmlPlaylistFormat {
+    private static final String INDENT = "  ";
+
+    private XmlPlaylistFormat() {
+    }
+
+    /**
+     * 把歌单以 XStream 的格式写入 Writer。
+     * Write the playlist to the Writer in the XStream format.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @param out 输出，调用者负责关闭。
+     *            The output, closed by the caller.
+     * @throws IOException 如果写入失败，则抛出异常。
+     *                     If writing fails, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.9
+     */
+    public static void write(Playlist playlist, Writer out) throws IOException {
+        int count = playlist.numSongs();
+
+        out.write("<playlist>");
+        writeField(out, 1, "playlistName", playlist.getPlaylistName());
+
+        if (count == 0) {
+            newLine(out, 1);
+            out.write("<songs/>");
+        } else {
+            newLine(out, 1);
+            out.write("<songs>");
+
+            /*
+              记录每个 Song 和 Artist 对象第一次出现的位置（从 1 开始），用于写出引用路径。
+              Remember where each Song and Artist object first appears (1-based), to write the reference paths.
+             */
+            IdentityHashMap<Song, Integer> songPositions = new IdentityHashMap<>();
+            IdentityHashMap<Artist, Integer> artistPositions = new IdentityHashMap<>();
+
+            for (int i = 0; i < count; i++) {
+                Song song = playlist.findSong(i);
+                Integer first = songPositions.putIfAbsent(song, i + 1);
+
+                newLine(out, 2);
+
+                if (first != null) {
+                    out.write("<song reference=\"../song");
+                    writePosition(out, first);
+                    out.write("\"/>");
+                } else {
+                    writeSong(out, song, i + 1, artistPositions);
+                }
+            }
+            newLine(out, 1);
+            out.write("</songs>");
+        }
+
+        writeField(out, 1, "description", playlist.getDescription());
+        writeField(out, 1, "likes", Integer.toString(playlist.getLikes()));
+        writeField(out, 1, "descriptionSet", "true");
+        writeField(out, 1, "playlistNameSet", "true");
+        writeField(out, 1, "addLikeSet", Boolean.toString(playlist.isAddLikeSet()));
+        out.write("\n</playlist>");
+        out.flush();
+    }
+
+    /**
+     * 从输入流逐首歌曲地读取 XStream 格式的歌单。
+     * Read a playlist in the XStream format from the input stream, song by song.
+     *
+     * @param input 输入流，调用者负责关闭。
+     *              The input stream, closed by the caller.
+     * @return 读取的歌单。
+     *         The playlist that was read.
+     * @throws IOException 如果读取失败或格式不正确，则抛出异常。
+     *                     If reading fails or the format is wrong, an exception is thrown.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.9
+     */
+    public static Playlist read(InputStream input) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(input);
+
+            try {
+                reader.nextTag();
+
+                if (!"playlist".equals(reader.getLocalName())) {
+                    throw new IOException("Not a playlist file: root element is <" + reader.getLocalName() + ">.");
+                }
+                return readPlaylist(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Corrupt XML playlist: " + e.getMessage(), e);
+        }
+    }
+
+    //-------------------------
+    // WRITING
+    //-------------------------
+
+    private static void writeSong(Writer out, Song song, int position, IdentityHashMap<Artist, Integer> artistPositions) throws IOException {
+        out.write("<song>");
+        writeField(out, 3, "songId", Integer.toString(song.getSongId()));
+        writeField(out, 3, "name", song.getName());
+
+        Artist artist = song.getArtist();
+
+        if (artist != null) {
+            Integer first = artistPositions.putIfAbsent(artist, position);
+            newLine(out, 3);
+
+            if (first != null) {
+                out.write("<artist reference=\"../../song");
+                writePosition(out, first);
+                out.write("/artist\"/>");
+            } else {
+                out.write("<artist>");
+                writeField(out, 4, "artistName", artist.getArtistName());
+                writeField(out, 4, "artistNameSet", "true");
+                writeField(out, 4, "verified", Boolean.toString(artist.isVerified()));
+                newLine(out, 3);
+                out.write("</artist>");
+            }
+        }
+
+        writeField(out, 3, "artistName", song.getArtistName());
+        writeField(out, 3, "verified", Boolean.toString(song.isVerified()));
+        writeField(out, 3, "nameSet", "true");
+        writeField(out, 3, "length", Integer.toString(song.getLength()));
+        newLine(out, 2);
+        out.write("</song>");
+    }
+
+    /*
+      XStream 省略值为 null 的字段。
+      XStream leaves out fields whose value is null.
+     */
+    private static void writeField(Writer out, int depth, String name, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        newLine(out, depth);
+        out.write('<');
+        out.write(name);
+        out.write('>');
+        writeText(out, value);
+        out.write("</");
+        out.write(name);
+        out.write('>');
+    }
+
+    /*
+      XPath 中第一个元素不写下标，其余写成 [n]。
+      The first element in the XPath has no index, the others are written as [n].
+     */
+    private static void writePosition(Writer out, int position) throws IOException {
+        if (position > 1) {
+            out.write('[');
+            out.write(Integer.toString(position));
+            out.write(']');
+        }
+    }
+
+    private static void newLine(Writer out, int depth) throws IOException {
+        out.write('\n');
+
+        for (int i = 0; i < depth; i++) {
+            out.write(INDENT);
+        }
+    }
+
+    /*
+      与 XStream 的 PrettyPrintWriter（XML_QUIRKS 模式）相同的转义规则。
+      The same escaping rules as XStream's PrettyPrintWriter (XML_QUIRKS mode).
+     */
+    private static void writeText(Writer out, String text) throws IOException {
+        int start = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String escaped;
+
+            switch (c) {
+                case '&':
+                    escaped = "&amp;";
+                    break;
+                case '<':
+                    escaped = "&lt;";
+                    break;
+                case '>':
+                    escaped = "&gt;";
+                    break;
+                case '"':
+                    escaped = "&quot;";
+                    break;
+                case '\'':
+                    escaped = "&apos;";
+                    break;
+                case '\r':
+                    escaped = "&#xd;";
+                    break;
+                case '\t':
+                case '\n':
+                    escaped = null;
+                    break;
+                default:
+                    escaped = Character.isDefined(c) && !Character.isISOControl(c) ? null : "&#x" + Integer.toHexString(c) + ";";
+                    break;
+            }
+
+            if (escaped != null) {
+                out.write(text, start, i - start);
+                out.write(escaped);
+                start = i + 1;
+            }
+        }
+        out.write(text, start, text.length() - start);
+    }
+
+    //-------------------------
+    // READING
+    //-------------------------
+
+    private static Playlist readPlaylist(XMLStreamReader reader) throws XMLStreamException, IOException {
+        String playlistName = "";
+        String description = "";
+        int likes = 0;
+        boolean addLikeSet = false;
+        ArrayList<Song> songs = new ArrayList<>();
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "playlistName":
+                    playlistName = reader.getElementText();
+                    break;
+                case "songs":
+                    readSongs(reader, songs);
+                    break;
+                case "description":
+                    description = reader.getElementText();
+                    break;
+                case "likes":
+                    likes = readInt(reader);
+                    break;
+                case "addLikeSet":
+                    addLikeSet = Boolean.parseBoolean(reader.getElementText());
+                    break;
+                default:
+                    /*
+                      descriptionSet 和 playlistNameSet 在构造时总是被设置为 true。
+                      descriptionSet and playlistNameSet are always set to true by the constructor.
+                     */
+                    skipElement(reader);
+                    break;
+            }
+        }
+
+        Playlist playlist = new Playlist(playlistName, description);
+
+        if (addLikeSet) {
+            playlist.setLikes(likes);
+        } else {
+            playlist.addLikes(likes);
+        }
+        playlist.setSongs(songs);
+        return playlist;
+    }
+
+    private static void readSongs(XMLStreamReader reader, ArrayList<Song> songs) throws XMLStreamException, IOException {
+        /*
+          每个 song 元素对应的歌手，用于解析后面的 artist 引用。
+          The artist of each song element, to resolve later artist references.
+         */
+        ArrayList<Artist> artists = new ArrayList<>();
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!"song".equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+
+            String reference = reader.getAttributeValue(null, "reference");
+            Song song;
+
+            if (reference != null) {
+                song = songs.get(resolve(reference, "../song", "", songs.size()) - 1);
+                skipElement(reader);
+            } else {
+                song = readSong(reader, artists);
+            }
+            songs.add(song);
+            artists.add(song.getArtist());
+        }
+    }
+
+    private static Song readSong(XMLStreamReader reader, List<Artist> artists) throws XMLStreamException, IOException {
+        int songId = 9999;
+        String name = "";
+        Artist artist = null;
+        String artistName = null;
+        boolean verified = false;
+        int length = 1;
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "songId":
+                    songId = readInt(reader);
+                    break;
+                case "name":
+                    name = reader.getElementText();
+                    break;
+                case "artist":
+                    artist = readArtist(reader, artists);
+                    break;
+                case "artistName":
+                    artistName = reader.getElementText();
+                    break;
+                case "verified":
+                    verified = Boolean.parseBoolean(reader.getElementText());
+                    break;
+                case "length":
+                    length = readInt(reader);
+                    break;
+                default:
+                    skipElement(reader);
+                    break;
+            }
+        }
+
+        Song song = new Song(songId, name, "", false, length);
+        song.setArtist(artist);
+        song.setArtistName(artistName);
+        song.setVerified(verified);
+        return song;
+    }
+
+    private static Artist readArtist(XMLStreamReader reader, List<Artist> artists) throws XMLStreamException, IOException {
+        String reference = reader.getAttributeValue(null, "reference");
+
+        if (reference != null) {
+            Artist artist = artists.get(resolve(reference, "../../song", "/artist", artists.size()) - 1);
+            skipElement(reader);
+            return artist;
+        }
+
+        String artistName = "";
+        boolean verified = false;
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "artistName":
+                    artistName = reader.getElementText();
+                    break;
+                case "verified":
+                    verified = Boolean.parseBoolean(reader.getElementText());
+                    break;
+                default:
+                    skipElement(reader);
+                    break;
+            }
+        }
+        return new Artist(artistName, verified);
+    }
+
+    /*
+      解析 XStream 的相对引用路径，例如 "../song[3]" 或 "../../song/artist"，返回从 1 开始的歌曲位置。
+      Resolve an XStream relative reference path such as "../song[3]" or "../../song/artist", returning the 1-based song position.
+     */
+    private static int resolve(String reference, String prefix, String suffix, int available) throws IOException {
+        if (reference.startsWith(prefix) && reference.endsWith(suffix)) {
+            String position = reference.substring(prefix.length(), reference.length() - suffix.length());
+
+            try {
+                int resolved = position.isEmpty() ? 1 : position.startsWith("[") && position.endsWith("]")
+                        ? Integer.parseInt(position.substring(1, position.length() - 1)) : -1;
+
+                if (resolved >= 1 && resolved <= available) {
+                    return resolved;
+                }
+            } catch (NumberFormatException e) {
+                // 落到下面的异常。 Fall through to the exception below.
+            }
+        }
+        throw new IOException("Unsupported reference in XML playlist: " + reference);
+    }
+
+    private static int readInt(XMLStreamReader reader) throws XMLStreamException, IOException {
+        String text = reader.getElementText().trim();
+
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt XML playlist: '" + text + "' is not a number.", e);
+        }
+    }
+
+    /*
+      跳过当前元素及其所有子元素。
+      Skip the current element and all its children.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+
+        while (depth > 0) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
+/*
+ * End of persistence.XmlPlaylistFormat Class.
+ */
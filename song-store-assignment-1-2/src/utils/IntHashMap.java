@@ -0,0 +1,240 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * 以 int 为键的开放寻址哈希表，键不需要装箱为 Integer。
+ * An open-addressing hash map keyed by primitive ints, so keys never need to be boxed into Integer.
+ *
+ * @param <V> 值的类型。
+ *            The type of the values.
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 5.1
+ * @since version 5.1
+ */
+public class IntHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    /*
+      键为 0 时单独存放，因为 0 用于标记空槽。
+      The key 0 is stored separately, because 0 marks an empty slot.
+     */
+    private boolean hasZeroKey = false;
+    private Object zeroValue;
+
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 构造函数，按预计的元素数量分配空间。
+     * Constructor, allocating room for the expected number of entries.
+     *
+     * @param expectedSize 预计的元素数量。
+     *                     The expected number of entries.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    public IntHashMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 返回键对应的值。
+     * Return the value for the key.
+     *
+     * @param key 键。
+     *            The key.
+     * @return 键对应的值，不存在时返回 null。
+     *         The value for the key, or null if there is none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == 0) {
+            return hasZeroKey ? (V) zeroValue : null;
+        }
+
+        int mask = keys.length - 1;
+
+        for (int slot = mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 存放键值对，并返回旧值。
+     * Put the key-value pair, and return the previous value.
+     *
+     * @param key 键。
+     *            The key.
+     * @param value 值。
+     *              The value.
+     * @return 旧值，不存在时返回 null。
+     *         The previous value, or null if there was none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key == 0) {
+            V previous = (V) zeroValue;
+
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+
+        if (size * 4 > keys.length * 3) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * 删除键，并返回被删除的值。
+     * Remove the key, and return the removed value.
+     *
+     * @param key 键。
+     *            The key.
+     * @return 被删除的值，不存在时返回 null。
+     *         The removed value, or null if there was none.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return null;
+            }
+
+            V previous = (V) zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            return previous;
+        }
+
+        int mask = keys.length - 1;
+
+        for (int slot = mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /*
+      删除后把后续冲突的元素向前移动，保持探测链连续（不使用墓碑标记）。
+      After a removal, move later colliding entries back so probe chains stay unbroken (no tombstones).
+     */
+    private void shiftBack(int gap) {
+        int mask = keys.length - 1;
+        int slot = gap;
+
+        while (true) {
+            slot = (slot + 1) & mask;
+
+            if (keys[slot] == 0) {
+                break;
+            }
+
+            int home = mix(keys[slot]) & mask;
+
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int mask = capacity - 1;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /*
+      打散相邻的键（例如连续的歌曲 ID），避免线性探测时聚集。
+      Scatter adjacent keys (such as consecutive song IDs) to avoid clustering under linear probing.
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
+/*
+ * End of utils.IntHashMap Class.
+ */
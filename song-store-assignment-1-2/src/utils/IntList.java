@@ -0,0 +1,245 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * 升序且不重复的 int 列表，用于存放索引中的行号。
+ * An ascending, duplicate-free list of ints, used to hold the row numbers of an index.
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.4
+ * @since version 5.1
+ */
+public class IntList {
+    private int[] elements;
+    private int size = 0;
+
+    public IntList() {
+        this(4);
+    }
+
+    public IntList(int capacity) {
+        elements = new int[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return elements[index];
+    }
+
+    public int first() {
+        return get(0);
+    }
+
+    public int last() {
+        return get(size - 1);
+    }
+
+    /**
+     * 按顺序插入数值；比最后一个数值大时直接追加。
+     * Insert the value in order; it is simply appended when it is larger than the last value.
+     *
+     * @param value 要插入的数值。
+     *              The value to insert.
+     * @return 如果数值原本不存在，则返回 true。
+     *         True if the value was not already present.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    public boolean add(int value) {
+        if (size == 0 || elements[size - 1] < value) {
+            ensureCapacity(size + 1);
+            elements[size++] = value;
+            return true;
+        }
+
+        int position = Arrays.binarySearch(elements, 0, size, value);
+
+        if (position >= 0) {
+            return false;
+        }
+
+        position = -position - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, position, elements, position + 1, size - position);
+        elements[position] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * 删除数值。
+     * Remove the value.
+     *
+     * @param value 要删除的数值。
+     *              The value to remove.
+     * @return 如果数值存在并被删除，则返回 true。
+     *         True if the value was present and has been removed.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    public boolean remove(int value) {
+        int position = indexOf(value);
+
+        if (position < 0) {
+            return false;
+        }
+        removeAt(position);
+        return true;
+    }
+
+    public int removeAt(int index) {
+        int value = get(index);
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * 一次删除多个位置上的数值，只移动一遍后面的数值，而不是每删除一个移动一遍。
+     * Remove the values at several positions at once, moving the later values only once rather than once per removal.
+     *
+     * @param indexes 要删除的位置，升序且不重复。
+     *                The positions to remove, ascending and without duplicates.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    public void removeAt(int[] indexes) {
+        if (indexes.length == 0) {
+            return;
+        }
+
+        if (indexes[0] < 0 || indexes[indexes.length - 1] >= size) {
+            throw new IndexOutOfBoundsException("Indexes: " + indexes[0] + ".." + indexes[indexes.length - 1] + ", Size: " + size);
+        }
+
+        int kept = indexes[0];
+
+        for (int i = 0; i < indexes.length; i++) {
+            int from = indexes[i] + 1;
+            int to = i + 1 < indexes.length ? indexes[i + 1] : size;
+            System.arraycopy(elements, from, elements, kept, to - from);
+            kept += to - from;
+        }
+        size = kept;
+    }
+
+    /**
+     * 一次加入多个数值，与现有数值合并一遍，而不是逐个插入。
+     * Add several values at once, merging them with the existing values in one pass rather than inserting them one by one.
+     *
+     * @param values 要加入的数值。
+     *               The values to add.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    public void addAll(IntList values) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        if (isEmpty() || last() < values.first()) {
+            ensureCapacity(size + values.size);
+            System.arraycopy(values.elements, 0, elements, size, values.size);
+            size += values.size;
+            return;
+        }
+
+        int[] merged = new int[size + values.size];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < size || j < values.size) {
+            int next;
+
+            if (j == values.size || (i < size && elements[i] <= values.elements[j])) {
+                next = elements[i++];
+            } else {
+                next = values.elements[j++];
+            }
+
+            if (count == 0 || merged[count - 1] != next) {
+                merged[count++] = next;
+            }
+        }
+        elements = merged;
+        size = count;
+    }
+
+    /**
+     * 一次删除多个数值，只移动一遍剩下的数值。
+     * Remove several values at once, moving the remaining values only once.
+     *
+     * @param values 要删除的数值；不存在的数值被忽略。
+     *               The values to remove; values that are absent are ignored.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    public void removeAll(IntList values) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        int kept = 0;
+        int j = 0;
+
+        for (int i = 0; i < size; i++) {
+            while (j < values.size && values.elements[j] < elements[i]) {
+                j++;
+            }
+
+            if (j == values.size || values.elements[j] != elements[i]) {
+                elements[kept++] = elements[i];
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * 二分查找数值所在的位置。
+     * Binary search for the position of the value.
+     *
+     * @param value 要查找的数值。
+     *              The value to look for.
+     * @return 数值所在的位置，不存在时返回负数。
+     *         The position of the value, or a negative number if it is absent.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 5.1
+     */
+    public int indexOf(int value) {
+        int position = Arrays.binarySearch(elements, 0, size, value);
+        return position >= 0 ? position : -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(capacity, elements.length + (elements.length >> 1) + 1));
+        }
+    }
+}
+/*
+ * End of utils.IntList Class.
+ */
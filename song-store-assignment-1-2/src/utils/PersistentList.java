@@ -0,0 +1,303 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 不可变的列表。修改操作不改变原列表，而是返回新的列表，新旧列表共用没有改变的部分（结构共享），所以旧的版本可以被其他线程不加锁地继续读取。
+ * 列表保存为按位置排列的 AVL 树，每个节点记录子树的大小：get、set、add 和 remove 都是 O(log n)，每次修改只复制从根到该位置的 O(log n) 个节点。
+ * An immutable list. Changes do not alter the list but return a new one that shares the unchanged parts with the old one (structural
+ * sharing), so old versions can still be read by other threads without a lock. The list is kept as an AVL tree ordered by position, where
+ * every node records the size of its subtree: get, set, add and remove are all O(log n), and each change copies only the O(log n) nodes on
+ * the path from the root to the position.
+ *
+ * @param <T> 元素的类型。
+ *            The type of the elements.
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.3
+ * @since version 7.3
+ */
+public final class PersistentList<T> implements Iterable<T> {
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null);
+
+    private final Node<T> root;
+
+    private PersistentList(Node<T> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentList<T> empty() {
+        return (PersistentList<T>) EMPTY;
+    }
+
+    /**
+     * 用给定元素创建平衡的列表，时间为 O(n)。
+     * Create a balanced list of the given elements, in O(n) time.
+     *
+     * @param elements 元素，按顺序。
+     *                 The elements, in order.
+     * @return 新的列表。
+     *         The new list.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public static <T> PersistentList<T> of(List<? extends T> elements) {
+        return new PersistentList<>(build(elements, 0, elements.size()));
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public T get(int index) {
+        checkIndex(index, size());
+        Node<T> node = root;
+
+        while (true) {
+            int leftSize = size(node.left);
+
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * 返回把 index 位置上的元素替换为 value 的新列表。
+     * Return a new list with the element at index replaced by value.
+     *
+     * @param index 元素的位置。
+     *              The position of the element.
+     * @param value 新的元素。
+     *              The new element.
+     * @return 新的列表。
+     *         The new list.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public PersistentList<T> set(int index, T value) {
+        checkIndex(index, size());
+        return new PersistentList<>(set(root, index, value));
+    }
+
+    /**
+     * 返回在末尾追加 value 的新列表。
+     * Return a new list with value appended at the end.
+     *
+     * @param value 新的元素。
+     *              The new element.
+     * @return 新的列表。
+     *         The new list.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public PersistentList<T> add(T value) {
+        return add(size(), value);
+    }
+
+    /**
+     * 返回在 index 位置插入 value 的新列表，原来在 index 及之后的元素向后移动一位。
+     * Return a new list with value inserted at index; the elements at index and after move back by one.
+     *
+     * @param index 插入的位置，从 0 到 size()。
+     *              The position to insert at, from 0 to size().
+     * @param value 新的元素。
+     *              The new element.
+     * @return 新的列表。
+     *         The new list.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public PersistentList<T> add(int index, T value) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return new PersistentList<>(insert(root, index, value));
+    }
+
+    /**
+     * 返回删除 index 位置上元素的新列表，之后的元素向前移动一位。
+     * Return a new list without the element at index; the elements after it move forward by one.
+     *
+     * @param index 元素的位置。
+     *              The position of the element.
+     * @return 新的列表。
+     *         The new list.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public PersistentList<T> remove(int index) {
+        checkIndex(index, size());
+        return new PersistentList<>(remove(root, index));
+    }
+
+    /*
+      按顺序遍历，总共 O(n)，比逐个 get 的 O(n log n) 快。
+      Iterates in order in O(n) in total, faster than O(n log n) for calling get one by one.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private final ArrayDeque<Node<T>> path = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+
+                Node<T> node = path.pop();
+                pushLeft(node.right);
+                return node.value;
+            }
+
+            private void pushLeft(Node<T> node) {
+                for (; node != null; node = node.left) {
+                    path.push(node);
+                }
+            }
+        };
+    }
+
+    //-------------------------
+    // TREE OPERATIONS
+    //-------------------------
+
+    private static <T> Node<T> build(List<? extends T> elements, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+
+        int middle = (from + to) >>> 1;
+        return new Node<>(build(elements, from, middle), elements.get(middle), build(elements, middle + 1, to));
+    }
+
+    private static <T> Node<T> set(Node<T> node, int index, T value) {
+        int leftSize = size(node.left);
+
+        if (index < leftSize) {
+            return new Node<>(set(node.left, index, value), node.value, node.right);
+        } else if (index > leftSize) {
+            return new Node<>(node.left, node.value, set(node.right, index - leftSize - 1, value));
+        }
+        return new Node<>(node.left, value, node.right);
+    }
+
+    private static <T> Node<T> insert(Node<T> node, int index, T value) {
+        if (node == null) {
+            return new Node<>(null, value, null);
+        }
+
+        int leftSize = size(node.left);
+
+        if (index <= leftSize) {
+            return balance(insert(node.left, index, value), node.value, node.right);
+        }
+        return balance(node.left, node.value, insert(node.right, index - leftSize - 1, value));
+    }
+
+    private static <T> Node<T> remove(Node<T> node, int index) {
+        int leftSize = size(node.left);
+
+        if (index < leftSize) {
+            return balance(remove(node.left, index), node.value, node.right);
+        } else if (index > leftSize) {
+            return balance(node.left, node.value, remove(node.right, index - leftSize - 1));
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+
+        /*
+          有两个子树时，用右子树的第一个元素代替被删除的元素。
+          With two subtrees, the first element of the right subtree takes the place of the removed one.
+         */
+        return balance(node.left, first(node.right), remove(node.right, 0));
+    }
+
+    private static <T> T first(Node<T> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.value;
+    }
+
+    /*
+      创建节点，左右子树的高度相差超过 1 时旋转。子树本身已经平衡，且高度差最多为 2，所以最多旋转两次。
+      Create a node, rotating when the heights of the subtrees differ by more than 1. The subtrees are balanced themselves and differ by at
+      most 2, so at most two rotations are needed.
+     */
+    private static <T> Node<T> balance(Node<T> left, T value, Node<T> right) {
+        int difference = height(left) - height(right);
+
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.left, left.value, new Node<>(left.right, value, right));
+            }
+            return new Node<>(new Node<>(left.left, left.value, left.right.left), left.right.value,
+                    new Node<>(left.right.right, value, right));
+        } else if (difference < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(new Node<>(left, value, right.left), right.value, right.right);
+            }
+            return new Node<>(new Node<>(left, value, right.left.left), right.left.value,
+                    new Node<>(right.left.right, right.value, right.right));
+        }
+        return new Node<>(left, value, right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static final class Node<T> {
+        private final Node<T> left;
+        private final T value;
+        private final Node<T> right;
+        private final int size;
+        private final int height;
+
+        Node(Node<T> left, T value, Node<T> right) {
+            this.left = left;
+            this.value = value;
+            this.right = right;
+            this.size = size(left) + 1 + size(right);
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+}
+/*
+ * End of utils.PersistentList Class.
+ */
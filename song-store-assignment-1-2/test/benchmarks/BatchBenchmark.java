@@ -0,0 +1,127 @@
+package benchmarks;
+
+import controllers.Playlist;
+import models.Song;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 此类用于比较逐首调用 addSong、updateSong 和 deleteSong 与一次调用 addSongs、updateSongs 和 deleteSongs 同步一批修改的时间，
+ * 例如每晚的曲库同步。
+ * This class compares the time to apply a batch of changes, for example the nightly catalog sync, by calling addSong, updateSong and
+ * deleteSong for each song with calling addSongs, updateSongs and deleteSongs once.
+ *
+ * 运行方式 / Run with: java -cp ... benchmarks.BatchBenchmark [songCount] [changeCount]
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.4
+ * @since version 7.4
+ */
+public class BatchBenchmark {
+
+    public static void main(String[] args) {
+        int songCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int changeCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        /*
+          前两轮用于预热，不计入结果。两种方式各自使用新的歌曲对象，因为索引会注册为歌曲的监听器。
+          计时包括之后第一次查找，确保索引在两种方式下都已更新。
+          The first two rounds warm up and are not counted. Each way uses its own song objects, because the index registers as a listener of
+          its songs. The timing includes the first lookup afterwards, so that the index is up to date in both ways.
+         */
+        for (int round = 0; round < 3; round++) {
+            Playlist single = createPlaylist(songCount);
+            ArrayList<Song> added = songs(changeCount, new Random(42));
+            Map<Integer, Song> updates = updates(songCount, changeCount);
+            int[] positions = deletes(songCount, changeCount);
+            Arrays.sort(positions);
+            System.gc();
+
+            long start = System.nanoTime();
+            for (Song song : added) {
+                single.addSong(song);
+            }
+            for (Map.Entry<Integer, Song> update : updates.entrySet()) {
+                single.updateSong(update.getKey(), update.getValue());
+            }
+            for (int i = positions.length - 1; i >= 0; i--) {
+                if (i == positions.length - 1 || positions[i] != positions[i + 1]) {
+                    single.deleteSong(positions[i]);
+                }
+            }
+            single.findSongByCode(1000);
+            double singleMillis = (System.nanoTime() - start) / 1e6;
+
+            Playlist batched = createPlaylist(songCount);
+            added = songs(changeCount, new Random(42));
+            updates = updates(songCount, changeCount);
+            int[] deletes = deletes(songCount, changeCount);
+            System.gc();
+
+            start = System.nanoTime();
+            batched.addSongs(added);
+            batched.updateSongs(updates);
+            batched.deleteSongs(deletes);
+            batched.findSongByCode(1000);
+            double batchMillis = (System.nanoTime() - start) / 1e6;
+
+            if (!single.toString().equals(batched.toString())) {
+                throw new IllegalStateException("Different results");
+            }
+
+            if (round == 2) {
+                System.out.println("Songs: " + songCount + ", changes: " + changeCount + " adds, updates and deletes each");
+                System.out.printf("One by one: %8.1f ms%n", singleMillis);
+                System.out.printf("Batches:    %8.1f ms (%.1fx)%n", batchMillis, singleMillis / batchMillis);
+            }
+        }
+    }
+
+    private static Map<Integer, Song> updates(int songCount, int changeCount) {
+        Random random = new Random(43);
+        Map<Integer, Song> updates = new HashMap<>();
+
+        for (Song song : songs(changeCount, random)) {
+            updates.put(random.nextInt(songCount), song);
+        }
+        return updates;
+    }
+
+    private static int[] deletes(int songCount, int changeCount) {
+        Random random = new Random(44);
+        int[] deletes = new int[changeCount];
+
+        for (int i = 0; i < deletes.length; i++) {
+            deletes[i] = random.nextInt(songCount);
+        }
+        return deletes;
+    }
+
+    private static ArrayList<Song> songs(int count, Random random) {
+        ArrayList<Song> songs = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            songs.add(new Song(1000 + random.nextInt(9000), "Song " + random.nextInt(1_000_000), "Artist " + random.nextInt(2000),
+                    random.nextBoolean(), 1 + random.nextInt(600)));
+        }
+        return songs;
+    }
+
+    /*
+      建立索引，与正在使用的歌单相同。
+      The index is built, as in a playlist in use.
+     */
+    private static Playlist createPlaylist(int songCount) {
+        Playlist playlist = new Playlist("Benchmark", "Batch benchmark");
+        playlist.setSongs(songs(songCount, new Random(7)));
+        playlist.findSongByCode(1000);
+        return playlist;
+    }
+}
+/*
+ * End of benchmarks.BatchBenchmark Class.
+ */
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import controllers.Playlist;
+import models.Song;
+import persistence.ImportReport;
+import persistence.SongImporter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * 此类用于比较 SongImporter 使用 1 个和多个线程导入一个大的 CSV 文件的速度（每秒处理的行数），以及逐行用 String.split 解析、
+ * 逐首调用 addSong 的简单做法。文件中约 1% 的行是无效的。
+ * This class compares the speed (rows per second) of SongImporter importing a large CSV file with one thread and with several, and of the
+ * simple way of parsing each row with String.split and calling addSong for each song. About 1% of the rows in the file are invalid.
+ *
+ * 运行方式 / Run with: java -cp ... benchmarks.ImportBenchmark [rowCount]
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.5
+ * @since version 7.5
+ */
+public class ImportBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int processors = Runtime.getRuntime().availableProcessors();
+        File file = File.createTempFile("songs", ".csv");
+
+        try {
+            write(file, rowCount);
+            System.out.println("Rows: " + rowCount + ", available processors: " + processors);
+
+            /*
+              第一轮用于预热，不计入结果。
+              The first round warms up and is not counted.
+             */
+            for (int round = 0; round <= ROUNDS; round++) {
+                double naive = naive(file);
+                ImportReport one = new SongImporter(1, SongImporter.DEFAULT_CHUNK_LINES).importFile(file, playlist(), null);
+                ImportReport many = new SongImporter().importFile(file, playlist(), null);
+
+                if (round > 0) {
+                    System.out.printf("Round %d: split + addSong %,10.0f rows/sec | importer, 1 thread %,10.0f rows/sec"
+                                    + " | importer, %d threads %,10.0f rows/sec (%d rejected)%n",
+                            round, naive, one.getRowsPerSecond(), processors, many.getRowsPerSecond(), many.getRejected());
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static Playlist playlist() {
+        return new Playlist("Benchmark", "Import benchmark");
+    }
+
+    private static void write(File file, int rowCount) throws IOException {
+        Random random = new Random(42);
+
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            out.write("songId,name,artist,verified,length\n");
+
+            for (int i = 0; i < rowCount; i++) {
+                int length = random.nextInt(100) == 0 ? 0 : 1 + random.nextInt(600);
+                out.write((1000 + random.nextInt(9000)) + ",Song " + random.nextInt(1_000_000) + ",Artist " + random.nextInt(2000)
+                        + "," + random.nextBoolean() + "," + length + "\n");
+            }
+        }
+    }
+
+    /*
+      简单的做法：逐行解析，逐首添加。返回每秒处理的行数。
+      The simple way: parse row by row and add song by song. Returns the rows per second.
+     */
+    private static double naive(File file) throws IOException {
+        long start = System.nanoTime();
+        Playlist playlist = playlist();
+        int rows = 0;
+
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            in.readLine();
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split(",");
+                int length = Integer.parseInt(fields[4]);
+                rows++;
+
+                if (length >= 1 && length <= 600) {
+                    playlist.addSong(new Song(Integer.parseInt(fields[0]), fields[1], fields[2], Boolean.parseBoolean(fields[3]), length));
+                }
+            }
+        }
+        return rows * 1e9 / (System.nanoTime() - start);
+    }
+}
+/*
+ * End of benchmarks.ImportBenchmark Class.
+ */
@@ -0,0 +1,102 @@
+package benchmarks;
+
+import controllers.Playlist;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 此类用于比较 Playlist.addLike()（LongAdder）与 synchronized 计数器在 1 到 64 个线程同时点赞时的吞吐量。
+ * This class compares the throughput of Playlist.addLike() (a LongAdder) with a synchronized counter, with 1 to 64 threads liking at once.
+ *
+ * 运行方式 / Run with: java -cp ... benchmarks.LikesBenchmark [likesPerThread]
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.2
+ * @since version 7.2
+ */
+public class LikesBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        int likesPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println("Likes per thread: " + likesPerThread + ", available processors: " + Runtime.getRuntime().availableProcessors());
+
+        for (int threads : THREADS) {
+            double adder = 0;
+            double locked = 0;
+
+            /*
+              第一轮用于预热，不计入结果。
+              The first round warms up and is not counted.
+             */
+            for (int round = 0; round <= ROUNDS; round++) {
+                Playlist playlist = new Playlist("Benchmark", "Likes benchmark");
+                double adderMillis = run(threads, likesPerThread, playlist::addLike);
+                SynchronizedCounter counter = new SynchronizedCounter();
+                double lockedMillis = run(threads, likesPerThread, counter::increment);
+
+                if (playlist.getLikes() != threads * likesPerThread || counter.get() != threads * likesPerThread) {
+                    throw new IllegalStateException("Lost likes");
+                }
+
+                if (round > 0) {
+                    adder += adderMillis / ROUNDS;
+                    locked += lockedMillis / ROUNDS;
+                }
+            }
+
+            long likes = (long) threads * likesPerThread;
+            System.out.printf("%2d threads: LongAdder %8.1f ms (%6.1f M likes/s), synchronized %8.1f ms (%6.1f M likes/s), %.1fx%n",
+                    threads, adder, likes / adder / 1e3, locked, likes / locked / 1e3, locked / adder);
+        }
+    }
+
+    private static double run(int threads, int likesPerThread, Runnable like) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                for (int i = 0; i < likesPerThread; i++) {
+                    like.run();
+                }
+            });
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (System.nanoTime() - begin) / 1e6;
+    }
+
+    /*
+      对照组：与原来的 likes++ 相同，但用 synchronized 保证不丢失。
+      The baseline: the same as the original likes++, made safe with synchronized.
+     */
+    private static class SynchronizedCounter {
+        private int likes = 0;
+
+        synchronized void increment() {
+            likes++;
+        }
+
+        synchronized int get() {
+            return likes;
+        }
+    }
+}
+/*
+ * End of benchmarks.LikesBenchmark Class.
+ */
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import controllers.Playlist;
+import models.Song;
+import persistence.AtomicFile;
+import persistence.PlaylistStore;
+import persistence.StoreFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * 此类用于比较每种保存格式的文件大小与加载时间，以及原来的 XStream DomDriver 加载时间。
+ * This class compares the file size and load time of each store format, and the load time of the original XStream DomDriver.
+ *
+ * 运行方式 / Run with: java -Xmx4g -cp ... benchmarks.PersistenceBenchmark [songCount]
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.0
+ * @since version 5.8
+ */
+public class PersistenceBenchmark {
+    private static final int ROUNDS = 3;
+
+    /*
+      DomDriver 的加载时间随歌曲数量超线性增长，超过这个数量就不再测量。
+      The DomDriver load time grows faster than linearly with the song count, so it is not measured above this count.
+     */
+    private static final int MAX_DOM_SONGS = 20_000;
+
+    public static void main(String[] args) throws IOException {
+        int songCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Random random = new Random(42);
+        Playlist playlist = new Playlist("Benchmark", "Persistence benchmark");
+
+        for (int i = 0; i < songCount; i++) {
+            playlist.addSong(new Song(1000 + random.nextInt(9000), "Song " + i, "Artist " + random.nextInt(2000), random.nextBoolean(), 1 + random.nextInt(600)));
+        }
+
+        System.out.println("Songs: " + songCount);
+
+        for (StoreFormat format : StoreFormat.values()) {
+            File file = File.createTempFile("playlist", "." + format.name().toLowerCase());
+            file.deleteOnExit();
+
+            // saving rotates the empty temp file into a backup
+            for (int generation = 1; generation <= PlaylistStore.BACKUPS; generation++) {
+                AtomicFile.backupFile(file, generation).deleteOnExit();
+            }
+
+            long start = System.nanoTime();
+            PlaylistStore.save(playlist, file, format);
+            double saveMillis = (System.nanoTime() - start) / 1e6;
+
+            double loadMillis = Double.MAX_VALUE;
+
+            for (int i = 0; i < ROUNDS; i++) {
+                start = System.nanoTime();
+                Playlist loaded = PlaylistStore.load(file);
+                loadMillis = Math.min(loadMillis, (System.nanoTime() - start) / 1e6);
+
+                if (loaded.numSongs() != songCount) {
+                    throw new IllegalStateException("Loaded " + loaded.numSongs() + " songs");
+                }
+            }
+
+            System.out.printf("%-6s size %,12d bytes, save %8.1f ms, best load %8.1f ms%n", format, file.length(), saveMillis, loadMillis);
+
+            if (format == StoreFormat.XML && songCount <= MAX_DOM_SONGS) {
+                start = System.nanoTime();
+                PlaylistStore.createXStream().fromXML(file);
+                System.out.printf("XML via XStream DomDriver: load %8.1f ms%n", (System.nanoTime() - start) / 1e6);
+            }
+        }
+    }
+}
+/*
+ * End of benchmarks.PersistenceBenchmark Class.
+ */
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import controllers.Playlist;
+import models.Song;
+
+import java.util.Random;
+
+/**
+ * 此类用于测量 Playlist.searchSongsByName 在一百万首歌曲上的速度，并与原来的遍历方式比较。
+ * This class measures Playlist.searchSongsByName on one million songs, compared with the original linear scan.
+ *
+ * 运行方式 / Run with: java -Xmx4g -cp ... benchmarks.SearchBenchmark [songCount]
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 5.3
+ * @since version 5.3
+ */
+public class SearchBenchmark {
+    private static final String[] WORDS = {
+            "Love", "Night", "Fire", "Dream", "Heart", "Rain", "Summer", "Dance", "Light", "Home",
+            "Blue", "Gold", "Wild", "Sky", "River", "Road", "Star", "Moon", "Storm", "Echo"
+    };
+    private static final String CODE_CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        int songCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        Playlist playlist = new Playlist("Benchmark", "Search benchmark");
+
+        for (int i = 0; i < songCount; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + code(random);
+            playlist.addSong(new Song(1000 + random.nextInt(9000), name, "Artist " + random.nextInt(5000), random.nextBoolean(), 1 + random.nextInt(600)));
+        }
+
+        String[] queries = {code(random), "x7q", "Storm Echo", "Love"};
+        System.out.println("Songs: " + songCount);
+
+        for (String query : queries) {
+            int matches = countMatches(playlist, query);
+
+            for (int i = 0; i < 5; i++) {
+                playlist.searchSongsByName(query);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                playlist.searchSongsByName(query);
+            }
+            double indexed = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                linearScan(playlist, query);
+            }
+            double scanned = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+            System.out.printf("query '%s': %d matches, indexed %.3f ms, linear scan %.3f ms%n", query, matches, indexed, scanned);
+        }
+    }
+
+    /*
+      原来的实现：对每首歌曲调用 contains，并输出相同的字符串。
+      The original implementation: contains on every song, producing the same string.
+     */
+    private static String linearScan(Playlist playlist, String query) {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < playlist.getSongs().size(); i++) {
+            Song song = playlist.getSongs().get(i);
+
+            if (song.getName().contains(query)) {
+                builder.append(i).append(": ").append(song).append("\n");
+            }
+        }
+        return builder.toString().trim();
+    }
+
+    private static int countMatches(Playlist playlist, String query) {
+        int matches = 0;
+
+        for (Song song : playlist.getSongs()) {
+            if (song.getName().contains(query)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static String code(Random random) {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < 4; i++) {
+            builder.append(CODE_CHARACTERS.charAt(random.nextInt(CODE_CHARACTERS.length())));
+        }
+        return builder.toString();
+    }
+}
+/*
+ * End of benchmarks.SearchBenchmark Class.
+ */
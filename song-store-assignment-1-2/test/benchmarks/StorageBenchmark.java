@@ -0,0 +1,124 @@
+package benchmarks;
+
+import controllers.Playlist;
+import models.Song;
+import persistence.MappedPlaylistFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * 此类用于比较歌单以 Song 对象的 ArrayList 保存、按列保存（Playlist.compactStorage()）与保存在堆外内存（MappedPlaylistFormat.moveOffHeap）
+ * 时占用的堆内存，以及按编号查找和生成报表的时间。
+ * This class compares the heap used by a playlist stored as an ArrayList of Song objects, stored by column (Playlist.compactStorage()) and
+ * stored off-heap (MappedPlaylistFormat.moveOffHeap), and the time to find songs by code and to build reports.
+ *
+ * 运行方式 / Run with: java -Xmx4g -cp ... benchmarks.StorageBenchmark [songCount]
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 6.8
+ * @since version 6.7
+ */
+public class StorageBenchmark {
+    private static final int LOOKUPS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        int songCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long empty = usedHeap();
+        Playlist playlist = createPlaylist(songCount);
+        long objects = usedHeap() - empty;
+        double objectLookupMillis = lookups(playlist);
+        double objectReportMillis = reports(playlist);
+
+        playlist.compactStorage();
+        long columns = usedHeap() - empty;
+        double columnLookupMillis = lookups(playlist);
+        double columnReportMillis = reports(playlist);
+
+        MappedPlaylistFormat.moveOffHeap(playlist);
+        long offHeap = usedHeap() - empty;
+        double offHeapLookupMillis = lookups(playlist);
+        double offHeapReportMillis = reports(playlist);
+
+        System.out.println("Songs: " + songCount);
+        print("ArrayList<Song>:", objects, songCount, objectLookupMillis, objectReportMillis);
+        print("Columns:        ", columns, songCount, columnLookupMillis, columnReportMillis);
+        print("Off-heap:       ", offHeap, songCount, offHeapLookupMillis, offHeapReportMillis);
+        System.out.printf("Reduction: columns %.1fx, off-heap %.1fx%n", (double) objects / columns, (double) objects / offHeap);
+
+        if (playlist.numSongs() != songCount) {
+            throw new IllegalStateException("Lost songs");
+        }
+    }
+
+    /*
+      与加载的歌单相同：每首歌曲有自己的 Artist 和 String 对象，没有建立索引。
+      Like a loaded playlist: every song has its own Artist and String objects, and no index has been built.
+     */
+    private static Playlist createPlaylist(int songCount) {
+        Random random = new Random(42);
+        ArrayList<Song> songs = new ArrayList<>(songCount);
+
+        for (int i = 0; i < songCount; i++) {
+            songs.add(new Song(1000 + random.nextInt(9000), "Song " + random.nextInt(songCount), "Artist " + random.nextInt(2000),
+                    random.nextBoolean(), 1 + random.nextInt(600)));
+        }
+
+        Playlist playlist = new Playlist("Benchmark", "Storage benchmark");
+        playlist.setSongs(songs);
+        return playlist;
+    }
+
+    private static double lookups(Playlist playlist) {
+        Random random = new Random(7);
+        int found = 0;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (playlist.findSongByCode(1000 + random.nextInt(9000)) != null) {
+                found++;
+            }
+        }
+
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        if (found == 0) {
+            throw new IllegalStateException("Nothing found");
+        }
+        return millis;
+    }
+
+    /*
+      报表方法只读取长度和验证状态，不创建 Song 对象。
+      The report methods only read lengths and verified flags, without creating Song objects.
+     */
+    private static double reports(Playlist playlist) {
+        long start = System.nanoTime();
+        long checksum = playlist.getTotalPlayListLength() + playlist.numberOfShortSongs() + playlist.listLongestSongs(10).length();
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        if (checksum == 0) {
+            throw new IllegalStateException("Empty reports");
+        }
+        return millis;
+    }
+
+    private static void print(String label, long bytes, int songCount, double lookupMillis, double reportMillis) {
+        System.out.printf("%s %,14d heap bytes (%5.1f bytes/song), %d lookups by code %8.1f ms, reports %8.1f ms%n",
+                label, bytes, (double) bytes / songCount, LOOKUPS, lookupMillis, reportMillis);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
+/*
+ * End of benchmarks.StorageBenchmark Class.
+ */
@@ -0,0 +1,131 @@
+package controllers;
+
+import models.Song;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarSongSourceTest {
+    Playlist playList;
+    String before;
+    List<Song> originals;
+
+    @BeforeEach
+    void setUp() {
+        playList = new Playlist("Chill-24", "Chillout songs to study to");
+        playList.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        playList.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+        playList.addSong(new Song(1500, "Shake It Off", "Taylor Swift", true, 219));
+        playList.addSong(new Song(2000, "Café del Mar ♪", "Energy 52", false, 420));
+        playList.findSong(1).setArtistName("Old artist field");
+        playList.findSong(1).setVerified(true);
+        before = playList.toString();
+        originals = new ArrayList<>(playList.getSongs());
+    }
+
+    @Test
+    void compactingKeepsTheContent() {
+        playList.compactStorage();
+
+        assertEquals(4, playList.numSongs());
+        assertEquals(before, playList.toString());
+        assertEquals("Old artist field", playList.findSong(1).getArtistName());
+        assertTrue(playList.findSong(1).isVerified());
+        assertTrue(playList.findSong(2).getArtist().isVerified());
+        assertEquals(originals, playList.getSongs());
+    }
+
+    @Test
+    void lookupsReadTheColumns() {
+        playList.compactStorage();
+
+        assertSame(playList.findSong(0), playList.findSongByCode(1500));
+        assertEquals("Calm Down", playList.findSongByCode(9999).getName());
+        assertNull(playList.findSongByCode(1234));
+
+        int count = 0;
+        for (Song song : playList) {
+            assertEquals(originals.get(count++), song);
+        }
+        assertEquals(4, count);
+    }
+
+    @Test
+    void changesSurviveTheCache() {
+        ColumnarSongSource source = new ColumnarSongSource(originals, 1);
+        Song first = source.song(0);
+        first.setLength(1);
+        source.song(1);
+        source.song(2);
+
+        assertSame(first, source.song(0));
+        Song fourth = source.song(3);
+        source.song(1);
+        assertSame(fourth, source.song(3));
+
+        source.song(2).setSongId(4321);
+        source.song(1);
+        assertEquals(2, source.positionOfCode(4321));
+        assertEquals(0, source.positionOfCode(1500));
+    }
+
+    @Test
+    void otherMethodsStillWork() {
+        playList.compactStorage();
+
+        assertEquals(1362, playList.getTotalPlayListLength());
+        assertTrue(playList.updateSong(0, new Song(1501, "Anti-Hero (Live)", "Taylor Swift", true, 130)));
+        assertNotNull(playList.deleteSong(3));
+        assertEquals(3, playList.numSongs());
+        assertEquals("Anti-Hero (Live)", playList.findSongByCode(1501).getName());
+
+        playList.compactStorage();
+        assertEquals("Anti-Hero (Live)", playList.findSongByCode(1501).getName());
+        assertEquals(3, playList.numSongs());
+    }
+
+    @Test
+    void reportsDoNotTakeAllTheSongs() {
+        String[] reports = {playList.listSongsFromVerifiedArtists(), playList.listSongsLongerThan(200),
+                playList.listSongsBetween(123, 420), playList.listLongestSongs(10), playList.listLongestSongs(2)};
+        int average = playList.getAverageSongLength();
+        ColumnarSongSource columns = new ColumnarSongSource(originals, 2);
+
+        playList.useStorage(new SongSource() {
+            public int size() { return columns.size(); }
+            public Song song(int position) { return columns.song(position); }
+            public int positionOfCode(int songCode) { return columns.positionOfCode(songCode); }
+            public int length(int position) { return columns.length(position); }
+            public boolean isArtistVerified(int position) { return columns.isArtistVerified(position); }
+            public ArrayList<Song> songs() { throw new AssertionError("songs taken"); }
+        });
+
+        assertArrayEquals(reports, new String[]{playList.listSongsFromVerifiedArtists(), playList.listSongsLongerThan(200),
+                playList.listSongsBetween(123, 420), playList.listLongestSongs(10), playList.listLongestSongs(2)});
+        assertEquals(average, playList.getAverageSongLength());
+        assertEquals(1, playList.numberOfShortSongs());
+        assertEquals(before, playList.toString());
+    }
+
+    @Test
+    void stringsAreStoredOnce() {
+        ColumnarSongSource.StringTable.Builder builder = new ColumnarSongSource.StringTable.Builder();
+        int first = builder.add("Taylor Swift");
+        assertEquals(first, builder.add("Taylor Swift"));
+        assertEquals(-1, builder.add(null));
+        int second = builder.add("Café ♪");
+
+        ColumnarSongSource.StringTable table = builder.build();
+        assertEquals(2, table.size());
+        assertEquals("Taylor Swift", table.get(first));
+        assertEquals("Café ♪", table.get(second));
+        assertNull(table.get(-1));
+    }
+}
+/*
+ * End of controllers.ColumnarSongSourceTest Class.
+ */
@@ -0,0 +1,212 @@
+package controllers;
+
+import models.Song;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPlaylistTest {
+    static final int ADDERS = 4;
+    static final int SONGS_PER_ADDER = 500;
+    static final int DELETERS = 2;
+    static final int DELETES_PER_DELETER = 100;
+    static final int LIKERS = 4;
+    static final int LIKES_PER_LIKER = 2000;
+    static final int READERS = 4;
+
+    ConcurrentPlaylist playList;
+    Playlist plain;
+
+    @BeforeEach
+    void setUp() {
+        playList = new ConcurrentPlaylist("Chill-24", "Chillout songs to study to");
+        plain = new Playlist("Chill-24", "Chillout songs to study to");
+    }
+
+    @Nested
+    class Concurrency {
+
+        @Test
+        void mixedLoadLosesNoUpdates() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(ADDERS + DELETERS + LIKERS + READERS);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean writing = new AtomicBoolean(true);
+            List<Song> deleted = Collections.synchronizedList(new ArrayList<>());
+            List<Future<?>> writers = new ArrayList<>();
+            List<Future<?>> readers = new ArrayList<>();
+
+            for (int a = 0; a < ADDERS; a++) {
+                int adder = a;
+                writers.add(executor.submit(() -> {
+                    start.await();
+
+                    for (int i = 0; i < SONGS_PER_ADDER; i++) {
+                        int code = 1000 + adder * SONGS_PER_ADDER + i;
+                        assertTrue(playList.addSong(new Song(code, "Song " + code, "Artist " + adder, adder % 2 == 0, 1 + code % 600)));
+
+                        if (i % 10 == 0) {
+                            playList.updateSong(0, new Song(code, "Updated " + code, "Artist " + adder, true, 200));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (int d = 0; d < DELETERS; d++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+
+                    for (int i = 0; i < DELETES_PER_DELETER; ) {
+                        Song song = playList.deleteSong(0);
+
+                        if (song != null) {
+                            deleted.add(song);
+                            i++;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (int l = 0; l < LIKERS; l++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+
+                    for (int i = 0; i < LIKES_PER_LIKER; i++) {
+                        playList.addLike();
+                    }
+                    return null;
+                }));
+            }
+
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+
+                    while (writing.get()) {
+                        int count = playList.numSongs();
+                        assertNotNull(playList.listSongs());
+                        assertNotNull(playList.listSongsFromVerifiedArtists());
+                        assertNotNull(playList.listLongestSongs(5));
+                        assertNotNull(playList.searchSongsByName("Song 1"));
+                        assertTrue(playList.query().fromVerifiedArtists().lengthBetween(100, 400).count() <= ADDERS * SONGS_PER_ADDER);
+                        assertTrue(playList.getTotalPlayListLength() == -1 || playList.getTotalPlayListLength() > 0);
+                        playList.findSongByCode(1000 + count);
+
+                        for (Song song : playList) {
+                            assertNotNull(song);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            assertEquals(ADDERS * SONGS_PER_ADDER - DELETERS * DELETES_PER_DELETER, playList.numSongs());
+            assertEquals(DELETERS * DELETES_PER_DELETER, deleted.size());
+            assertEquals(LIKERS * LIKES_PER_LIKER, playList.getLikes());
+
+            int total = 0;
+
+            for (Song song : playList) {
+                total += song.getLength();
+                assertNotNull(playList.findSongByCode(song.getSongId()));
+            }
+            assertEquals(total, playList.getTotalPlayListLength());
+            assertEquals(playList.getSongs().get(0), playList.findSong(0));
+        }
+    }
+
+    @Nested
+    class PlaylistMethods {
+
+        @Test
+        void behavesLikeAPlaylist() {
+            for (Playlist each : List.of(playList, plain)) {
+                each.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+                each.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+                each.addLike();
+                each.deleteSong(5);
+            }
+
+            PlaylistFixtures.assertSameReports(plain, playList);
+            assertEquals(plain.query().longerThan(200).list(), playList.query().longerThan(200).list());
+
+            ArrayList<Song> snapshot = playList.getSongs();
+            snapshot.clear();
+            assertEquals(2, playList.numSongs());
+        }
+
+        @Test
+        void storageStaysInstalled() {
+            playList.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+            playList.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+
+            playList.compactStorage();
+            assertTrue(playList.hasSongSource());
+            assertEquals("Calm Down", playList.findSong(1).getName());
+            assertSame(playList.findSong(0), playList.findSongByCode(1500));
+            assertEquals(723, playList.getTotalPlayListLength());
+            assertEquals(1, playList.numberOfSongsFromVerifiedArtists());
+            assertTrue(playList.hasSongSource());
+
+            playList.setSongSource(new ColumnarSongSource(List.of(new Song(2000, "Shake It Off", "Taylor Swift", true, 219)), 1));
+            assertTrue(playList.hasSongSource());
+            assertEquals("Shake It Off", playList.snapshot().findSong(0).getName());
+            assertEquals("Shake It Off", playList.findSong(0).getName());
+            assertTrue(playList.hasSongSource());
+
+            // a read that needs every song takes them and builds the index under the write lock
+            assertTrue(playList.searchSongsByName("Shake").contains("Shake It Off"));
+            assertFalse(playList.hasSongSource());
+            assertEquals(1, playList.numSongs());
+        }
+    }
+
+    @Nested
+    class Batches {
+
+        @Test
+        void batchesArePublishedAtOnce() {
+            for (Playlist each : List.of(playList, plain)) {
+                each.addSongs(PlaylistFixtures.numberedSongs(1000, 12));
+                each.updateSongs(Map.of(2, new Song(2002, "Updated", "Artist 9", true, 300), 20, new Song(2020, "Missing", "Artist 9", true, 300)));
+                each.deleteSongs(0, 11, 4, 4);
+            }
+
+            PlaylistSnapshot snapshot = playList.snapshot();
+            PlaylistFixtures.assertSameReports(plain, playList);
+            PlaylistFixtures.assertSameReports(plain, snapshot);
+            assertEquals(3, snapshot.getVersion());
+        }
+    }
+}
+/*
+ * End of controllers.ConcurrentPlaylistTest Class.
+ */
@@ -0,0 +1,127 @@
+package controllers;
+
+import models.Song;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryTest {
+    Library library;
+    Playlist chill, workout;
+
+    @BeforeEach
+    void setUp() {
+        library = new Library();
+        chill = library.createPlaylist("Chill-24", "Chillout songs to study to");
+        workout = library.createPlaylist("Workout", "Fast songs");
+    }
+
+    @Test
+    void playlistsShareCanonicalSongsAndArtists() {
+        assertTrue(library.addSong(chill, new Song(1500, "Anti-Hero", "Taylor Swift", false, 123)));
+        assertTrue(library.addSong(workout, new Song(1500, "Anti-Hero", "Taylor Swift", false, 123)));
+        assertTrue(library.addSong(workout, new Song(2000, "Shake It Off", "Taylor Swift", false, 219)));
+
+        assertSame(chill.findSong(0), workout.findSong(0));
+        assertSame(chill.findSong(0).getArtist(), workout.findSong(1).getArtist());
+        assertEquals(2, library.numSongs());
+        assertEquals(1, library.numArtists());
+
+        // one change reaches every playlist
+        assertTrue(library.setArtistVerified("Taylor Swift", true));
+        assertTrue(chill.findSong(0).getArtist().isVerified());
+        assertTrue(workout.findSong(1).getArtist().isVerified());
+        assertFalse(library.setArtistVerified("Nobody", true));
+    }
+
+    @Test
+    void differentSongWithATakenIdStaysPrivate() {
+        library.addSong(chill, new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        Song other = new Song(1500, "Calm Down", "Taylor Swift", false, 600);
+        library.addSong(workout, other);
+
+        assertSame(other, workout.findSong(0));
+        assertNotSame(chill.findSong(0), workout.findSong(0));
+        assertSame(chill.findSong(0), library.findSong(1500));
+        // the artist is only shared when its verified status is the same
+        assertFalse(other.getArtist().isVerified());
+        assertNotSame(chill.findSong(0).getArtist(), other.getArtist());
+
+        Song same = new Song(1500, "Shake It Off", "Taylor Swift", true, 219);
+        library.addSong(workout, same);
+        assertSame(chill.findSong(0).getArtist(), same.getArtist());
+    }
+
+    @Test
+    void addedSongKeepsItsVerifiedStatus() {
+        library.addSong(chill, new Song(1500, "Anti-Hero", "Taylor Swift", false, 123));
+        Song verified = new Song(2000, "Shake It Off", "Taylor Swift", true, 219);
+
+        assertTrue(library.addSong(chill, verified));
+        assertTrue(chill.findSong(1).getArtist().isVerified());
+        assertEquals(1, chill.numberOfSongsFromVerifiedArtists());
+        assertFalse(library.findArtist("Taylor Swift").isVerified());
+        assertNull(library.findSong(2000));
+    }
+
+    @Test
+    void sharingAnExistingPlaylistReplacesItsSongs() {
+        library.addSong(chill, new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        Playlist loaded = new Playlist("Loaded", "From disk");
+        loaded.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        loaded.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+
+        assertEquals(2, library.share(loaded));
+        assertSame(chill.findSong(0), loaded.findSong(0));
+        assertSame(loaded.findSong(1), library.findSong(9999));
+        assertSame(loaded, library.findPlaylist("Loaded"));
+        assertEquals(3, library.getPlaylists().size());
+    }
+
+    @Test
+    void updatingOnePlaylistLeavesTheOthers() {
+        library.addSong(chill, new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        library.addSong(workout, new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+
+        assertTrue(library.updateSong(workout, 0, new Song(1500, "Anti-Hero (Live)", "Taylor Swift", true, 130)));
+        assertEquals("Anti-Hero", chill.findSong(0).getName());
+        assertEquals("Anti-Hero (Live)", workout.findSong(0).getName());
+        assertSame(chill.findSong(0).getArtist(), workout.findSong(0).getArtist());
+    }
+
+    @Test
+    void updatingOnlyTheVerifiedStatusIsAChange() {
+        library.addSong(chill, new Song(1500, "Anti-Hero", "Taylor Swift", false, 123));
+        library.addSong(workout, new Song(1500, "Anti-Hero", "Taylor Swift", false, 123));
+
+        // the driver changes a copy of the song and replaces it through the library
+        Song existing = chill.findSong(0);
+        Song updated = new Song(existing.getSongId(), existing.getName(), existing.getArtist().getArtistName(),
+                existing.getArtist().isVerified(), existing.getLength());
+        updated.getArtist().setVerified(true);
+
+        assertTrue(library.updateSong(chill, 0, updated));
+        assertTrue(chill.findSong(0).getArtist().isVerified());
+        assertEquals(1, chill.numberOfSongsFromVerifiedArtists());
+        assertFalse(workout.findSong(0).getArtist().isVerified());
+        assertFalse(library.findArtist("Taylor Swift").isVerified());
+        assertSame(workout.findSong(0), library.findSong(1500));
+        assertFalse(library.updateSong(chill, 0, updated));
+    }
+
+    @Test
+    void catalogFollowsDirectChanges() {
+        library.addSong(chill, new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        chill.findSong(0).setSongId(1600);
+        assertNull(library.findSong(1500));
+        assertSame(chill.findSong(0), library.findSong(1600));
+
+        chill.findSong(0).getArtist().setArtistName("T. Swift");
+        assertNull(library.findArtist("Taylor Swift"));
+        assertSame(chill.findSong(0).getArtist(), library.findArtist("T. Swift"));
+    }
+}
+/*
+ * End of controllers.LibraryTest Class.
+ */
@@ -0,0 +1,143 @@
+package controllers;
+
+import models.Song;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 测试共用的辅助方法：生成一批编号连续的歌曲，以及比较两个歌单（或歌单与快照）的全部报表。
+ * Helpers shared by the tests: make a batch of songs with consecutive codes, and compare every report of two playlists (or of a
+ * playlist and a snapshot).
+ *
+ * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+ * @version 7.4
+ * @since version 7.1
+ */
+public final class PlaylistFixtures {
+
+    private PlaylistFixtures() {
+    }
+
+    /**
+     * 生成一批新的歌曲：编号从 firstCode 开始连续，名字是 "Song i"，歌手在 5 个之间轮换，每 3 首中第 1 首的歌手已验证，长度各不相同。
+     * Make a batch of new songs: codes are consecutive from firstCode, names are "Song i", the artist rotates among 5, the artist of
+     * every third song is verified, and the lengths all differ.
+     *
+     * @param firstCode 第一首歌曲的编号。
+     *                  The code of the first song.
+     * @param count 歌曲数量。
+     *              The number of songs.
+     * @return 新的歌曲。
+     *         The new songs.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.4
+     */
+    public static ArrayList<Song> numberedSongs(int firstCode, int count) {
+        ArrayList<Song> songs = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            songs.add(new Song(firstCode + i, "Song " + i, "Artist " + i % 5, i % 3 == 0, 60 + i * 10 % 540));
+        }
+        return songs;
+    }
+
+    /**
+     * 判断两个歌单的报表、列表和查找结果都相同。
+     * Assert that two playlists have the same reports, listings and lookup results.
+     *
+     * @param expected 期望的歌单。
+     *                 The expected playlist.
+     * @param actual 实际的歌单。
+     *               The actual playlist.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.1
+     */
+    public static void assertSameReports(Playlist expected, Playlist actual) {
+        assertArrayEquals(reports(expected), reports(actual));
+
+        for (Song song : expected) {
+            assertEquals(expected.findSongByCode(song.getSongId()), actual.findSongByCode(song.getSongId()));
+            assertEquals(expected.listOfSongsOfArtist(song.getArtist().getArtistName()),
+                    actual.listOfSongsOfArtist(song.getArtist().getArtistName()));
+            assertEquals(expected.searchSongsByName(song.getName()), actual.searchSongsByName(song.getName()));
+        }
+    }
+
+    /**
+     * 判断快照与歌单的报表和按编号查找的结果都相同。
+     * Assert that a snapshot has the same reports and lookups by code as a playlist.
+     *
+     * @param expected 期望的歌单。
+     *                 The expected playlist.
+     * @param actual 实际的快照。
+     *               The actual snapshot.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public static void assertSameReports(Playlist expected, PlaylistSnapshot actual) {
+        assertArrayEquals(reports(expected), reports(actual));
+
+        for (Song song : expected) {
+            assertEquals(expected.findSongByCode(song.getSongId()), actual.findSongByCode(song.getSongId()));
+        }
+    }
+
+    /**
+     * 返回歌单的全部报表，用于逐项比较。
+     * Return every report of the playlist, for comparing item by item.
+     *
+     * @param playlist 歌单。
+     *                 The playlist.
+     * @return 报表。
+     *         The reports.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.1
+     */
+    public static String[] reports(Playlist playlist) {
+        StringBuilder out = new StringBuilder();
+
+        try {
+            playlist.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String[]{playlist.toString(), playlist.listSongs(), playlist.listSongsFromVerifiedArtists(),
+                playlist.listSongsLongerThan(200), playlist.listSongsBetween(100, 300), playlist.listLongestSongs(5), out.toString(),
+                String.valueOf(playlist.getTotalPlayListLength()), String.valueOf(playlist.getAverageSongLength()),
+                String.valueOf(playlist.numberOfShortSongs()), String.valueOf(playlist.numberOfSongsFromVerifiedArtists()),
+                String.valueOf(playlist.numSongs())};
+    }
+
+    /**
+     * 返回快照的全部报表，顺序与 reports(Playlist) 相同。
+     * Return every report of the snapshot, in the same order as reports(Playlist).
+     *
+     * @param snapshot 快照。
+     *                 The snapshot.
+     * @return 报表。
+     *         The reports.
+     * @author Fan Xinkang, Xu Shiyi, Lu Siyu
+     * @since version 7.3
+     */
+    public static String[] reports(PlaylistSnapshot snapshot) {
+        StringBuilder out = new StringBuilder();
+
+        try {
+            snapshot.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String[]{snapshot.toString(), snapshot.listSongs(), snapshot.listSongsFromVerifiedArtists(),
+                snapshot.listSongsLongerThan(200), snapshot.listSongsBetween(100, 300), snapshot.listLongestSongs(5), out.toString(),
+                String.valueOf(snapshot.getTotalPlayListLength()), String.valueOf(snapshot.getAverageSongLength()),
+                String.valueOf(snapshot.numberOfShortSongs()), String.valueOf(snapshot.numberOfSongsFromVerifiedArtists()),
+                String.valueOf(snapshot.numSongs())};
+    }
+}
+/*
+ * End of controllers.PlaylistFixtures Class.
+ */
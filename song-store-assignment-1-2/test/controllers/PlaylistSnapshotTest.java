@@ -0,0 +1,173 @@
+package controllers;
+
+import models.Song;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaylistSnapshotTest {
+    Playlist playList;
+
+    @BeforeEach
+    void setUp() {
+        playList = new Playlist("Chill-24", "Chillout songs to study to");
+        playList.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        playList.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+        playList.addSong(new Song(2000, "Shake It Off", "Taylor Swift", true, 219));
+        playList.addLike();
+    }
+
+    @Nested
+    class Snapshots {
+
+        @Test
+        void snapshotDoesNotSeeLaterChanges() {
+            PlaylistSnapshot snapshot = playList.snapshot();
+            String[] reports = PlaylistFixtures.reports(playList);
+
+            PlaylistFixtures.assertSameReports(playList, snapshot);
+            assertEquals(1, snapshot.getLikes());
+
+            playList.deleteSong(0);
+            playList.updateSong(0, new Song(9998, "Calm Down (Remix)", "Rema", true, 300));
+            playList.findSong(1).setLength(1);
+            playList.addLike();
+            playList.setPlaylistName("Renamed");
+
+            assertArrayEquals(reports, PlaylistFixtures.reports(snapshot));
+            assertEquals(1, snapshot.getLikes());
+            assertEquals("Chill-24", snapshot.getPlaylistName());
+            assertEquals(playList.snapshot().getVersion(), snapshot.getVersion() + 2);
+        }
+
+        @Test
+        void songsFromASnapshotAreCopies() {
+            playList.findSong(2).setArtist(playList.findSong(0).getArtist());
+            PlaylistSnapshot snapshot = playList.snapshot();
+            Song song = snapshot.findSongByCode(9999);
+
+            assertEquals(playList.findSong(1), song);
+            assertNotSame(playList.findSong(1), song);
+            song.setLength(1);
+            assertEquals(600, snapshot.findSong(1).getLength());
+            assertNull(snapshot.findSong(3));
+            assertNull(snapshot.findSongByCode(1234));
+
+            Playlist copy = snapshot.toPlaylist();
+            assertEquals(playList.toString(), copy.toString());
+            assertSame(copy.findSong(0).getArtist(), copy.findSong(2).getArtist());
+        }
+    }
+
+    @Nested
+    class PublishedByConcurrentPlaylist {
+
+        @Test
+        void concurrentPlaylistPublishesEveryWrite() {
+            ConcurrentPlaylist concurrent = new ConcurrentPlaylist("Chill-24", "Chillout songs to study to");
+            Playlist plain = new Playlist("Chill-24", "Chillout songs to study to");
+            Random random = new Random(42);
+            PlaylistSnapshot first = concurrent.snapshot();
+
+            for (int i = 0; i < 2000; i++) {
+                int action = random.nextInt(5);
+                int index = plain.numSongs() == 0 ? 0 : random.nextInt(plain.numSongs());
+                int code = 1000 + random.nextInt(9000);
+                String artist = "Artist " + random.nextInt(20);
+                boolean verified = random.nextBoolean();
+                int length = 1 + random.nextInt(600);
+
+                if (action < 2 || plain.numSongs() == 0) {
+                    assertEquals(plain.addSong(new Song(code, "Song " + i, artist, verified, length)),
+                            concurrent.addSong(new Song(code, "Song " + i, artist, verified, length)));
+                } else if (action == 2) {
+                    assertEquals(plain.deleteSong(index), concurrent.deleteSong(index));
+                } else if (action == 3) {
+                    assertEquals(plain.updateSong(index, new Song(code, "Song " + i, artist, verified, length)),
+                            concurrent.updateSong(index, new Song(code, "Song " + i, artist, verified, length)));
+                } else {
+                    assertEquals(plain.updateVerifiedStatus(index, true), concurrent.updateVerifiedStatus(index, true));
+                }
+
+                if (i % 100 == 0) {
+                    assertEquals(plain.toString(), concurrent.snapshot().toString());
+                }
+            }
+
+            PlaylistSnapshot last = concurrent.snapshot();
+            PlaylistFixtures.assertSameReports(plain, last);
+            assertEquals(concurrent.toString(), last.toString());
+            assertEquals("No songs in playlist.", first.toString());
+            assertTrue(last.getVersion() > first.getVersion());
+
+            concurrent.setSongs(new ArrayList<>(List.of(new Song(1234, "Flowers", "Miley Cyrus", true, 200))));
+            assertEquals(1, concurrent.snapshot().numSongs());
+            assertEquals(plain.toString(), last.toString());
+        }
+
+        @Test
+        void readersSeeConsistentSnapshotsWhileWriting() throws Exception {
+            ConcurrentPlaylist concurrent = new ConcurrentPlaylist("Stress", "Snapshots under load");
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            AtomicBoolean writing = new AtomicBoolean(true);
+            List<Future<?>> readers = new ArrayList<>();
+
+            /*
+              每首歌曲长度都是 100，所以任何一致的快照中总长度都等于歌曲数量乘以 100。
+              Every song is 100 seconds long, so in any consistent snapshot the total length is 100 times the number of songs.
+             */
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 3000; i++) {
+                    concurrent.addSong(new Song(1000 + i, "Song " + i, "Artist", true, 100));
+
+                    if (i % 3 == 0) {
+                        concurrent.deleteSong(0);
+                    }
+                }
+                writing.set(false);
+                return null;
+            });
+
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    long version = -1;
+
+                    while (writing.get()) {
+                        PlaylistSnapshot snapshot = concurrent.snapshot();
+                        int songs = snapshot.numSongs();
+                        assertTrue(snapshot.getVersion() >= version);
+                        version = snapshot.getVersion();
+
+                        if (songs > 0) {
+                            assertEquals(songs * 100, snapshot.getTotalPlayListLength());
+                            assertEquals(songs, snapshot.listSongsLongerThan(100).split("\n").length);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            writer.get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+            executor.shutdown();
+
+            assertEquals(2000, concurrent.snapshot().numSongs());
+            assertEquals(concurrent.toString(), concurrent.snapshot().toString());
+        }
+    }
+}
+/*
+ * End of controllers.PlaylistSnapshotTest Class.
+ */
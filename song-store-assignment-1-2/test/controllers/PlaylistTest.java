@@ -1,13 +1,19 @@
 package controllers;
 
 import controllers.Playlist;
+import models.Artist;
 import models.Song;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -125,6 +131,31 @@ class PlaylistTest {
 
     }
 
+    @Test
+    void addLikesFromManyThreads() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    playList.addLike();
+                }
+                playList.addLikes(5);
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8 * 10_005, playList.getLikes());
+
+        playList.addLikes(0);
+        playList.addLikes(-3);
+        assertEquals(8 * 10_005, playList.getLikes());
+        assertFalse(playList.isAddLikeSet());
+    }
+
     @Test
     void addSong(){
         assertTrue(emptyPlayList.getSongs().isEmpty());
@@ -158,6 +189,51 @@ class PlaylistTest {
         assertFalse(playList.updateSong(3, validSong3));
 
     }
+    @Nested
+    class Batches {
+
+        @Test
+        void batchesMatchOneByOne() {
+            Playlist batched = new Playlist("Batched", "Batch changes");
+            Playlist single = new Playlist("Batched", "Batch changes");
+            ArrayList<Song> added = PlaylistFixtures.numberedSongs(1000, 40);
+
+            for (Song song : PlaylistFixtures.numberedSongs(1000, 40)) {
+                single.addSong(song);
+            }
+            batched.findSongByCode(1000);
+            assertEquals(40, batched.addSongs(added));
+            assertEquals(single.toString(), batched.toString());
+
+            // 少量修改逐首更新索引，大量修改重新建立索引 / a few changes update the index song by song, many changes rebuild it
+            Map<Integer, Song> updates = new HashMap<>();
+            updates.put(3, new Song(2003, "Updated 3", "Artist 9", true, 200));
+            updates.put(7, new Song(2007, "Updated 7", "Artist 9", false, 100));
+            updates.put(40, new Song(2040, "No such index", "Artist 9", false, 100));
+            updates.put(9, new Song(1009, "Song 9", "Artist 4", true, 150));
+            assertEquals(2, batched.updateSongs(updates));
+            single.updateSong(3, new Song(2003, "Updated 3", "Artist 9", true, 200));
+            single.updateSong(7, new Song(2007, "Updated 7", "Artist 9", false, 100));
+
+            assertEquals(List.of(added.get(5), added.get(12)), batched.deleteSongs(12, 5, 5, -1, 99));
+            single.deleteSong(12);
+            single.deleteSong(5);
+            PlaylistFixtures.assertSameReports(single, batched);
+
+            int[] many = new int[19];
+            for (int i = 0; i < many.length; i++) {
+                many[i] = i * 2;
+            }
+            assertEquals(19, batched.deleteSongs(many).size());
+            for (int i = many.length - 1; i >= 0; i--) {
+                single.deleteSong(many[i]);
+            }
+            PlaylistFixtures.assertSameReports(single, batched);
+            assertEquals(0, batched.deleteSongs().size());
+            assertEquals(0, batched.updateSongs(new HashMap<>()));
+        }
+    }
+
     @Test
     void listSongs() {
         assertTrue(emptyPlayList.listSongs().contains("No songs in playlist."));
@@ -180,6 +256,35 @@ class PlaylistTest {
     }
 
 
+    @Test
+    void writeSongsPageByPage() throws IOException {
+        playList.setSongs(songs1);
+
+        StringBuilder firstPage = new StringBuilder();
+        assertEquals(2, playList.writeSongs(firstPage, 0, 2));
+        assertTrue(firstPage.toString().contains("0: Song{songId=1500"));
+        assertTrue(firstPage.toString().contains("1: Song{songId=9999"));
+        assertFalse(firstPage.toString().contains("2: "));
+
+        StringWriter lastPage = new StringWriter();
+        assertEquals(1, playList.writeSongs(lastPage, 2, 2));  // fewer than the limit - the end
+        assertTrue(lastPage.toString().contains("2: Song{songId=1000"));
+        assertEquals(0, playList.writeSongs(new StringBuilder(), 3, 2));
+
+        StringBuilder verified = new StringBuilder();
+        assertEquals(1, playList.writeSongsFromVerifiedArtists(verified, 1, 5));  // skips the first verified song
+        assertTrue(verified.toString().contains("2: "));
+        assertFalse(verified.toString().contains("Anti-Hero"));
+
+        StringBuilder longer = new StringBuilder();
+        assertEquals(1, playList.writeSongsLongerThan(longer, 100, 0, 1));
+        assertTrue(longer.toString().contains("Anti-Hero"));
+
+        StringBuilder whole = new StringBuilder();
+        playList.writeTo(whole);
+        assertEquals(playList.toString(), whole.toString().trim());
+    }
+
     @Test
     void listVerifiedSongs() {
         assertTrue(emptyPlayList.listSongsFromVerifiedArtists().contains("No songs in playlist."));
@@ -195,6 +300,27 @@ class PlaylistTest {
 
     }
 
+    @Test
+    void verifiedSongsFollowChanges() {
+        playList.setSongs(songs1);
+        assertEquals(2, playList.numberOfSongsFromVerifiedArtists());
+
+        validSong2.getArtist().setVerified(true);
+        assertEquals(3, playList.numberOfSongsFromVerifiedArtists());
+        assertTrue(playList.listSongsFromVerifiedArtists().startsWith("0: "));
+        assertTrue(playList.listSongsFromVerifiedArtists().contains("1: " + validSong2));
+
+        playList.deleteSong(0);
+        validSong3.setArtist(new Artist("Unknown", false));
+        assertEquals(1, playList.numberOfSongsFromVerifiedArtists());
+        assertEquals("0: " + validSong2, playList.listSongsFromVerifiedArtists().trim());
+
+        playList.addSong(new Song(2000, "Shake It Off", "Taylor Swift", true, 219));
+        assertEquals("2: " + playList.findSong(2), playList.listSongsFromVerifiedArtistsBetween(100, 300).trim());
+        assertTrue(playList.listSongsFromVerifiedArtistsBetween(1, 50).contains("There are no songs from verified artists"));
+        assertTrue(emptyPlayList.listSongsFromVerifiedArtistsBetween(1, 600).contains("No songs in playlist."));
+    }
+
     @Test
     void listSongsLongerThan() {
         ArrayList<Song> songs = new ArrayList<Song>();
@@ -240,6 +366,27 @@ class PlaylistTest {
 
     }
 
+    @Test
+    void lengthRangeQueries() {
+        assertTrue(emptyPlayList.listSongsBetween(1, 600).contains("No songs in playlist."));
+        assertTrue(emptyPlayList.listLongestSongs(2).contains("No songs in playlist."));
+
+        playList.setSongs(songs1);  // 123, 600, 1
+        assertTrue(playList.listSongsBetween(100, 200).contains("0: Song{songId=1500"));
+        assertFalse(playList.listSongsBetween(100, 200).contains("Calm Down"));
+        assertTrue(playList.listSongsBetween(1, 1).contains("2: Song{songId=1000"));
+        assertTrue(playList.listSongsBetween(200, 500).contains("There are no songs on this playlist between :200 and 500 secs"));
+
+        String longest = playList.listLongestSongs(2);
+        assertTrue(longest.indexOf("Calm Down") < longest.indexOf("Anti-Hero"));  // longest first
+        assertFalse(longest.contains("12345678901234567890"));
+
+        validSong3.setLength(599);  // changed directly on the song
+        assertTrue(playList.listSongsLongerThan(599).contains("12345678901234567890"));
+        assertTrue(playList.listLongestSongs(2).contains("12345678901234567890"));
+        assertTrue(playList.listSongsBetween(1, 1).contains("There are no songs on this playlist between"));
+    }
+
     @Test
     void listOfSongsOfArtist() {
         assertTrue(emptyPlayList.listOfSongsOfArtist("Taylor Swift").contains("No songs in playlist."));  // check empty list
@@ -253,6 +400,61 @@ class PlaylistTest {
 
     }
 
+    @Test
+    void listOfSongsOfArtistFollowsRenames() {
+        playList.setSongs(songs1);
+        assertTrue(playList.listOfSongsOfArtist("Rema").contains("1: Calm Down (9999)"));
+
+        validSong2.getArtist().setArtistName("Rema Remix");  // renamed directly, as Driver.updateSong does
+        assertTrue(playList.listOfSongsOfArtist("Rema").contains("There are no  songs on this playlist by"));
+        assertTrue(playList.listOfSongsOfArtist("Rema Remix").contains("Calm Down"));
+
+        validSong1.setArtist(new Artist("Rema Remix", true));
+        assertTrue(playList.listOfSongsOfArtist("Rema Remix").contains("0: Anti-Hero (1500)"));
+        assertFalse(playList.listOfSongsOfArtist("Taylor Swift").contains("Anti-Hero"));
+        assertTrue(playList.listOfSongsOfArtist("Taylor Swift").contains("2: "));
+    }
+
+    @Test
+    void listOfSongsOfArtistFollowsArtistChangesOfASongListedTwice() {
+        Artist taylorSwift = validSong1.getArtist();
+        playList.addSong(validSong1);
+        playList.addSong(validSong2);
+        playList.addSong(validSong1);
+
+        validSong1.setArtist(new Artist("Rema Remix", false));
+        assertTrue(playList.listOfSongsOfArtist("Taylor Swift").contains("There are no  songs on this playlist by"));
+        assertTrue(playList.listOfSongsOfArtist("Rema Remix").contains("0: Anti-Hero (1500)"));
+        assertTrue(playList.listOfSongsOfArtist("Rema Remix").contains("2: Anti-Hero (1500)"));
+        assertEquals(0, playList.numberOfSongsFromVerifiedArtists());
+
+        playList.addSong(new Song(2000, "Shake It Off", taylorSwift, 219));  // the old artist is indexed again
+        taylorSwift.setArtistName("T. Swift");
+        assertTrue(playList.listOfSongsOfArtist("T. Swift").contains("3: Shake It Off (2000)"));
+
+        validSong1.setArtist(new Artist("Rema Remix", true));  // same name, new object
+        assertEquals(3, playList.numberOfSongsFromVerifiedArtists());
+        playList.deleteSong(2);
+        playList.deleteSong(0);
+        assertTrue(playList.listOfSongsOfArtist("Rema Remix").contains("There are no  songs on this playlist by"));
+        assertEquals(1, playList.numberOfSongsFromVerifiedArtists());
+    }
+
+    @Test
+    void searchSongsByArtistName() {
+        assertTrue(emptyPlayList.searchSongsByArtistName("Taylor").contains("No songs."));
+        playList.setSongs(songs1);
+
+        assertTrue(playList.searchSongsByArtistName("Swift").contains("Anti-Hero (1500)"));
+        assertTrue(playList.searchSongsByArtistName("Swift").contains("12345678901234567890 (1000)"));
+        assertFalse(playList.searchSongsByArtistName("Swift").contains("Calm Down"));
+        assertTrue(playList.searchSongsByArtistName("Mairead").contains("No songs found for this artist."));
+
+        assertTrue(playList.searchSongsByArtistPrefix("Tay").contains("Anti-Hero"));
+        assertFalse(playList.searchSongsByArtistPrefix("Swift").contains("Anti-Hero"));  // not a prefix
+        assertTrue(playList.searchSongsByArtistPrefix("").contains("Calm Down"));
+    }
+
     @Test
     void getAverageSongLength() {
         playList.setSongs(songs1);
@@ -260,6 +462,35 @@ class PlaylistTest {
         assertEquals(-1, emptyPlayList.getAverageSongLength());  // no songs - should return -1
     }
 
+    @Test
+    void lengthReportsFollowChanges() {
+        assertEquals(-1, emptyPlayList.getTotalPlayListLength());  // no songs - should return -1
+        assertEquals(0, emptyPlayList.numberOfShortSongs());
+
+        playList.setSongs(songs1);  // 123, 600, 1
+        assertEquals(724, playList.getTotalPlayListLength());
+        assertEquals(2, playList.numberOfShortSongs());
+
+        validSong2.setLength(180);  // changed directly on the song
+        assertEquals(304, playList.getTotalPlayListLength());
+        assertEquals(101, playList.getAverageSongLength());
+        assertEquals(3, playList.numberOfShortSongs());
+
+        playList.addSong(new Song(2000, "Long one", "Rema", false, 500));
+        assertEquals(804, playList.getTotalPlayListLength());
+        assertEquals(3, playList.numberOfShortSongs());
+
+        playList.deleteSong(0);
+        assertEquals(681, playList.getTotalPlayListLength());
+        assertEquals(2, playList.numberOfShortSongs());
+
+        playList.deleteSong(0);
+        playList.deleteSong(0);
+        playList.deleteSong(0);
+        assertEquals(-1, playList.getTotalPlayListLength());
+        assertEquals(-1, playList.getAverageSongLength());
+    }
+
     @Test
     void findSong() {
         playList.setSongs(songs1);
@@ -270,6 +501,72 @@ class PlaylistTest {
         assertNull(playList.findSong(3));
     }
 
+    @Test
+    void searchSongsByName() {
+        assertTrue(emptyPlayList.searchSongsByName("Hero").contains("No songs."));
+
+        playList.setSongs(songs1);
+        assertTrue(playList.searchSongsByName("Hero").contains("0: "));
+        assertTrue(playList.searchSongsByName("Hero").contains("Anti-Hero"));
+        assertFalse(playList.searchSongsByName("Hero").contains("Calm Down"));
+        assertTrue(playList.searchSongsByName("Down").contains("1: "));
+        assertTrue(playList.searchSongsByName("Wrecking").contains("No songs found."));
+
+        // queries shorter than a trigram
+        assertTrue(playList.searchSongsByName("l").contains("Calm Down"));
+        assertTrue(playList.searchSongsByName("").contains("Anti-Hero"));
+
+        validSong2.setName("Wrecking Ball");  // renamed directly on the song
+        assertTrue(playList.searchSongsByName("Wrecking").contains("1: "));
+        assertTrue(playList.searchSongsByName("Calm").contains("No songs found."));
+
+        playList.deleteSong(0);
+        assertTrue(playList.searchSongsByName("Wrecking").contains("0: "));
+        assertTrue(playList.searchSongsByName("Hero").contains("No songs found."));
+    }
+
+    @Test
+    void findSongByName() {
+        assertNull(emptyPlayList.findSong("Anti-Hero"));
+
+        playList.setSongs(songs1);
+        assertEquals(validSong1, playList.findSong("Anti-Hero"));
+        assertNull(playList.findSong("Anti"));  // exact names only
+
+        Song sameName = new Song(2000, "Calm Down", "Selena Gomez", true, 239);
+        playList.addSong(sameName);
+        assertEquals(validSong2, playList.findSong("Calm Down"));  // first match wins
+
+        validSong2.setName("Calm Down Remix");  // renamed directly on the song
+        assertEquals(sameName, playList.findSong("Calm Down"));
+        assertEquals(validSong2, playList.findSong("Calm Down Remix"));
+    }
+
+    @Test
+    void findSongByCode() {
+        assertNull(emptyPlayList.findSongByCode(1500));
+
+        playList.setSongs(songs1);
+        assertEquals(validSong1, playList.findSongByCode(1500));
+        assertEquals(validSong2, playList.findSongByCode(9999));
+        assertNull(playList.findSongByCode(4321));
+
+        validSong1.setSongId(4321);  // changed directly on the song, as Driver.updateSong does
+        assertNull(playList.findSongByCode(1500));
+        assertEquals(validSong1, playList.findSongByCode(4321));
+
+        Song duplicateCode = new Song(4321, "Second", "Rema", false, 200);
+        playList.addSong(duplicateCode);
+        assertEquals(validSong1, playList.findSongByCode(4321));  // first match wins
+        playList.deleteSong(0);
+        assertEquals(duplicateCode, playList.findSongByCode(4321));
+
+        Song replacement = new Song(2222, "Replaced", "Rema", false, 200);
+        playList.updateSong(0, replacement);
+        assertNull(playList.findSongByCode(9999));
+        assertEquals(replacement, playList.findSongByCode(2222));
+    }
+
     @Test
     void isValidIndex() {
         playList.setSongs(songs1);
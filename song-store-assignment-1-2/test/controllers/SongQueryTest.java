@@ -0,0 +1,75 @@
+package controllers;
+
+import models.Song;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongQueryTest {
+    Playlist playList;
+
+    @BeforeEach
+    void setUp() {
+        playList = new Playlist("Chill-24", "Chillout songs to study to");
+        playList.addSong(new Song(1500, "Love Story", "Taylor Swift", true, 235));
+        playList.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+        playList.addSong(new Song(1501, "Lover", "Taylor Swift", true, 221));
+        playList.addSong(new Song(2000, "Crazy in Love", "Beyonce", true, 236));
+        playList.addSong(new Song(2001, "Endless Love", "Lionel Richie", false, 265));
+        playList.addSong(new Song(2002, "Love On Top", "Beyonce", true, 267));
+        playList.addSong(new Song(1502, "Cruel Summer", "Taylor Swift", true, 178));
+    }
+
+    @Test
+    void conditionsAreCombined() {
+        assertEquals("5: " + playList.findSong(5), playList.query().fromVerifiedArtists().longerThan(240).nameContains("Love").list());
+        assertEquals(5, playList.query().nameContains("Love").count());
+        assertEquals(3, playList.query().fromVerifiedArtists().lengthBetween(200, 240).positions().size());
+        assertEquals(2, playList.query().artistStartsWith("Bey").lengthBetween(200, 300).count());
+        assertEquals(playList.findSong(2), playList.query().withCode(1501).songs().get(0));
+        assertEquals(7, playList.query().count());
+        assertEquals("No songs match the query.", playList.query().artistContains("Drake").list());
+        assertEquals("No songs in playlist.", new Playlist("Empty", "Nothing").query().fromVerifiedArtists().list());
+    }
+
+    @Test
+    void planStartsFromTheMostSelectiveCondition() {
+        for (int i = 0; i < 16; i++) {
+            playList.addSong(new Song(3000 + i, "Filler " + i, "Various", true, 300));
+        }
+
+        String[] steps = playList.query().fromVerifiedArtists().lengthBetween(1, 600).byArtist("Rema").explain().split("\n");
+        assertEquals(2, steps.length);
+        assertEquals("index artist 'Rema' (estimated 1) -> 1 rows", steps[0]);
+        assertEquals("check verified artists -> 0 rows", steps[1]);
+
+        steps = playList.query().fromVerifiedArtists().byArtist("Various").explain().split("\n");
+        assertEquals("index artist 'Various' (estimated 16) -> 16 rows", steps[0]);
+        assertEquals("intersect verified artists (estimated 21) -> 16 rows", steps[1]);
+    }
+
+    @Test
+    void trigramCandidatesAreVerified() {
+        String plan = playList.query().nameContains("ove").fromVerifiedArtists().explain();
+
+        assertTrue(plan.contains("verify name contains 'ove'") || plan.startsWith("index name contains 'ove'"));
+        assertEquals(4, playList.query().nameContains("ove").fromVerifiedArtists().count());
+        assertEquals(2, playList.query().nameContains("Lo").artistContains("Taylor").count());
+    }
+
+    @Test
+    void resultsFollowChanges() {
+        SongQuery query = playList.query().fromVerifiedArtists().nameContains("Love");
+        assertEquals(4, query.count());
+
+        playList.findSong(4).getArtist().setVerified(true);
+        playList.deleteSong(0);
+        playList.findSong(1).setName("Lover (Remix)");
+
+        assertArrayEquals(new int[]{1, 2, 3, 4}, query.positions().toArray());
+    }
+}
+/*
+ * End of controllers.SongQueryTest Class.
+ */
@@ -0,0 +1,95 @@
+package models;
+
+import controllers.Playlist;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtistRegistryTest {
+    ArtistRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ArtistRegistry();
+    }
+
+    @Test
+    void songsOfOneArtistShareOneObject() {
+        Song first = registry.newSong(1500, "Anti-Hero", "Taylor Swift", true, 123);
+        Song second = registry.newSong(2000, "Shake It Off", "Taylor Swift", true, 219);
+
+        assertSame(first.getArtist(), second.getArtist());
+        assertEquals(1, registry.size());
+        assertEquals(219, second.getLength());
+        assertEquals("Shake It Off", second.getName());
+    }
+
+    @Test
+    void differentVerifiedStatusIsKept() {
+        Song first = registry.newSong(1500, "Anti-Hero", "Taylor Swift", false, 123);
+        Song second = registry.newSong(2000, "Shake It Off", "Taylor Swift", true, 219);
+
+        // the registered artist is not changed, and the new song gets an artist of its own
+        assertTrue(second.getArtist().isVerified());
+        assertFalse(first.getArtist().isVerified());
+        assertNotSame(first.getArtist(), second.getArtist());
+        assertSame(first.getArtist(), registry.find("Taylor Swift"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void namesAreTruncatedLikeArtist() {
+        Artist artist = registry.intern("1234567890123456", false);
+        assertEquals("123456789012345", artist.getArtistName());
+        assertSame(artist, registry.intern("1234567890123456", true));
+        assertSame(artist, registry.intern("123456789012345", true));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void verifyingChangesEverySong() {
+        Song first = registry.newSong(1500, "Anti-Hero", "Taylor Swift", false, 123);
+        Song second = registry.newSong(2000, "Shake It Off", "Taylor Swift", false, 219);
+
+        assertTrue(registry.setVerified("Taylor Swift", true));
+        assertTrue(first.getArtist().isVerified());
+        assertTrue(second.getArtist().isVerified());
+        assertFalse(registry.setVerified("Nobody", true));
+    }
+
+    @Test
+    void renamedArtistIsReKeyed() {
+        Artist artist = registry.intern("Taylor Swift", true);
+        artist.setArtistName("T. Swift");
+
+        assertNull(registry.find("Taylor Swift"));
+        assertSame(artist, registry.find("T. Swift"));
+        assertNotSame(artist, registry.intern("Taylor Swift", true));
+    }
+
+    @Test
+    void renamingToATakenNameStillReachesTheOtherListeners() {
+        Song song = registry.newSong(1500, "Anti-Hero", "Taylor Swift", true, 123);
+        Artist taken = registry.intern("T. Swift", false);
+        Playlist playlist = new Playlist("Chill-24", "Chillout songs to study to");
+        playlist.addSong(song);
+
+        // the registry removes itself from the artist first; the playlist index, registered after it, still sees the change
+        song.getArtist().setArtistName("T. Swift");
+        assertSame(taken, registry.find("T. Swift"));
+        assertNull(registry.find("Taylor Swift"));
+        assertTrue(playlist.listOfSongsOfArtist("T. Swift").contains("Anti-Hero"));
+        assertFalse(playlist.listOfSongsOfArtist("Taylor Swift").contains("Anti-Hero"));
+    }
+
+    @Test
+    void existingArtistBecomesShared() {
+        Artist artist = new Artist("Rema", false);
+        assertSame(artist, registry.intern(artist));
+        assertSame(artist, registry.intern(new Artist("Rema", true)));
+    }
+}
+/*
+ * End of models.ArtistRegistryTest Class.
+ */
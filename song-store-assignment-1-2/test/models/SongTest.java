@@ -143,6 +143,35 @@ public class SongTest {
         }
 
     }
+
+    @Nested
+    class Listeners {
+
+        @Test
+        void listenerRemovingItselfDoesNotSkipTheOthers() {
+            int[] calls = new int[2];
+            SongListener first = new SongListener() {
+                @Override
+                public void songIdChanged(Song song, int oldSongId) {
+                    calls[0]++;
+                    song.removeSongListener(this);
+                }
+            };
+            validSong1.addSongListener(first);
+            validSong1.addSongListener(new SongListener() {
+                @Override
+                public void songIdChanged(Song song, int oldSongId) {
+                    calls[1]++;
+                }
+            });
+
+            validSong1.setSongId(2000);
+            assertArrayEquals(new int[]{1, 1}, calls);
+            validSong1.setSongId(3000);
+            assertArrayEquals(new int[]{1, 2}, calls);
+        }
+    }
+
     @Nested
     class ToString {
         //  validSong1 = new models.Song(1500, "Anti-Hero", "Taylor Swift", true,  123);
@@ -0,0 +1,74 @@
+package persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicFileTest {
+    File directory;
+    File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("atomic").toFile();
+        file = new File(directory, "Store.xml");
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (File child : directory.listFiles()) {
+            child.delete();
+        }
+        directory.delete();
+    }
+
+    private void write(String content, int backups) throws IOException {
+        AtomicFile.write(file, backups, out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String read(File source) throws IOException {
+        return Files.readString(source.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void keepsRollingBackups() throws IOException {
+        write("one", 2);
+        write("two", 2);
+        write("three", 2);
+        write("four", 2);
+
+        assertEquals("four", read(file));
+        assertEquals("three", read(AtomicFile.backupFile(file, 1)));
+        assertEquals("two", read(AtomicFile.backupFile(file, 2)));
+        assertFalse(AtomicFile.backupFile(file, 3).exists());
+
+        // backups are separate files, not links that change with the next save
+        write("five", 2);
+        assertEquals("four", read(AtomicFile.backupFile(file, 1)));
+        assertEquals("three", read(AtomicFile.backupFile(file, 2)));
+    }
+
+    @Test
+    void failedWriteLeavesTheFileUnchanged() throws IOException {
+        write("original", 2);
+
+        assertThrows(IOException.class, () -> AtomicFile.write(file, 2, out -> {
+            out.write("half".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("disk full");
+        }));
+
+        assertEquals("original", read(file));
+        assertFalse(AtomicFile.backupFile(file, 1).exists());
+        assertEquals(1, directory.listFiles().length);
+    }
+}
+/*
+ * End of persistence.AtomicFileTest Class.
+ */
@@ -0,0 +1,201 @@
+package persistence;
+
+import controllers.Playlist;
+import models.Song;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedPlaylistFormatTest {
+    Playlist playList;
+    File directory;
+    File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        playList = new Playlist("Chill-24", "Chillout songs to study to");
+        playList.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        playList.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+        playList.addSong(new Song(1500, "Shake It Off", "Taylor Swift", true, 219));
+        playList.addSong(new Song(2000, "Café del Mar ♪", "Energy 52", false, 420));
+        playList.findSong(1).setArtistName("Old artist field");
+        playList.findSong(1).setVerified(true);
+        playList.addLike();
+
+        // saving keeps backups next to the file, so it goes in its own directory
+        directory = Files.createTempDirectory("mapped").toFile();
+        file = new File(directory, StoreFormat.MAPPED.getFileName());
+        PlaylistStore.save(playList, file, StoreFormat.MAPPED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (File saved : directory.listFiles()) {
+            saved.delete();
+        }
+        directory.delete();
+        playList = null;
+    }
+
+    @Test
+    void roundTripKeepsEverything() throws IOException {
+        Playlist loaded = PlaylistStore.load(file);
+        assertEquals("Chill-24", loaded.getPlaylistName());
+        assertEquals("Chillout songs to study to", loaded.getDescription());
+        assertEquals(1, loaded.getLikes());
+        assertFalse(loaded.isAddLikeSet());
+        assertEquals(playList.toString(), loaded.toString());
+        assertEquals(playList.getSongs(), loaded.getSongs());
+        assertEquals("Old artist field", loaded.findSong(1).getArtistName());
+        assertTrue(loaded.findSong(1).isVerified());
+        assertTrue(loaded.findSong(0).getArtist().isVerified());
+    }
+
+    @Test
+    void streamsAreReadWithoutMapping() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PlaylistStore.write(playList, output, StoreFormat.MAPPED);
+        Playlist loaded = PlaylistStore.read(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(playList.toString(), loaded.toString());
+    }
+
+    @Test
+    void lookupsReadRecordsLazily() throws IOException {
+        Playlist loaded = PlaylistStore.load(file);
+        assertEquals(4, loaded.numSongs());
+        assertTrue(loaded.isValidIndex(3));
+        assertFalse(loaded.isValidIndex(4));
+        assertEquals(playList.findSong(3), loaded.findSong(3));
+        assertSame(loaded.findSong(3), loaded.findSong(3));
+        assertNull(loaded.findSong(4));
+
+        assertSame(loaded.findSong(0), loaded.findSongByCode(1500));
+        assertSame(loaded.findSong(1), loaded.findSongByCode(9999));
+        assertNull(loaded.findSongByCode(1234));
+
+        StringWriter page = new StringWriter();
+        assertEquals(2, loaded.writeSongs(page, 2, 10));
+        assertTrue(page.toString().startsWith("2: Song{songId=1500, name='Shake It Off'"));
+    }
+
+    @Test
+    void changesToLazySongsAreKept() throws IOException {
+        Playlist loaded = PlaylistStore.load(file);
+
+        // changing a code moves the song in findSongByCode, even before the songs are taken
+        loaded.findSong(0).setSongId(4321);
+        assertSame(loaded.findSong(2), loaded.findSongByCode(1500));
+        assertSame(loaded.findSong(0), loaded.findSongByCode(4321));
+
+        loaded.findSong(3).setName("Sunrise");
+        assertEquals("Sunrise", loaded.getSongs().get(3).getName());
+        assertEquals(4321, loaded.getSongs().get(0).getSongId());
+        assertEquals("Sunrise", loaded.findSong("Sunrise").getName());
+        assertSame(loaded.findSong(0), loaded.findSongByCode(4321));
+    }
+
+    @Test
+    void boundedCacheKeepsChangedSongs() throws IOException {
+        Playlist loaded = MappedPlaylistFormat.open(file, 1);
+        Song first = loaded.findSong(0);
+        first.setVerified(true);
+        first.getArtist().setVerified(false);
+        Song second = loaded.findSong(1);
+        second.setSongId(4321);
+
+        // reading the other songs drops both from the cache, but changed songs are kept
+        loaded.findSong(2);
+        loaded.findSong(3);
+        assertSame(first, loaded.findSong(0));
+        assertSame(second, loaded.findSong(1));
+        assertSame(second, loaded.findSongByCode(4321));
+        assertNull(loaded.findSongByCode(9999));
+
+        // an unchanged song that is still held stays the song at its position
+        Song third = loaded.findSong(2);
+        loaded.findSong(3);
+        assertSame(third, loaded.findSong(2));
+        assertSame(first, loaded.findSongByCode(1500));
+    }
+
+    @Test
+    void changesAfterDroppingAreKept() throws IOException {
+        Playlist loaded = MappedPlaylistFormat.open(file, 2);
+        Song first = loaded.findSong(0);
+        Song second = loaded.findSong(1);
+        loaded.findSong(2);
+        loaded.findSong(3);
+
+        // both songs have been dropped from the cache before they are changed
+        first.setLength(100);
+        second.getArtist().setVerified(true);
+        loaded.findSong(2);
+        loaded.findSong(3);
+        assertSame(first, loaded.findSong(0));
+        assertEquals(100, loaded.findSong(0).getLength());
+        assertSame(second, loaded.findSong(1));
+        assertEquals(3, loaded.numberOfSongsFromVerifiedArtists());
+        assertEquals(100, loaded.getSongs().get(0).getLength());
+        assertTrue(loaded.getSongs().get(1).getArtist().isVerified());
+    }
+
+    @Test
+    void iterationReadsSongsLazily() throws IOException {
+        Playlist loaded = MappedPlaylistFormat.open(file, 2);
+        int position = 0;
+
+        for (Song song : loaded) {
+            assertEquals(playList.findSong(position++), song);
+        }
+        assertEquals(4, position);
+
+        // changed songs are seen by later iterations
+        loaded.findSong(0).setLength(1);
+        assertEquals(1, loaded.iterator().next().getLength());
+    }
+
+    @Test
+    void offHeapStorageKeepsTheContent() throws IOException {
+        String before = playList.toString();
+        String[] reports = {playList.listSongs(), playList.listSongsFromVerifiedArtists(), playList.listSongsLongerThan(200),
+                playList.listSongsBetween(100, 300), playList.listLongestSongs(3)};
+        int shortSongs = playList.numberOfShortSongs();
+        int total = playList.getTotalPlayListLength();
+
+        MappedPlaylistFormat.moveOffHeap(playList, 1);
+
+        assertEquals(before, playList.toString());
+        assertArrayEquals(reports, new String[]{playList.listSongs(), playList.listSongsFromVerifiedArtists(),
+                playList.listSongsLongerThan(200), playList.listSongsBetween(100, 300), playList.listLongestSongs(3)});
+        assertEquals(shortSongs, playList.numberOfShortSongs());
+        assertEquals(total, playList.getTotalPlayListLength());
+        assertEquals("Calm Down", playList.findSongByCode(9999).getName());
+
+        playList.findSong(2).setLength(100);
+        playList.findSong(0);
+        assertEquals(total - 119, playList.getTotalPlayListLength());
+        assertEquals(2, playList.numberOfShortSongs());
+        assertEquals(4, playList.getSongs().size());
+    }
+
+    @Test
+    void corruptFilesAreRejected() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PlaylistStore.write(playList, output, StoreFormat.MAPPED);
+        byte[] truncated = Arrays.copyOf(output.toByteArray(), output.size() / 2);
+        assertThrows(IOException.class, () -> PlaylistStore.read(new ByteArrayInputStream(truncated)));
+    }
+}
+/*
+ * End of persistence.MappedPlaylistFormatTest Class.
+ */
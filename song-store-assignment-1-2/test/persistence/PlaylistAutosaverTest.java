@@ -0,0 +1,137 @@
+package persistence;
+
+import controllers.Playlist;
+import models.Song;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaylistAutosaverTest {
+    File directory;
+    File file;
+    Playlist playList;
+    ReentrantLock lock;
+    PlaylistAutosaver autosaver;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("autosave").toFile();
+        file = new File(directory, StoreFormat.BINARY.getFileName());
+        playList = new Playlist("Chill-24", "Chillout songs to study to");
+        playList.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        lock = new ReentrantLock();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (autosaver != null) {
+            autosaver.close();
+        }
+
+        for (File child : directory.listFiles()) {
+            child.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    void burstOfChangesIsSavedOnce() throws IOException {
+        autosaver = new PlaylistAutosaver(playList, file, StoreFormat.BINARY, lock, 60_000);
+        assertFalse(autosaver.isDirty());
+
+        for (int i = 0; i < 10; i++) {
+            playList.addSong(new Song(2000 + i, "Song " + i, "Artist " + i, false, 100 + i));
+        }
+        playList.addLike();
+        assertTrue(autosaver.isDirty());
+        assertFalse(file.exists());
+
+        autosaver.flush();
+        assertFalse(autosaver.isDirty());
+        assertEquals(1, autosaver.getSaves());
+        assertEquals(10, autosaver.getCoalescedChanges());
+        assertEquals(playList.toString(), PlaylistStore.load(file).toString());
+
+        // nothing changed, so nothing is written
+        autosaver.flush();
+        assertEquals(1, autosaver.getSaves());
+    }
+
+    @Test
+    void saveHappensAfterTheDelay() throws Exception {
+        autosaver = new PlaylistAutosaver(playList, file, StoreFormat.XML, lock, 10);
+        playList.setPlaylistName("Study");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (autosaver.isDirty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(autosaver.isDirty());
+        assertEquals("Study", PlaylistStore.load(file).getPlaylistName());
+        assertTrue(autosaver.getLastSaveMillis() > 0);
+    }
+
+    @Test
+    void copyIsTakenUnderTheLock() throws Exception {
+        autosaver = new PlaylistAutosaver(playList, file, StoreFormat.BINARY, lock, 0);
+
+        lock.lock();
+        try {
+            playList.addLike();
+            Thread.sleep(100);
+            // the autosave is waiting for the lock
+            assertTrue(autosaver.isDirty());
+            playList.addLike();
+        } finally {
+            lock.unlock();
+        }
+
+        autosaver.flush();
+        assertEquals(2, PlaylistStore.load(file).getLikes());
+    }
+
+    @Test
+    void copyKeepsTheSongsAndSharedArtists() {
+        Song song = new Song(2000, "Shake It Off", "Taylor Swift", true, 219);
+        song.setArtist(playList.findSong(0).getArtist());
+        playList.addSong(song);
+        playList.setLikes(7);
+
+        Playlist copy = playList.snapshot().toPlaylist();
+        assertEquals(playList.toString(), copy.toString());
+        assertEquals(playList.getSongs(), copy.getSongs());
+        assertNotSame(playList.findSong(0), copy.findSong(0));
+        assertSame(copy.findSong(0).getArtist(), copy.findSong(1).getArtist());
+        assertEquals(7, copy.getLikes());
+    }
+
+    @Test
+    void failedSaveIsReportedAndRetried() throws IOException {
+        File missing = new File(new File(directory, "missing"), "Store.dat");
+        autosaver = new PlaylistAutosaver(playList, missing, StoreFormat.BINARY, lock, 60_000);
+        playList.addLike();
+
+        assertThrows(IOException.class, autosaver::flush);
+        assertEquals(1, autosaver.getFailedSaves());
+        assertNotNull(autosaver.getLastFailure());
+        assertTrue(autosaver.isDirty());
+
+        assertTrue(missing.getParentFile().mkdir());
+        autosaver.flush();
+        assertFalse(autosaver.isDirty());
+        assertNull(autosaver.getLastFailure());
+        missing.delete();
+        missing.getParentFile().delete();
+    }
+}
+/*
+ * End of persistence.PlaylistAutosaverTest Class.
+ */
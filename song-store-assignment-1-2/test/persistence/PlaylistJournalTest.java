@@ -0,0 +1,256 @@
+package persistence;
+
+import controllers.ConcurrentPlaylist;
+import controllers.Playlist;
+import controllers.PlaylistFixtures;
+import models.Song;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaylistJournalTest {
+    static final int THREADS = 8;
+    static final int LIKES_PER_THREAD = 70;
+    static final int SONGS_PER_THREAD = 100;
+
+    File directory;
+    File snapshotFile;
+    File journalFile;
+    Playlist playList;
+    PlaylistJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+        snapshotFile = new File(directory, PlaylistJournal.SNAPSHOT_FILE_NAME);
+        journalFile = new File(directory, PlaylistJournal.JOURNAL_FILE_NAME);
+
+        playList = new Playlist("Chill-24", "Chillout songs to study to");
+        playList.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        playList.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+        journal = PlaylistJournal.create(playList, snapshotFile, journalFile);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private Playlist reopen() throws IOException {
+        journal.detach();
+        journal = PlaylistJournal.open(snapshotFile, journalFile);
+        return journal.getPlaylist();
+    }
+
+    @Test
+    void everyOperationIsReplayed() throws IOException {
+        playList.addSong(new Song(2000, "Café del Mar ♪", "Energy 52", false, 420));
+        playList.updateSong(0, new Song(1501, "Anti-Hero (Live)", "Taylor Swift", true, 130));
+        playList.deleteSong(1);
+        playList.updateVerifiedStatus(1, true);
+        playList.addLike();
+        playList.addLike();
+        playList.setPlaylistName("Study");
+        playList.setDescription("Quiet songs");
+        assertEquals(8, journal.getPendingChanges());
+        assertEquals(8, journal.save());
+        assertEquals(0, journal.getPendingChanges());
+
+        Playlist loaded = reopen();
+        assertEquals(playList.toString(), loaded.toString());
+        assertEquals("Study", loaded.getPlaylistName());
+        assertEquals(2, loaded.getLikes());
+        assertTrue(loaded.findSong(1).isVerified());
+        assertEquals(playList.getSongs(), loaded.getSongs());
+    }
+
+    @Nested
+    class Batches {
+
+        @Test
+        void batchesAreReplayed() throws IOException {
+            playList.addSongs(PlaylistFixtures.numberedSongs(2000, 10));
+            playList.updateSongs(Map.of(0, new Song(1501, "Anti-Hero (Live)", "Taylor Swift", true, 130),
+                    4, new Song(3004, "Song 2 (Edit)", "Artist 2", false, 90)));
+            playList.deleteSongs(11, 1, 6, 3);
+            assertEquals(10 + 2 + 4, journal.save());
+
+            Playlist loaded = reopen();
+            PlaylistFixtures.assertSameReports(playList, loaded);
+            assertEquals(playList.getSongs(), loaded.getSongs());
+        }
+    }
+
+    @Test
+    void saveOnlyAppendsTheChange() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            playList.addSong(new Song(1000 + i, "Song " + i, "Artist " + i, false, 100 + i));
+        }
+        journal.compact();
+        long before = journalFile.length();
+
+        playList.addLike();
+        assertEquals(1, journal.save());
+        assertTrue(journalFile.length() - before < 10);
+
+        playList.setLikes(5);
+        journal.save();
+        assertEquals(5, reopen().getLikes());
+    }
+
+    @Test
+    void replacingSongsCompacts() throws IOException {
+        ArrayList<Song> songs = new ArrayList<>();
+        songs.add(new Song(3000, "Replaced", "Someone", false, 200));
+        playList.setSongs(songs);
+        playList.addLike();
+
+        assertEquals(-1, journal.save());
+        assertEquals(PlaylistJournal.HEADER_SIZE, journalFile.length());
+        assertEquals(playList.toString(), reopen().toString());
+    }
+
+    @Test
+    void incompleteLastRecordIsDropped() throws IOException {
+        playList.addLike();
+        journal.save();
+        playList.addSong(new Song(2000, "Lost", "Nobody", false, 420));
+        journal.save();
+
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        Playlist loaded = reopen();
+        assertEquals(1, loaded.getLikes());
+        assertEquals(2, loaded.numSongs());
+
+        // the journal was cut back, so later records are replayed again
+        loaded.addLike();
+        journal.save();
+        assertEquals(2, reopen().getLikes());
+    }
+
+    @Test
+    void journalOfAnOlderSnapshotIsIgnored() throws IOException {
+        playList.addLike();
+        journal.save();
+        byte[] oldJournal = Files.readAllBytes(journalFile.toPath());
+
+        // as if compaction stopped after writing the snapshot, before rewriting the journal
+        journal.compact();
+        Files.write(journalFile.toPath(), oldJournal);
+
+        assertEquals(1, reopen().getLikes());
+    }
+
+    @Nested
+    class Concurrency {
+        ConcurrentPlaylist concurrent;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            journal.detach();
+            concurrent = new ConcurrentPlaylist("Chill-24", "Chillout songs to study to");
+            concurrent.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+            journal = PlaylistJournal.create(concurrent, snapshotFile, journalFile);
+        }
+
+        @Test
+        void likesFromManyThreadsAreAllSaved() throws Exception {
+            runTogether(THREADS, thread -> {
+                for (int i = 0; i < LIKES_PER_THREAD; i++) {
+                    concurrent.addLike();
+                }
+            });
+
+            assertEquals(THREADS * LIKES_PER_THREAD, journal.getPendingChanges());
+            assertEquals(THREADS * LIKES_PER_THREAD, journal.save());
+            assertEquals(THREADS * LIKES_PER_THREAD, reopen().getLikes());
+        }
+
+        @Test
+        void compactingWhileOtherThreadsChangeThePlaylist() throws Exception {
+            AtomicBoolean changing = new AtomicBoolean(true);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<?> saver = executor.submit(() -> {
+                while (changing.get()) {
+                    journal.compact();
+                    journal.save();
+                }
+                return null;
+            });
+
+            try {
+                runTogether(THREADS, thread -> {
+                    for (int i = 0; i < SONGS_PER_THREAD; i++) {
+                        int code = 2000 + thread * SONGS_PER_THREAD + i;
+                        concurrent.addSong(new Song(code, "Song " + code, "Artist " + thread, thread % 2 == 0, 60 + code % 540));
+                        concurrent.addLike();
+                    }
+                });
+            } finally {
+                changing.set(false);
+                executor.shutdown();
+            }
+            saver.get(30, TimeUnit.SECONDS);
+            journal.save();
+
+            Playlist loaded = reopen();
+            assertEquals(THREADS * SONGS_PER_THREAD, loaded.getLikes());
+            assertEquals(concurrent.getSongs(), loaded.getSongs());
+        }
+
+        /*
+          同时启动 threads 个线程运行 task，并等待它们全部结束。
+          Start threads threads running task at the same time, and wait until all of them have finished.
+         */
+        private void runTogether(int threads, IntConsumer task) throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.accept(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            try {
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
+/*
+ * End of persistence.PlaylistJournalTest Class.
+ */
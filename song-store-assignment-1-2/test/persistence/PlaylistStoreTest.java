@@ -0,0 +1,114 @@
+package persistence;
+
+import controllers.Playlist;
+import models.Song;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaylistStoreTest {
+    Playlist playList;
+
+    @BeforeEach
+    void setUp() {
+        playList = new Playlist("Chill-24", "Chillout songs to study to");
+        playList.addSong(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123));
+        playList.addSong(new Song(9999, "Calm Down", "Rema", false, 600));
+        playList.addSong(new Song(1000, "12345678901234567890", "Taylor Swift", true, 1));
+        playList.addSong(new Song(2000, "Café del Mar ♪", "Energy 52", false, 420));
+        playList.setLikes(7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        playList = null;
+    }
+
+    private Playlist roundTrip(StoreFormat format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PlaylistStore.write(playList, output, format);
+        return PlaylistStore.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    @Test
+    void binaryRoundTripKeepsEverything() throws IOException {
+        Playlist loaded = roundTrip(StoreFormat.BINARY);
+        assertEquals("Chill-24", loaded.getPlaylistName());
+        assertEquals("Chillout songs to study to", loaded.getDescription());
+        assertEquals(7, loaded.getLikes());
+        assertEquals(playList.getSongs(), loaded.getSongs());
+        assertEquals(playList.toString(), loaded.toString());
+        assertEquals(playList.findSong(3).getArtist(), loaded.findSong(3).getArtist());
+    }
+
+    @Test
+    void binaryLoadSharesOneArtistPerDictionaryEntry() throws IOException {
+        Playlist loaded = roundTrip(StoreFormat.BINARY);
+        assertSame(loaded.findSong(0).getArtist(), loaded.findSong(2).getArtist());
+        assertNotSame(loaded.findSong(0).getArtist(), loaded.findSong(1).getArtist());
+    }
+
+    @Test
+    void xmlRoundTripStillWorks() throws IOException {
+        Playlist loaded = roundTrip(StoreFormat.XML);
+        assertEquals(playList.toString(), loaded.toString());
+        assertEquals(playList.findSongByCode(2000), loaded.findSongByCode(2000));
+    }
+
+    @Test
+    void binaryIsSmallerThanXml() throws IOException {
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        PlaylistStore.write(playList, xml, StoreFormat.XML);
+        PlaylistStore.write(playList, binary, StoreFormat.BINARY);
+        assertTrue(binary.size() * 5 < xml.size());
+    }
+
+    @Test
+    void corruptBinaryIsRejected() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PlaylistStore.write(playList, output, StoreFormat.BINARY);
+        byte[] truncated = Arrays.copyOf(output.toByteArray(), output.size() / 2);
+        assertThrows(IOException.class, () -> PlaylistStore.read(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    void corruptFileIsRecoveredFromBackup() throws IOException {
+        File directory = Files.createTempDirectory("store").toFile();
+        File file = new File(directory, StoreFormat.BINARY.getFileName());
+
+        try {
+            PlaylistStore.save(playList, file, StoreFormat.BINARY);
+            playList.addLike();
+            PlaylistStore.save(playList, file, StoreFormat.BINARY);
+
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+            assertThrows(IOException.class, () -> PlaylistStore.load(file));
+
+            Playlist recovered = PlaylistStore.recover(file);
+            assertEquals(7, recovered.getLikes());
+            assertEquals(playList.getSongs(), recovered.getSongs());
+        } finally {
+            for (File child : directory.listFiles()) {
+                child.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    void missingBackupsAreReported() {
+        File file = new File("does-not-exist", "Store.xml");
+        assertThrows(IOException.class, () -> PlaylistStore.recover(file));
+    }
+}
@@ -0,0 +1,155 @@
+package persistence;
+
+import controllers.Library;
+import controllers.Playlist;
+import models.Song;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongImporterTest {
+    Playlist playList;
+
+    @BeforeEach
+    void setUp() {
+        playList = new Playlist("Chill-24", "Chillout songs to study to");
+    }
+
+    @Test
+    void importsCsvWithHeaderQuotesAndTruncation() throws IOException {
+        String csv = """
+                songId,name,artist,verified,length
+                1500,Anti-Hero,Taylor Swift,true,123
+                9999,"Calm Down, Remix",Rema,n,600
+                2000,"Say \"\"Hi\"\"",Taylor Swift,Y,219
+                1000,123456789012345678901234,An artist with a long name,0,1
+                """;
+
+        ImportReport report = new SongImporter(2, 2).importFrom(new StringReader(csv), ',', playList, null);
+
+        assertEquals(4, report.getRows());
+        assertEquals(4, report.getSongsAdded());
+        assertEquals(0, report.getRejected());
+        assertEquals(4, playList.numSongs());
+        assertEquals(new Song(1500, "Anti-Hero", "Taylor Swift", true, 123), playList.findSong(0));
+        assertEquals("Say \"Hi\"", playList.findSong(2).getName());
+        assertEquals("12345678901234567890", playList.findSong(3).getName());
+        assertEquals("Calm Down, Remix", playList.findSong(1).getName());
+        assertEquals("An artist with ", playList.findSong(3).getArtist().getArtistName());
+        assertFalse(playList.findSong(1).getArtist().isVerified());
+        assertSame(playList.findSong(0).getArtist(), playList.findSong(2).getArtist());
+    }
+
+    @Test
+    void rejectsInvalidRowsAndCountsThem() throws IOException {
+        String csv = """
+                1500,Anti-Hero,Taylor Swift,true,123
+                999,Too Low,Rema,true,100
+                10000,Too High,Rema,true,100
+                abc,Not A Number,Rema,true,100
+                1501,Too Short,Rema,true,0
+                1502,Too Long,Rema,true,601
+                1503,Maybe,Rema,maybe,100
+                1504,Four Fields,Rema,true
+                1505,Six Fields,Rema,true,100,extra
+                1506,"Unterminated,Rema,true,100
+                1507,,Rema,true,100
+                1508,No Artist, ,true,100
+
+                9999,Calm Down,Rema,false,600
+                """;
+
+        ImportReport report = new SongImporter(3, 4).importFrom(new StringReader(csv), ',', playList, null);
+
+        assertEquals(13, report.getRows());
+        assertEquals(2, report.getSongsAdded());
+        assertEquals(11, report.getRejected());
+        assertEquals(3, report.getRejected(ImportReport.Problem.SONG_ID));
+        assertEquals(2, report.getRejected(ImportReport.Problem.LENGTH));
+        assertEquals(1, report.getRejected(ImportReport.Problem.VERIFIED));
+        assertEquals(3, report.getRejected(ImportReport.Problem.FIELD_COUNT));
+        assertEquals(1, report.getRejected(ImportReport.Problem.NAME));
+        assertEquals(1, report.getRejected(ImportReport.Problem.ARTIST));
+        assertEquals(11, report.getRejections().size());
+        assertEquals(2, report.getRejections().get(0).getLineNumber());
+        assertEquals(12, report.getRejections().get(10).getLineNumber());
+        assertEquals("1506,\"Unterminated,Rema,true,100", report.getRejections().get(8).getLine());
+        assertEquals(9999, playList.findSong(1).getSongId());
+        assertTrue(report.toString().startsWith("Imported 2 of 13 rows"));
+    }
+
+    @Test
+    void keepsTheVerifiedStatusOfEveryRow() throws IOException {
+        String csv = """
+                1500,A,Rema,false,100
+                1600,B,Rema,true,200
+                1700,C,Rema,false,300
+                """;
+
+        new SongImporter(1, 1).importFrom(new StringReader(csv), ',', playList, null);
+        assertTrue(playList.findSong(1).getArtist().isVerified());
+        assertEquals(1, playList.numberOfSongsFromVerifiedArtists());
+        assertSame(playList.findSong(0).getArtist(), playList.findSong(2).getArtist());
+
+        Library library = new Library();
+        Playlist shared = library.createPlaylist("Shared", "Through the library");
+        new SongImporter(2, 1).importFrom(new StringReader(csv), ',', shared, library);
+        assertTrue(shared.findSong(1).getArtist().isVerified());
+        assertEquals(1, shared.numberOfSongsFromVerifiedArtists());
+        assertFalse(library.findArtist("Rema").isVerified());
+        assertNull(library.findSong(1600));
+        assertSame(shared.findSong(2), library.findSong(1700));
+    }
+
+    @Test
+    void importsTsvFile() throws IOException {
+        File file = File.createTempFile("songs", ".tsv");
+
+        try {
+            Files.writeString(file.toPath(), "\uFEFF1500\tAnti-Hero, Live\tTaylor Swift\tyes\t123\n\n9999\t\"Calm Down\"\tRema\tno\t600\n",
+                    StandardCharsets.UTF_8);
+            ImportReport report = new SongImporter().importFile(file, playList, null);
+
+            assertEquals(2, report.getSongsAdded());
+            assertEquals("Anti-Hero, Live", playList.findSong(0).getName());
+            assertEquals("\"Calm Down\"", playList.findSong(1).getName());
+            assertTrue(report.getRowsPerSecond() > 0);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void parallelImportKeepsFileOrder() throws IOException {
+        StringBuilder csv = new StringBuilder("songId,name,artist,verified,length\n");
+
+        for (int i = 0; i < 10_000; i++) {
+            csv.append(1000 + i % 9000).append(",Song ").append(i).append(",Artist ").append(i % 37).append(',')
+                    .append(i % 2 == 0).append(',').append(i % 700).append('\n');
+        }
+
+        Playlist sequential = new Playlist("Chill-24", "Chillout songs to study to");
+        ImportReport one = new SongImporter(1, 10_000).importFrom(new StringReader(csv.toString()), ',', sequential, null);
+        Library library = new Library();
+        library.addPlaylist(playList);
+        ImportReport many = new SongImporter(4, 100).importFrom(new StringReader(csv.toString()), ',', playList, library);
+
+        assertEquals(10_000, many.getRows());
+        assertEquals(one.getSongsAdded(), many.getSongsAdded());
+        assertEquals(one.getRejected(ImportReport.Problem.LENGTH), many.getRejected(ImportReport.Problem.LENGTH));
+        assertEquals(ImportReport.MAX_REJECTIONS, many.getRejections().size());
+        assertEquals(sequential.toString(), playList.toString());
+        assertEquals(37, library.numArtists());
+        assertSame(library.findSong(1001), playList.findSong(0));
+    }
+}
+/*
+ * End of persistence.SongImporterTest Class.
+ */
@@ -0,0 +1,100 @@
+package persistence;
+
+import controllers.Playlist;
+import models.Song;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XmlPlaylistFormatTest {
+    Playlist playList;
+
+    @BeforeEach
+    void setUp() {
+        playList = new Playlist("Rock & <Roll>", "\"Quotes\" and 'apostrophes'");
+        Song first = new Song(1500, "Anti-Hero", "Taylor Swift", true, 123);
+        Song second = new Song(1600, "", "Rema", false, 600);
+        Song third = new Song(1700, "Tab\tCR\r ♪", "Energy 52", false, 420);
+        Song fourth = new Song(1800, "Shake It Off", "Taylor Swift", true, 219);
+        second.setArtist(first.getArtist());
+        fourth.setArtist(third.getArtist());
+        third.setArtistName("Old artist field");
+        third.setVerified(true);
+
+        playList.addSong(first);
+        playList.addSong(second);
+        playList.addSong(third);
+        playList.addSong(fourth);
+        playList.addSong(first);
+        playList.addSong(third);
+        playList.addLike();
+        playList.addLike();
+    }
+
+    private String write(Playlist playlist) throws IOException {
+        StringWriter out = new StringWriter();
+        XmlPlaylistFormat.write(playlist, out);
+        return out.toString();
+    }
+
+    private Playlist read(String xml) throws IOException {
+        return XmlPlaylistFormat.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void writesTheSameBytesAsXStream() throws IOException {
+        assertEquals(PlaylistStore.createXStream().toXML(playList), write(playList));
+
+        playList.setLikes(3);
+        assertEquals(PlaylistStore.createXStream().toXML(playList), write(playList));
+
+        // control characters are escaped the same way, even though neither reader accepts them back
+        playList.addSong(new Song(1900, "Ctl\u0001\u007f", "Nobody", false, 5));
+        assertEquals(PlaylistStore.createXStream().toXML(playList), write(playList));
+    }
+
+    @Test
+    void writesAnEmptyPlaylistLikeXStream() throws IOException {
+        Playlist empty = new Playlist("", "");
+        assertEquals(PlaylistStore.createXStream().toXML(empty), write(empty));
+    }
+
+    @Test
+    void readsFilesWrittenByXStream() throws IOException {
+        String xml = PlaylistStore.createXStream().toXML(playList);
+        Playlist loaded = read(xml);
+
+        assertEquals(playList.getPlaylistName(), loaded.getPlaylistName());
+        assertEquals(playList.getDescription(), loaded.getDescription());
+        assertEquals(2, loaded.getLikes());
+        assertEquals(playList.toString(), loaded.toString());
+        assertEquals("Tab\tCR\r ♪", loaded.findSong(2).getName());
+        assertEquals("Old artist field", loaded.findSong(2).getArtistName());
+        assertTrue(loaded.findSong(2).isVerified());
+
+        // shared objects are still shared, like an XStream load
+        assertSame(loaded.findSong(0), loaded.findSong(4));
+        assertSame(loaded.findSong(2), loaded.findSong(5));
+        assertSame(loaded.findSong(0).getArtist(), loaded.findSong(1).getArtist());
+        assertSame(loaded.findSong(2).getArtist(), loaded.findSong(3).getArtist());
+
+        // writing the loaded playlist again gives the same file
+        assertEquals(xml, write(loaded));
+    }
+
+    @Test
+    void badReferencesAreRejected() {
+        String xml = "<playlist>\n  <songs>\n    <song reference=\"../song[4]\"/>\n  </songs>\n</playlist>";
+        assertThrows(IOException.class, () -> read(xml));
+        assertThrows(IOException.class, () -> read("<playlist><songs><song>"));
+    }
+}
+/*
+ * End of persistence.XmlPlaylistFormatTest Class.
+ */